@@ -6,7 +6,6 @@ import lombok.experimental.FieldDefaults;
 
 import java.time.Instant;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Set;
 
 import static lombok.AccessLevel.PRIVATE;
@@ -18,15 +17,7 @@ public final class CurrencyPair implements Comparable<CurrencyPair> {
     @NonNull Currency base;
     @NonNull Currency quote;
 
-    private static final Set<CurrencyPair> CURRENCY_PAIRS = new HashSet<>();
-
-    static {
-        for (Currency base : Currency.values()) {
-            for (Currency quote : Currency.values()) {
-                CURRENCY_PAIRS.add(new CurrencyPair(base, quote));
-            }
-        }
-    }
+    private static final CurrencyPairIndex CURRENCY_PAIRS = new CurrencyPairIndex((base, quote) -> true);
 
     public enum CurrencyPosition {BASE, QUOTE}
     public static final Comparator<CurrencyPair> COMPARATOR =
@@ -63,10 +54,17 @@ public final class CurrencyPair implements Comparable<CurrencyPair> {
         return base.getEndDate().isBefore(quote.getEndDate()) ? base.getEndDate() : quote.getEndDate();
     }
 
+    /**
+     * @return immutable set of the tradeable pairs, its contains() doesn't allocate
+     */
     public static Set<CurrencyPair> getTradeablePairs() {
         return CURRENCY_PAIRS;
     }
 
+    public static boolean isTradeable(Currency base, Currency quote) {
+        return CURRENCY_PAIRS.contains(base, quote);
+    }
+
     @Override
     public int compareTo(CurrencyPair currencyPair) {
         return COMPARATOR.compare(this, currencyPair);
@@ -0,0 +1,95 @@
+package io.everytrade.server.model;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiPredicate;
+
+/**
+ * Immutable set of currency pairs stored as a bitset indexed by the currencies' ordinals, one bit per
+ * (base, quote) combination. Membership tests don't allocate, pair instances are created only while iterating.
+ */
+final class CurrencyPairIndex extends AbstractSet<CurrencyPair> {
+    private static final Currency[] CURRENCIES = Currency.values();
+    private static final int CURRENCY_COUNT = CURRENCIES.length;
+
+    private final long[] bits;
+    private final int size;
+
+    CurrencyPairIndex(BiPredicate<Currency, Currency> included) {
+        bits = new long[(CURRENCY_COUNT * CURRENCY_COUNT + Long.SIZE - 1) / Long.SIZE];
+        int count = 0;
+        for (Currency base : CURRENCIES) {
+            for (Currency quote : CURRENCIES) {
+                if (included.test(base, quote)) {
+                    int bit = bitIndex(base, quote);
+                    bits[bit >>> 6] |= 1L << bit;
+                    count++;
+                }
+            }
+        }
+        size = count;
+    }
+
+    boolean contains(Currency base, Currency quote) {
+        int bit = bitIndex(base, quote);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof CurrencyPair)) {
+            return false;
+        }
+        var pair = (CurrencyPair) o;
+        return contains(pair.getBase(), pair.getQuote());
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<CurrencyPair> iterator() {
+        return new Iterator<>() {
+            private int nextBit = nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return nextBit >= 0;
+            }
+
+            @Override
+            public CurrencyPair next() {
+                if (nextBit < 0) {
+                    throw new NoSuchElementException();
+                }
+                var pair = new CurrencyPair(CURRENCIES[nextBit / CURRENCY_COUNT], CURRENCIES[nextBit % CURRENCY_COUNT]);
+                nextBit = nextSetBit(nextBit + 1);
+                return pair;
+            }
+        };
+    }
+
+    private int nextSetBit(int fromBit) {
+        int wordIndex = fromBit >>> 6;
+        if (wordIndex >= bits.length) {
+            return -1;
+        }
+        long word = bits[wordIndex] & (-1L << fromBit);
+        while (true) {
+            if (word != 0) {
+                return wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == bits.length) {
+                return -1;
+            }
+            word = bits[wordIndex];
+        }
+    }
+
+    private static int bitIndex(Currency base, Currency quote) {
+        return base.ordinal() * CURRENCY_COUNT + quote.ordinal();
+    }
+}
@@ -24,5 +24,20 @@ public interface ICsvParser extends AutoCloseable {
     }
 
     ParseResult parse(File file, String header, String profileName);
+
+    /**
+     * Parse the specified file and pass the transaction clusters and parsing problems to the sink as they are
+     * produced, so that the whole result doesn't have to be held in memory. Parsers which can't stream pass their
+     * complete result.
+     * @param file CSV file to be parsed.
+     * @param header CVS file's header that has used to identify this parser.
+     * @param profileName parsing profile, may be null.
+     * @param sink receiver of the parsed data.
+     */
+    default void parse(File file, String header, String profileName, IParseResultSink sink) {
+        final ParseResult parseResult = parse(file, header, profileName);
+        parseResult.getParsingProblems().forEach(sink::onParsingProblem);
+        parseResult.getTransactionClusters().forEach(sink::onTransactionCluster);
+    }
 }
 
@@ -0,0 +1,20 @@
+package io.everytrade.server.plugin.api.parser;
+
+/**
+ * Receives the result of a streaming parse as it is produced, see
+ * <code>{@link ICsvParser#parse(java.io.File, String, String, IParseResultSink)}</code>.
+ */
+public interface IParseResultSink {
+
+    /**
+     * Called for every transaction cluster in the order of the file's rows.
+     * @param transactionCluster parsed and validated transaction cluster
+     */
+    void onTransactionCluster(TransactionCluster transactionCluster);
+
+    /**
+     * Called for every row which was ignored or couldn't be parsed.
+     * @param parsingProblem problem description including the row
+     */
+    void onParsingProblem(ParsingProblem parsingProblem);
+}
@@ -0,0 +1,26 @@
+package io.everytrade.server.plugin.api.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sink collecting a streaming parse into a <code>{@link ParseResult}</code>.
+ */
+public class ParseResultCollector implements IParseResultSink {
+    private final List<TransactionCluster> transactionClusters = new ArrayList<>();
+    private final List<ParsingProblem> parsingProblems = new ArrayList<>();
+
+    @Override
+    public void onTransactionCluster(TransactionCluster transactionCluster) {
+        transactionClusters.add(transactionCluster);
+    }
+
+    @Override
+    public void onParsingProblem(ParsingProblem parsingProblem) {
+        parsingProblems.add(parsingProblem);
+    }
+
+    public ParseResult toParseResult() {
+        return new ParseResult(transactionClusters, parsingProblems);
+    }
+}
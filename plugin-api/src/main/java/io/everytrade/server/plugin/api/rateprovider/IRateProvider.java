@@ -1,8 +1,14 @@
 package io.everytrade.server.plugin.api.rateprovider;
 
 import io.everytrade.server.model.Currency;
+import io.everytrade.server.plugin.utils.TimeUtils;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public interface IRateProvider {
     int DECIMAL_DIGITS = 17;
@@ -52,4 +58,44 @@ public interface IRateProvider {
         return getRate(base, quote, instant);
     }
 
-}
\ No newline at end of file
+    /**
+     * Determines rates for a batch of queries. Queries falling into the same rate validity window (see
+     * {@link #getMinRateValidity()}) are resolved only once and the distinct lookups are made ordered by currency
+     * pair and time. Providers able to fetch rates in bulk should override this method.
+     * @param queries rate queries, duplicates are allowed
+     * @return rates by query in the order of the given queries, queries without a rate are not present
+     */
+    default Map<RateQuery, Rate> getRates(Collection<RateQuery> queries) {
+        final RateValidity validity = getMinRateValidity();
+        final Map<RateQuery, RateQuery> bucketByQuery = new LinkedHashMap<>();
+        for (RateQuery query : queries) {
+            final Instant bucketStart = validity == RateValidity.FOREVER
+                ? Instant.MIN
+                : TimeUtils.truncate(query.getInstant(), validity.getField(), validity.getCount());
+            bucketByQuery.put(query, new RateQuery(query.getBase(), query.getQuote(), bucketStart));
+        }
+
+        final Map<RateQuery, Rate> rateByBucket = new HashMap<>();
+        bucketByQuery.entrySet().stream()
+            .sorted(Comparator.comparing(
+                (Map.Entry<RateQuery, RateQuery> e) -> e.getValue().getBase())
+                .thenComparing(e -> e.getValue().getQuote())
+                .thenComparing(e -> e.getValue().getInstant())
+            )
+            .forEach(e -> {
+                if (!rateByBucket.containsKey(e.getValue())) {
+                    final RateQuery query = e.getKey();
+                    rateByBucket.put(e.getValue(), getRate(query.getBase(), query.getQuote(), query.getInstant()));
+                }
+            });
+
+        final Map<RateQuery, Rate> rates = new LinkedHashMap<>();
+        bucketByQuery.forEach((query, bucket) -> {
+            final Rate rate = rateByBucket.get(bucket);
+            if (rate != null) {
+                rates.put(query, rate);
+            }
+        });
+        return rates;
+    }
+}
@@ -0,0 +1,17 @@
+package io.everytrade.server.plugin.api.rateprovider;
+
+import io.everytrade.server.model.Currency;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Single query of a batch rate lookup, see {@link IRateProvider#getRates(java.util.Collection)}.
+ */
+@Value
+public class RateQuery {
+    @NonNull Currency base;
+    @NonNull Currency quote;
+    @NonNull Instant instant;
+}
@@ -0,0 +1,148 @@
+package io.everytrade.server.plugin.csv;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled form of {@link CsvHeader} templates. Header line columns are compared in place (no splitting, no
+ * template variants), regex templates are compiled once. A column matches a template when it equals the template
+ * ignoring case, optionally wrapped in quotes and optionally preceded by the byte order mark.
+ */
+final class CompiledCsvHeader {
+    private static final char QUOTE = '"';
+    private static final char MAGIC_MARK = '\uFEFF';
+    private static final String REGEX_PREFIX = "^";
+    private static final String REGEX_POSTFIX = "$";
+
+    private final String[] literals;
+    private final Pattern[][] patterns;
+    private final String separator;
+    private final boolean ordered;
+    private final boolean matchesEmptyLine;
+
+    CompiledCsvHeader(List<String> headerValues, String separator, boolean ordered) {
+        this.separator = separator;
+        this.ordered = ordered;
+        this.literals = new String[headerValues.size()];
+        this.patterns = new Pattern[headerValues.size()][];
+        for (int i = 0; i < headerValues.size(); i++) {
+            String template = headerValues.get(i);
+            if (CsvHeader.isHeaderTemplateRegex(template)) {
+                patterns[i] = compileRegexTemplate(template);
+            } else {
+                literals[i] = template;
+            }
+        }
+        this.matchesEmptyLine = headerValues.size() == 1
+            && patterns[0] != null
+            && Pattern.compile(headerValues.get(0)).matcher("").matches();
+    }
+
+    boolean matching(String headerLine) {
+        if (headerLine == null) {
+            return false;
+        }
+        if (headerLine.isEmpty()) {
+            return matchesEmptyLine;
+        }
+        int lineEnd = effectiveEnd(headerLine);
+        return ordered ? matchingOrdered(headerLine, lineEnd) : matchingUnordered(headerLine, lineEnd);
+    }
+
+    private boolean matchingOrdered(String line, int lineEnd) {
+        int start = 0;
+        for (int t = 0; t < literals.length; t++) {
+            boolean found = false;
+            while (start <= lineEnd && !found) {
+                int end = columnEnd(line, start, lineEnd);
+                found = matches(t, line, start, end);
+                start = end + separator.length();
+            }
+            if (!found) {
+                return false; // not found matching in given order
+            }
+        }
+        return true; // all headers found in template
+    }
+
+    private boolean matchingUnordered(String line, int lineEnd) {
+        int start = 0;
+        while (start <= lineEnd) {
+            int end = columnEnd(line, start, lineEnd);
+            if (!matchesAnyTemplate(line, start, end)) {
+                return false;
+            }
+            start = end + separator.length();
+        }
+        return true;
+    }
+
+    private boolean matchesAnyTemplate(String line, int start, int end) {
+        for (int t = 0; t < literals.length; t++) {
+            if (matches(t, line, start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(int templateIndex, String line, int start, int end) {
+        String literal = literals[templateIndex];
+        if (literal == null) {
+            for (Pattern pattern : patterns[templateIndex]) {
+                if (pattern.matcher(line).region(start, end).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (matchesLiteral(literal, line, start, end)) {
+            return true;
+        }
+        return end > start
+            && line.charAt(start) == MAGIC_MARK
+            && matchesLiteral(literal, line, start + 1, end);
+    }
+
+    private static boolean matchesLiteral(String literal, String line, int start, int end) {
+        int length = end - start;
+        if (length == literal.length() && line.regionMatches(true, start, literal, 0, length)) {
+            return true;
+        }
+        return length == literal.length() + 2
+            && line.charAt(start) == QUOTE
+            && line.charAt(end - 1) == QUOTE
+            && line.regionMatches(true, start + 1, literal, 0, literal.length());
+    }
+
+    private int columnEnd(String line, int start, int lineEnd) {
+        int end = line.indexOf(separator, start);
+        return end < 0 || end > lineEnd ? lineEnd : end;
+    }
+
+    /*
+     * Same columns as String.split, which drops trailing empty columns. A line consisting of separators only has no
+     * columns at all, which is signalled by a negative end.
+     */
+    private int effectiveEnd(String line) {
+        if (separator.isEmpty() || !line.contains(separator)) {
+            return line.length();
+        }
+        int end = line.length();
+        while (end >= separator.length() && line.startsWith(separator, end - separator.length())) {
+            end -= separator.length();
+        }
+        return end == 0 ? -1 : end;
+    }
+
+    private static Pattern[] compileRegexTemplate(String template) {
+        // move regex prefix to beginning and postfix to end of the string
+        String body = template.replace(REGEX_PREFIX, "").replace(REGEX_POSTFIX, "");
+        return new Pattern[]{
+            Pattern.compile(REGEX_PREFIX + body + REGEX_POSTFIX),
+            Pattern.compile(REGEX_PREFIX + QUOTE + body + QUOTE + REGEX_POSTFIX),
+            Pattern.compile(REGEX_PREFIX + MAGIC_MARK + body + REGEX_POSTFIX),
+            Pattern.compile(REGEX_PREFIX + MAGIC_MARK + QUOTE + body + QUOTE + REGEX_POSTFIX)
+        };
+    }
+}
@@ -4,93 +4,40 @@ package io.everytrade.server.plugin.csv;
 import lombok.Getter;
 
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 public class CsvHeader {
 
     private static final String DEFAULT_SEPARATOR = ";";
-    private static final String REGEX_PREFIX = "^";
-    private static final String REGEX_POSTFIX = "$";
-    private static final String QUOTE = "\"";
-    private static final String MAGIC_MARK = "\uFEFF";
 
     @Getter
     private final List<String> headerValues;
+    @Getter
     private final String separator;
-    private boolean ordered = true; // if order of header values matters or not
+    @Getter
+    private final boolean ordered; // if order of header values matters or not
+    private final CompiledCsvHeader compiled;
 
     public CsvHeader(List<String> headerValues, String separator) {
-        this.headerValues = headerValues;
-        this.separator = separator;
+        this(headerValues, separator, true);
     }
 
     public CsvHeader(List<String> headerValues, String separator, boolean ordered) {
+        if (separator.isEmpty()) {
+            throw new IllegalArgumentException("Header separator must not be empty.");
+        }
         this.headerValues = headerValues;
         this.separator = separator;
         this.ordered = ordered;
+        this.compiled = new CompiledCsvHeader(headerValues, separator, ordered);
     }
 
     public boolean matching(String headerLine) {
-        if (headerLine == null) {
-            return false;
-        }
-        if (headerLine.isEmpty()) {
-            return headerValues.size() == 1
-                && isHeaderTemplateRegex(headerValues.get(0))
-                && Pattern.compile(headerValues.get(0)).matcher("").matches();
-        }
-        List<String> vals = Arrays.asList(headerLine.split(separator));
-
-        if (ordered) {
-            return compareOrdered(vals);
-        } else {
-            return vals.stream().allMatch(val -> headerValues.stream().anyMatch(template -> compareValues(template, val)));
-        }
-    }
-
-    private boolean compareOrdered(List<String> currentHeaderValues) {
-        Iterator<String> currentIt = currentHeaderValues.iterator();
-
-        for (String template : headerValues) {
-            String current = null;
-            while (currentIt.hasNext()) {
-                current = currentIt.next();
-                if (compareValues(template, current)) {
-                    break; // template found move to next
-                }
-            }
-            if (template != null && !compareValues(template, current)) {
-                return false; // not found matching in given order
-            }
-        }
-        return true; // all headers found in template
-    }
-
-    private boolean compareValues(String template, String value) {
-        var templateValueCombinations = Stream.of(
-            template,
-            QUOTE + template + QUOTE,
-            MAGIC_MARK + template,
-            MAGIC_MARK + QUOTE + template + QUOTE
-        );
-
-        if (isHeaderTemplateRegex(template)) {
-            return templateValueCombinations
-                // move regex prefix to beginning and postfix to end of the string
-                .map(t -> t.replace(REGEX_PREFIX, "").replace(REGEX_POSTFIX, ""))
-                .map(t -> REGEX_PREFIX + t + REGEX_POSTFIX)
-                .map(Pattern::compile)
-                .anyMatch(pattern -> pattern.matcher(value).find());
-        } else {
-            return templateValueCombinations.anyMatch(it -> it.equalsIgnoreCase(value));
-        }
+        return compiled.matching(headerLine);
     }
 
-    private static boolean isHeaderTemplateRegex(String headerTemplate) {
+    public static boolean isHeaderTemplateRegex(String headerTemplate) {
         Objects.requireNonNull(headerTemplate);
         return (headerTemplate.startsWith("^") && headerTemplate.endsWith("$"));
     }
@@ -10,6 +10,7 @@ import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.util.CoinMateDataUtil;
+import io.everytrade.server.util.CurrencyResolver;
 import lombok.Builder;
 import lombok.Value;
 import org.knowm.xchange.coinbase.v2.dto.account.transactions.CoinbaseShowTransactionV2;
@@ -447,13 +448,7 @@ public class XChangeApiTransaction implements IXChangeApiTransaction {
     }
 
     private static Currency convert(org.knowm.xchange.currency.Currency currency) {
-        try {
-            return Currency.fromCode(currency.getCurrencyCode());
-        } catch (IllegalArgumentException e) {
-            final org.knowm.xchange.currency.Currency currencyConverted =
-                org.knowm.xchange.currency.Currency.getInstance(currency.getCurrencyCode()).getCommonlyUsedCurrency();
-            return Currency.fromCode(currencyConverted.getCurrencyCode());
-        }
+        return CurrencyResolver.XCHANGE.resolve(currency.getCurrencyCode());
     }
 
     private static boolean isAirdrop(FundingRecord r) {
@@ -27,7 +27,7 @@ import static lombok.AccessLevel.PRIVATE;
 @FieldDefaults(level = PRIVATE, makeFinal = true)
 public class BinanceConnector implements IConnector {
 
-    private static final Object LOCK = new Object();
+    private static final CredentialLocks LOCKS = new CredentialLocks();
     private static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "binanceApiConnector";
     private static final int MAX_DOWNLOADED_TXS = 7000;
 
@@ -124,7 +124,7 @@ public class BinanceConnector implements IConnector {
 
     @Override
     public DownloadResult getTransactions(String lastTransactionId) {
-        synchronized (LOCK) {
+        synchronized (LOCKS.forCredential(ConnectorUtils.getApiKey(exchange))) {
             var binanceDownloader = new BinanceDownloader(exchange, lastTransactionId);
             List<UserTrade> convertedTrades = binanceDownloader.downloadConvertedTrades();
             List<FundingRecord> funding = binanceDownloader.downloadDepositsAndWithdrawals(MAX_DOWNLOADED_TXS);
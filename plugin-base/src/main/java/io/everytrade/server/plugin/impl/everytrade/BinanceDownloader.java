@@ -1,5 +1,7 @@
 package io.everytrade.server.plugin.impl.everytrade;
 
+import io.everytrade.server.plugin.impl.everytrade.ratelimit.ApiRateLimiter;
+import lombok.Value;
 import lombok.experimental.FieldDefaults;
 import org.knowm.xchange.Exchange;
 import org.knowm.xchange.binance.dto.meta.exchangeinfo.BinanceExchangeInfo;
@@ -8,6 +10,7 @@ import org.knowm.xchange.binance.dto.account.BinanceFundingHistoryParams;
 import org.knowm.xchange.binance.service.BinanceAccountService;
 import org.knowm.xchange.binance.service.BinanceTradeService;
 import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.account.AccountInfo;
 import org.knowm.xchange.dto.account.FundingRecord;
 import org.knowm.xchange.dto.trade.UserTrade;
 import org.knowm.xchange.dto.trade.UserTrades;
@@ -22,9 +25,16 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static java.time.temporal.ChronoUnit.DAYS;
@@ -39,8 +49,21 @@ public class BinanceDownloader {
     private static final Logger LOG = LoggerFactory.getLogger(BinanceDownloader.class);
 
     private static final String STATE_SEPARATOR = "|";
-    private static final Duration TRADE_HISTORY_WAIT_DURATION = Duration.ofMillis(250);
-    private static final Duration FUNDING_HISTORY_WAIT_DURATION = Duration.ofMillis(100);
+    // request weight is counted per IP address, 6000 per minute; part of it is left to the other calls and retries
+    private static final int REQUEST_WEIGHT_PER_MINUTE = 4800;
+    private static final int TRADE_HISTORY_WEIGHT = 20;
+    private static final int EXCHANGE_INFO_WEIGHT = 20;
+    private static final ApiRateLimiter REQUEST_WEIGHT_LIMITER =
+        ApiRateLimiter.forExchange("Binance", REQUEST_WEIGHT_PER_MINUTE / 60.0, 10 * TRADE_HISTORY_WEIGHT);
+    private static final int TRADE_DOWNLOAD_THREADS = 8;
+    private static final int ACCOUNT_INFO_WEIGHT = 20;
+    // exchange info is the same for all users, the list of markets changes rarely
+    private static final Duration EXCHANGE_INFO_TTL = Duration.ofHours(6);
+    private static final Duration FULL_SYMBOL_SCAN_PERIOD = Duration.ofDays(7);
+    private static volatile TradingSymbols tradingSymbolsCache;
+    // convert and funding history are limited per account, their limiters are shared by the downloads of an API key
+    private static final double CONVERT_REQUESTS_PER_SECOND = 4;
+    private static final double FUNDING_REQUESTS_PER_SECOND = 10;
     private static final int LIMIT = 1000;
 
     //Funding
@@ -61,6 +84,8 @@ public class BinanceDownloader {
     Map<String, String> currencyPairLastIds = new HashMap<>();
     Date lastFundingDownloadedTimestamp = null;
     Date lastConvertDownloadedTimestamp = null;
+    Date lastFullSymbolScan = null;
+    Set<String> seenAssets = new HashSet<>();
     Exchange exchange;
 
     public BinanceDownloader(Exchange exchange, String downloadState) {
@@ -69,64 +94,169 @@ public class BinanceDownloader {
     }
 
     public List<UserTrade> downloadTrades(String currencyPairs, boolean pairSettings, boolean isPaidSubscription) {
-        BinanceTradeService tradeServices = (BinanceTradeService) exchange.getTradeService();
-        BinanceAccountService accountService = (BinanceAccountService) exchange.getAccountService();
-        BinanceTradeHistoryParams params = (BinanceTradeHistoryParams) exchange.getTradeService().createTradeHistoryParams();
-
         List<CurrencyPair> tradingSymbols = new ArrayList<>();
 
         if (!pairSettings && isPaidSubscription) {
-            BinanceExchangeInfo allSymbols;
-            try {
-                allSymbols = accountService.getExchangeInfo();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-            Arrays.stream(allSymbols.getSymbols()).filter(x -> x.getStatus().equals("TRADING")).forEach(x -> {
-                tradingSymbols.add(new CurrencyPair(x.getBaseAsset(), x.getQuoteAsset()));
-            });
+            tradingSymbols.addAll(selectAccountSymbols());
         } else {
             tradingSymbols.addAll(ConnectorUtils.toCurrencyPairs(currencyPairs));
         }
+        if (tradingSymbols.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // symbols are fetched concurrently, the request weight limiter keeps the pace; the results are merged into the
+        // state by this thread only, in the order of the symbols
+        ExecutorService executor = createTradeDownloadExecutor(Math.min(TRADE_DOWNLOAD_THREADS, tradingSymbols.size()));
+        try {
+            List<Future<SymbolTrades>> futures = new ArrayList<>();
+            for (CurrencyPair symbol : tradingSymbols) {
+                String lastDownloadedTx = currencyPairLastIds.get(symbol.toString());
+                futures.add(executor.submit(() -> downloadSymbolTrades(symbol, lastDownloadedTx)));
+            }
+            List<UserTrade> trades = new ArrayList<>();
+            for (Future<SymbolTrades> future : futures) {
+                SymbolTrades symbolTrades = getSymbolTrades(future);
+                trades.addAll(symbolTrades.getTrades());
+                if (symbolTrades.getLastId() != null) {
+                    currencyPairLastIds.put(symbolTrades.getSymbol().toString(), symbolTrades.getLastId());
+                }
+            }
+            return trades;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * All TRADING symbols once per {@link #FULL_SYMBOL_SCAN_PERIOD}, otherwise only the symbols traded before and the
+     * symbols of the assets seen in the balances, the deposits and withdrawals or the converts: the symbols of which
+     * both assets were seen, and the symbols of a seen base asset which isn't a quote asset of any symbol. A quote
+     * asset alone (USDT, BTC, BNB...) would select most of the symbols, an altcoin bought and sold again between two
+     * scans with a quote asset seen is found by the next full scan.
+     */
+    private List<CurrencyPair> selectAccountSymbols() {
+        BinanceAccountService accountService = (BinanceAccountService) exchange.getAccountService();
+        List<CurrencyPair> allSymbols = getTradingSymbols(accountService);
+        Instant now = Instant.now();
+        if (lastFullSymbolScan == null || lastFullSymbolScan.toInstant().plus(FULL_SYMBOL_SCAN_PERIOD).isBefore(now)) {
+            lastFullSymbolScan = Date.from(now);
+            return allSymbols;
+        }
+
+        Set<String> assets = new HashSet<>(seenAssets);
+        try {
+            AccountInfo accountInfo = REQUEST_WEIGHT_LIMITER.call(ACCOUNT_INFO_WEIGHT, accountService::getAccountInfo);
+            accountInfo.getWallets().values().stream()
+                .flatMap(wallet -> wallet.getBalances().values().stream())
+                .filter(balance -> balance.getTotal() != null && balance.getTotal().signum() > 0)
+                .forEach(balance -> assets.add(balance.getCurrency().getCurrencyCode()));
+        } catch (IOException e) {
+            throw new IllegalStateException("User balances download failed. " + e.getMessage(), e);
+        }
+        Set<String> quoteAssets = allSymbols.stream()
+            .map(symbol -> symbol.counter.getCurrencyCode())
+            .collect(Collectors.toSet());
+        List<CurrencyPair> symbols = allSymbols.stream()
+            .filter(symbol -> currencyPairLastIds.containsKey(symbol.toString())
+                || isAccountSymbol(symbol, assets, quoteAssets))
+            .collect(Collectors.toList());
+        LOG.debug("Binance trade history of {} out of {} symbols to be downloaded.", symbols.size(), allSymbols.size());
+        return symbols;
+    }
+
+    private static boolean isAccountSymbol(CurrencyPair symbol, Set<String> assets, Set<String> quoteAssets) {
+        String base = symbol.base.getCurrencyCode();
+        if (!assets.contains(base)) {
+            return false;
+        }
+        return assets.contains(symbol.counter.getCurrencyCode()) || !quoteAssets.contains(base);
+    }
+
+    private static List<CurrencyPair> getTradingSymbols(BinanceAccountService accountService) {
+        TradingSymbols cached = tradingSymbolsCache;
+        Instant now = Instant.now();
+        if (cached != null && cached.getLoaded().plus(EXCHANGE_INFO_TTL).isAfter(now)) {
+            return cached.getSymbols();
+        }
+        BinanceExchangeInfo exchangeInfo;
+        try {
+            exchangeInfo = REQUEST_WEIGHT_LIMITER.call(EXCHANGE_INFO_WEIGHT, accountService::getExchangeInfo);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        List<CurrencyPair> symbols = Arrays.stream(exchangeInfo.getSymbols())
+            .filter(x -> x.getStatus().equals("TRADING"))
+            .map(x -> new CurrencyPair(x.getBaseAsset(), x.getQuoteAsset()))
+            .collect(Collectors.toUnmodifiableList());
+        tradingSymbolsCache = new TradingSymbols(symbols, now);
+        return symbols;
+    }
 
+    static void invalidateTradingSymbols() {
+        tradingSymbolsCache = null;
+    }
+
+    private SymbolTrades downloadSymbolTrades(CurrencyPair symbol, String lastDownloadedTx) {
+        BinanceTradeService tradeServices = (BinanceTradeService) exchange.getTradeService();
+        BinanceTradeHistoryParams params = new BinanceTradeHistoryParams();
         params.setLimit(LIMIT);
+        params.setInstrument(symbol);
+        long lastTradeId = isEmpty(lastDownloadedTx) ? 0L : Long.parseLong(lastDownloadedTx);
+        params.setStartId(String.valueOf(lastTradeId));
+
         List<UserTrade> trades = new ArrayList<>();
+        String lastFetchedId = null;
+        List<UserTrade> fetchedTrades;
+        do {
+            if (lastTradeId > 0) {
+                params.setStartId(String.valueOf(lastTradeId + 1));
+            }
 
-        for (CurrencyPair symbol : tradingSymbols) {
-            String lastDownloadedTx = currencyPairLastIds.get(symbol.toString());
-            long lastTradeId = isEmpty(lastDownloadedTx) ? 0L : Long.parseLong(lastDownloadedTx);
-            params.setInstrument(symbol);
-            params.setStartId(String.valueOf(lastTradeId));
-
-            List<UserTrade> fetchedTrades;
-            do {
-                sleepBetweenRequests(TRADE_HISTORY_WAIT_DURATION);
-                if (lastTradeId > 0) {
-                    params.setStartId(String.valueOf(lastTradeId + 1));
-                }
+            UserTrades userTrades;
+            try {
+                userTrades = REQUEST_WEIGHT_LIMITER.call(
+                    TRADE_HISTORY_WEIGHT, () -> tradeServices.getTradeHistory(params)
+                );
+            } catch (IOException e) {
+                throw new IllegalStateException("User trade history download failed. " + e.getMessage() , e);
+            }
+            fetchedTrades = userTrades.getUserTrades();
 
-                UserTrades userTrades;
-                try {
-                    userTrades = tradeServices.getTradeHistory(params);
-                } catch (IOException e) {
-                    throw new IllegalStateException("User trade history download failed. " + e.getMessage() , e);
-                }
-                fetchedTrades = userTrades.getUserTrades();
+            if (fetchedTrades.isEmpty()) {
+                break;
+            }
 
-                if (fetchedTrades.isEmpty()) {
-                    break;
-                }
+            trades.addAll(fetchedTrades);
 
-                trades.addAll(fetchedTrades);
+            lastFetchedId = fetchedTrades.get(fetchedTrades.size() - 1).getId();
+            lastTradeId = Long.parseLong(lastFetchedId);
+        } while (fetchedTrades.size() == LIMIT);
+        return new SymbolTrades(symbol, trades, lastFetchedId);
+    }
 
-                String lastFetchedId = fetchedTrades.get(fetchedTrades.size() - 1).getId();
-                lastTradeId = Long.parseLong(lastFetchedId);
-                currencyPairLastIds.put(symbol.toString(), lastFetchedId);
-            } while (fetchedTrades.size() == LIMIT);
+    private static SymbolTrades getSymbolTrades(Future<SymbolTrades> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("User trade history download interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("User trade history download failed. " + e.getCause().getMessage(), e);
         }
-        return trades;
     }
 
+    private static ExecutorService createTradeDownloadExecutor(int threads) {
+        var threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "binance-trade-download-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     private void setNextConvertDates(long startId) {
         this.convertStartTimestamp = startId;
@@ -149,14 +279,21 @@ public class BinanceDownloader {
         while (request < CONVERT_MAX_REQUESTS) {
             params.setStartTime(new Date(convertStartTimestamp));
             params.setEndTime(new Date(convertEndTimestamp));
-            sleepBetweenRequests(TRADE_HISTORY_WAIT_DURATION);
             final List<UserTrade> convertBlock;
             try {
-                UserTrades convertHistory = service.getConvertHistory(params);
+                UserTrades convertHistory = ApiRateLimiter
+                    .forCredential("Binance convert", apiKey(), CONVERT_REQUESTS_PER_SECOND, 1)
+                    .call(() -> service.getConvertHistory(params));
                 convertBlock = convertHistory.getUserTrades();
             } catch (Exception e) {
                 throw new IllegalStateException("User trade history download failed. ", e);
             }
+            convertBlock.forEach(convert -> {
+                if (convert.getInstrument() instanceof CurrencyPair pair) {
+                    seenAssets.add(pair.base.getCurrencyCode());
+                    seenAssets.add(pair.counter.getCurrencyCode());
+                }
+            });
             if (convertBlock.isEmpty()) {
                 if (convertEndTimestamp > now) {
                     lastConvertDownloadedTimestamp = new Date(now);
@@ -201,7 +338,6 @@ public class BinanceDownloader {
         List<FundingRecord> result = new ArrayList<>();
         int requests = 0;
         while (result.size() + FUNDING_PER_REQUEST < maxCount && requests < MAX_FUNDING_REQUESTS) {
-            sleepBetweenRequests(FUNDING_HISTORY_WAIT_DURATION);
             Date lastRequestTime = new Date();
             lastFundingDownloadedTimestamp = Objects.requireNonNullElse(lastFundingDownloadedTimestamp, EXCHANGE_OPENING_DATE);
 
@@ -212,10 +348,13 @@ public class BinanceDownloader {
 
             final List<FundingRecord> response;
             try {
-                response = accountService.getFundingHistory(params);
+                response = ApiRateLimiter
+                    .forCredential("Binance funding", apiKey(), FUNDING_REQUESTS_PER_SECOND, 1)
+                    .call(() -> accountService.getFundingHistory(params));
             } catch (IOException e) {
                 throw new IllegalStateException("User funding history download failed. ", e);
             }
+            response.forEach(record -> seenAssets.add(record.getCurrency().getCurrencyCode()));
             if (response.size() < FUNDING_PER_REQUEST) {
                 lastFundingDownloadedTimestamp = lastRequestTime.after(endDate) ? endDate : lastRequestTime;
                 result.addAll(response);
@@ -230,25 +369,21 @@ public class BinanceDownloader {
         return result;
     }
 
-    private void sleepBetweenRequests(Duration duration) {
-        try {
-            Thread.sleep(duration.toMillis());
-        } catch (InterruptedException e) {
-            LOG.warn("Sleep between binance API requests interrupted: {}", e.getMessage());
-            Thread.currentThread().interrupt();
-        }
+    private String apiKey() {
+        return ConnectorUtils.getApiKey(exchange);
     }
 
     // deserialize current state to String so it can be used next time
     public String serializeState() {
-        // PAIR=TRADE_ID:PAIR2=TRADE_ID2[..]|LAST_FUNDING_DATE
+        // PAIR=TRADE_ID:PAIR2=TRADE_ID2[..]|LAST_FUNDING_DATE|LAST_CONVERT_DATE|LAST_FULL_SYMBOL_SCAN_DATE
         return currencyPairLastIds.keySet().stream()
             .filter(key -> currencyPairLastIds.get(key) != null)
             .map(key -> key + "=" + currencyPairLastIds.get(key))
             .collect(joining(":")) + STATE_SEPARATOR
             + (lastFundingDownloadedTimestamp == null ? EXCHANGE_OPENING_DATE.getTime() : lastFundingDownloadedTimestamp.getTime())
             + STATE_SEPARATOR
-            + (lastConvertDownloadedTimestamp == null ? EXCHANGE_CONVERT_START_DATE.getTime() : lastConvertDownloadedTimestamp.getTime());
+            + (lastConvertDownloadedTimestamp == null ? EXCHANGE_CONVERT_START_DATE.getTime() : lastConvertDownloadedTimestamp.getTime())
+            + (lastFullSymbolScan == null ? "" : STATE_SEPARATOR + lastFullSymbolScan.getTime());
     }
 
     // deserialize last downloaded IDs and timestamps to be able to continue where left off
@@ -273,5 +408,21 @@ public class BinanceDownloader {
         } else {
             this.lastConvertDownloadedTimestamp = EXCHANGE_CONVERT_START_DATE;
         }
+        if (array.length > 3) {
+            this.lastFullSymbolScan = new Date(Long.parseLong(array[3]));
+        }
+    }
+
+    @Value
+    private static class TradingSymbols {
+        List<CurrencyPair> symbols;
+        Instant loaded;
+    }
+
+    @Value
+    private static class SymbolTrades {
+        CurrencyPair symbol;
+        List<UserTrade> trades;
+        String lastId;
     }
 }
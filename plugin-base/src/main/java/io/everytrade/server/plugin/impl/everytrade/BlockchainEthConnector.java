@@ -17,7 +17,7 @@ import java.util.Map;
 @Value
 @AllArgsConstructor
 public class BlockchainEthConnector implements IConnector {
-    private static final Object LOCK = new Object();
+    private static final CredentialLocks LOCKS = new CredentialLocks();
     private static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "blockchainEthApiConnector";
 
     private static final ConnectorParameterDescriptor PARAMETER_ADDRESS =
@@ -178,7 +178,7 @@ public class BlockchainEthConnector implements IConnector {
 
     @Override
     public DownloadResult getTransactions(String downloadState) {
-        synchronized (LOCK) {
+        synchronized (LOCKS.forCredential(address)) {
             final var blockchainEthDownloader = new BlockchainEthDownloader(
                 address,
                 apiKeyToken,
@@ -9,6 +9,7 @@ import io.everytrade.server.plugin.impl.everytrade.etherscan.EtherScanClient;
 import io.everytrade.server.plugin.impl.everytrade.etherscan.EtherScanErc20TransactionDto;
 import io.everytrade.server.plugin.impl.everytrade.etherscan.EtherScanTransactionDto;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
+import io.everytrade.server.plugin.impl.everytrade.ratelimit.ApiRateLimiter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NonNull;
@@ -16,7 +17,6 @@ import lombok.experimental.FieldDefaults;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -34,7 +34,8 @@ public class BlockchainEthDownloader {
     private static final Logger LOG = LoggerFactory.getLogger(BlockchainEthDownloader.class);
 
     //maximum rate limit of up to 5 calls per sec/IP https://info.etherscan.com/api-return-errors/
-    private static final Duration MIN_TIME_BETWEEN_REQUESTS = Duration.ofMillis(200);
+    private static final double REQUESTS_PER_SECOND = 4;
+    private static final int REQUEST_BURST = 1;
     private static final int CONFIRMATIONS = 6;
     private static final long FIRST_BLOCK = 0L;
     // Etherscan free-tier cap; doubles as the page-full threshold, so the supplementary last-block fetch fires.
@@ -92,8 +93,7 @@ public class BlockchainEthDownloader {
 
     private List<EtherScanErc20TransactionDto> downloadErc20Txs(long currentBlock, DownloadState state) {
         try {
-            sleepBetweenRequests();
-            var etherscanErc20Txs = api
+            var etherscanErc20Txs = rateLimiter().call(() -> api
                 .getErc20TxsByAddress(
                     address,
                     null,
@@ -102,7 +102,7 @@ public class BlockchainEthDownloader {
                     1,
                     TRANSACTIONS_PER_PAGE,
                     "asc",
-                    apiKeyToken)
+                    apiKeyToken))
                 .getResult();
 
             if (etherscanErc20Txs == null || etherscanErc20Txs.isEmpty()) {
@@ -114,9 +114,9 @@ public class BlockchainEthDownloader {
 
             if (etherscanErc20Txs.size() >= TRANSACTIONS_PER_PAGE) {
                 // ensure all tx from last downloaded block
-                api.getErc20TxsByAddress(
+                rateLimiter().call(() -> api.getErc20TxsByAddress(
                     address, null, lastReachedBlock, lastReachedBlock, 1, TRANSACTIONS_PER_PAGE, "asc", apiKeyToken
-                ).getResult().forEach(lastBlockTx -> {
+                )).getResult().forEach(lastBlockTx -> {
                     if (!etherscanErc20Txs.contains(lastBlockTx)) {
                         etherscanErc20Txs.add(lastBlockTx);
                     }
@@ -131,15 +131,14 @@ public class BlockchainEthDownloader {
 
     private List<EtherScanTransactionDto> downloadEthTxs(long currentBlock, DownloadState state) {
         try {
-            sleepBetweenRequests();
-            var etherscanTxs = api
+            var etherscanTxs = rateLimiter().call(() -> api
                 .getNormalTxsByAddress(
                     address,
                     state.getLastNormalTxBlock() == null ? FIRST_BLOCK : state.getLastNormalTxBlock() + 1,
                     currentBlock,
                     1,
                     TRANSACTIONS_PER_PAGE, "asc",
-                    apiKeyToken)
+                    apiKeyToken))
                 .getResult();
 
             if (etherscanTxs == null || etherscanTxs.isEmpty()) {
@@ -151,9 +150,9 @@ public class BlockchainEthDownloader {
 
             if (etherscanTxs.size() >= TRANSACTIONS_PER_PAGE) {
                 // ensure all tx from last downloaded block
-                api.getNormalTxsByAddress(
+                rateLimiter().call(() -> api.getNormalTxsByAddress(
                     address, lastReachedBlock, lastReachedBlock, 1, TRANSACTIONS_PER_PAGE, "asc", apiKeyToken
-                ).getResult().forEach(lastBlockTx -> {
+                )).getResult().forEach(lastBlockTx -> {
                     if (!etherscanTxs.contains(lastBlockTx)) {
                         etherscanTxs.add(lastBlockTx);
                     }
@@ -206,20 +205,17 @@ public class BlockchainEthDownloader {
 
     private long downloadLastBlock() {
         try {
-            sleepBetweenRequests();
-            return api.getBlockNumberByTimestamp(String.valueOf(now().getEpochSecond()), "before", apiKeyToken).getResult();
+            var timestamp = String.valueOf(now().getEpochSecond());
+            return rateLimiter()
+                .call(() -> api.getBlockNumberByTimestamp(timestamp, "before", apiKeyToken))
+                .getResult();
         } catch (Exception e) {
             throw new IllegalStateException("Last block number download failed.", e);
         }
     }
 
-    private void sleepBetweenRequests() {
-        try {
-            Thread.sleep(MIN_TIME_BETWEEN_REQUESTS.toMillis());
-        } catch (InterruptedException e) {
-            LOG.warn("Sleep between EtherScan API requests interrupted: {}", e.getMessage());
-            Thread.currentThread().interrupt();
-        }
+    private ApiRateLimiter rateLimiter() {
+        return ApiRateLimiter.forCredential("Etherscan", apiKeyToken, REQUESTS_PER_SECOND, REQUEST_BURST);
     }
 
     @Data
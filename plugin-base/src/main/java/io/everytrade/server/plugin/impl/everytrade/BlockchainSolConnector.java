@@ -17,7 +17,7 @@ import java.util.Map;
 @Value
 @AllArgsConstructor
 public class BlockchainSolConnector implements IConnector {
-    private static final Object LOCK = new Object();
+    private static final CredentialLocks LOCKS = new CredentialLocks();
     private static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "blockchainSolApiConnector";
 
     private static final ConnectorParameterDescriptor PARAMETER_ADDRESS =
@@ -138,7 +138,7 @@ public class BlockchainSolConnector implements IConnector {
 
     @Override
     public DownloadResult getTransactions(String downloadState) {
-        synchronized (LOCK) {
+        synchronized (LOCKS.forCredential(address)) {
             final var downloader = new BlockchainSolDownloader(
                 address,
                 apiKey,
@@ -9,13 +9,13 @@ import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.impl.everytrade.helius.HeliusClient;
 import io.everytrade.server.plugin.impl.everytrade.helius.HeliusTransactionDto;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
+import io.everytrade.server.plugin.impl.everytrade.ratelimit.ApiRateLimiter;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.experimental.FieldDefaults;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,7 +28,8 @@ import static lombok.AccessLevel.PRIVATE;
 public class BlockchainSolDownloader {
     private static final Logger LOG = LoggerFactory.getLogger(BlockchainSolDownloader.class);
 
-    private static final Duration MIN_TIME_BETWEEN_REQUESTS = Duration.ofMillis(500);
+    private static final double REQUESTS_PER_SECOND = 2;
+    private static final int REQUEST_BURST = 2;
     private static final int TRANSACTIONS_PER_PAGE = 100;
 
     String address;
@@ -74,7 +75,8 @@ public class BlockchainSolDownloader {
 
         try {
             do {
-                sleepBetweenRequests();
+                // HeliusClient retries on its own, the limiter only paces the requests
+                ApiRateLimiter.forCredential("Helius", apiKey, REQUESTS_PER_SECOND, REQUEST_BURST).acquire();
                 var response = api.getTransactionHistory(address, apiKey, TRANSACTIONS_PER_PAGE, cursor);
                 if (response.getData() == null || response.getData().isEmpty()) {
                     break;
@@ -141,15 +143,6 @@ public class BlockchainSolDownloader {
             .build();
     }
 
-    private void sleepBetweenRequests() {
-        try {
-            Thread.sleep(MIN_TIME_BETWEEN_REQUESTS.toMillis());
-        } catch (InterruptedException e) {
-            LOG.warn("Sleep between Helius API requests interrupted: {}", e.getMessage());
-            Thread.currentThread().interrupt();
-        }
-    }
-
     static class DownloadState {
         private String lastSignature;
 
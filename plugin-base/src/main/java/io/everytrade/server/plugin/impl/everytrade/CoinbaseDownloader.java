@@ -4,9 +4,12 @@ import com.univocity.parsers.common.DataValidationException;
 import io.everytrade.server.plugin.api.connector.DownloadResult;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
+import io.everytrade.server.plugin.impl.everytrade.ratelimit.ApiRateLimiter;
 import io.everytrade.server.util.AmountUtil;
+import io.everytrade.server.util.serialization.CompactStateCodec;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import lombok.Value;
 import org.knowm.xchange.Exchange;
 import org.knowm.xchange.coinbase.v2.dto.account.CoinbaseExpandTransactionsResponse;
 import org.knowm.xchange.coinbase.v2.dto.account.transactions.CoinbaseShowTransactionV2;
@@ -22,7 +25,9 @@ import org.knowm.xchange.coinbase.cdp.service.CoinbaseTradeServiceCDP;
 import org.knowm.xchange.currency.Currency;
 import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.dto.Order;
+import org.knowm.xchange.dto.account.Balance;
 import org.knowm.xchange.dto.account.FundingRecord;
+import org.knowm.xchange.dto.account.Wallet;
 import org.knowm.xchange.dto.trade.UserTrade;
 import org.knowm.xchange.service.account.AccountService;
 import org.knowm.xchange.service.trade.TradeService;
@@ -34,6 +39,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -45,8 +51,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
@@ -63,6 +73,18 @@ public class CoinbaseDownloader {
     private static final int MAX_ADVANCED_TRADE_PAGES = 10_000; // safety cap against a runaway cursor loop
     private static final int REAL_WALLET_ID_LENGTH = 36;
     private static final int HTTP_UNAUTHORIZED = 401;
+    //https://docs.cdp.coinbase.com/exchange/docs/rest-rate-limits/
+    private static final double REQUESTS_PER_SECOND = 15;
+    private static final int REQUEST_BURST = 15;
+    // Coinbase's private advanced trade REST limit is 30 requests per second
+    private static final double ADVANCED_TRADE_REQUESTS_PER_SECOND = 25;
+    private static final int ADVANCED_TRADE_REQUEST_BURST = 5;
+    // wallets are downloaded concurrently, the requests are still spaced by the shared rate limiter
+    private static final int WALLET_DOWNLOAD_THREADS = 8;
+    // wallet without balance and without new transactions for this period is dormant
+    private static final Duration ACTIVE_WALLET_PERIOD = Duration.ofDays(30);
+    private static final Duration DORMANT_WALLET_POLL_PERIOD = Duration.ofDays(7);
+    private static final String WALLETS_STATE_NAME = "Coinbase wallets";
     private String lastDownloadWalletState;
     private long partialLastAdvanceTradeStartDatetime;
     private long partialLastAdvanceTradeEndDatetime;
@@ -115,14 +137,14 @@ public class CoinbaseDownloader {
 
         try {
             LOG.info("Trades download start");
-            trades = downloadTrades(walletStates);
+            trades = downloadTrades(walletStates, parsingProblems);
         } catch (Exception e) {
             LOG.error("Trades download error " + e.getMessage());
         }
 
         try {
             LOG.info("Funding download start");
-//            funding = downloadFunding(walletStates); TODO: uncomment when coinbase fix their pagination
+//            funding = downloadFunding(walletStates, parsingProblems); TODO: uncomment when coinbase fix their pagination
         } catch (Exception e) {
             LOG.error("Funding download error " + e.getMessage());
         }
@@ -199,9 +221,11 @@ public class CoinbaseDownloader {
             try {
                 CoinbaseAdvancedTradeOrderFillsResponse advancedTradeOrderFillsRow = null;
                 if (tradeService instanceof CoinbaseTradeServiceCDP cdpKeys) {
-                    advancedTradeOrderFillsRow = cdpKeys.getAdvancedTradeOrderFillsRow(params);
+                    advancedTradeOrderFillsRow = advancedTradeRateLimiter()
+                        .call(() -> cdpKeys.getAdvancedTradeOrderFillsRow(params));
                 } else if (tradeService instanceof CoinbaseTradeService legacyKeys) {
-                    advancedTradeOrderFillsRow = legacyKeys.getAdvancedTradeOrderFillsRow(params);
+                    advancedTradeOrderFillsRow = advancedTradeRateLimiter()
+                        .call(() -> legacyKeys.getAdvancedTradeOrderFillsRow(params));
                 }
                 if (advancedTradeOrderFillsRow == null) {
                     throw new IllegalStateException("Advanced trades download failed. ");
@@ -243,15 +267,6 @@ public class CoinbaseDownloader {
                     MAX_ADVANCED_TRADE_PAGES);
                 break;
             }
-            // Stay well under Coinbase's 30 req/s private-REST limit on large histories.
-            if (page % 10 == 0) {
-                try {
-                    Thread.sleep(350);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
         }
         List<UserTrade> userTrades = createUserTradesFromAdvancedTrades(advancedTrades, parsingProblems);
         return userTrades;
@@ -302,148 +317,237 @@ public class CoinbaseDownloader {
         return trades;
     }
 
-    private List<CoinbaseShowTransactionV2> downloadTrades(Map<String, WalletState> walletStates) {
-        var sortedWalletStates = sortWalletsByTxsUpdates(walletStates);
+    private List<CoinbaseShowTransactionV2> downloadTrades(
+        Map<String, WalletState> walletStates,
+        List<ParsingProblem> parsingProblems
+    ) {
+        long now = Instant.now().toEpochMilli();
+        var walletIds = sortWalletsByTxsUpdates(walletStates).stream()
+            .filter(entry -> entry.getValue().isTxPollDue(now))
+            .map(Map.Entry::getKey)
+            .toList();
+        LOG.info(
+            "Downloading trades of {} of {} wallet(s), the others are dormant.", walletIds.size(), walletStates.size()
+        );
+
         var accountService = exchange.getAccountService();
-        var wallets = sortedWalletStates.stream()
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (u, v) -> u, LinkedHashMap::new));
+        var tradeService = exchange.getTradeService();
+        Map<String, CoinbaseTradeHistoryParams> walletParams = new LinkedHashMap<>();
+        for (String walletId : walletIds) {
+            var params = (CoinbaseTradeHistoryParams) tradeService.createTradeHistoryParams();
+            params.setLimit(TRANSACTIONS_PER_REQUEST_LIMIT);
+            params.setStartId(walletStates.get(walletId).lastBuyId);
+            walletParams.put(walletId, params);
+        }
+
         final List<CoinbaseShowTransactionV2> userTrades = new ArrayList<>();
+        List<WalletTrades> walletTrades = downloadWallets(
+            walletIds,
+            "Trades",
+            walletId -> downloadWalletTrades(accountService, walletId, walletParams.get(walletId)),
+            parsingProblems
+        );
+        for (WalletTrades trades : walletTrades) {
+            final WalletState walletState = walletStates.get(trades.getWalletId());
+            var transactions = trades.getTransactions();
+            if (!transactions.isEmpty()) {
+                userTrades.addAll(transactions);
+                walletState.lastBuyId = transactions.get(transactions.size() - 1).getId();
+                walletState.lastTxWalletUpdate = String.valueOf(now);
+            }
+            walletState.lastTxCheck = String.valueOf(now);
+        }
+        return userTrades;
+    }
 
-        int sentRequests = 0;
+    private WalletTrades downloadWalletTrades(
+        AccountService accountService,
+        String walletId,
+        CoinbaseTradeHistoryParams params
+    ) throws IOException {
         String orderType = "asc";
+        List<CoinbaseShowTransactionV2> transactions = new LinkedList<>();
+        boolean isNextPage = true;
+        while (isNextPage) {
+            CoinbaseExpandTransactionsResponse response = null;
+            if (accountService instanceof CoinbaseAccountServiceRawCDP cdpKeys) {
+                response = rateLimiter().call(() -> cdpKeys.getExpandTransactions(walletId, params, orderType));
+            } else if (accountService instanceof CoinbaseAccountServiceRaw legacyKeys) {
+                response = rateLimiter()
+                    .call(() -> legacyKeys.getExpandTransactions(walletId, params, orderType));
+            }
 
-        var tradeService = exchange.getTradeService();
-        CoinbaseTradeHistoryParams params = (CoinbaseTradeHistoryParams) tradeService.createTradeHistoryParams();
-        params.setLimit(TRANSACTIONS_PER_REQUEST_LIMIT);
-
-        for (Map.Entry<String, WalletState> entry : wallets.entrySet()) {
-            final String walletId = entry.getKey();
-            final WalletState walletState = wallets.get(walletId);
+            if (response == null) {
+                throw new IllegalStateException("Download trades history failed.");
+            }
 
-            String lastTxId = walletState.lastBuyId;
-            params.setStartId(lastTxId);
-            List<CoinbaseShowTransactionV2> transactions = new LinkedList<>();
-            boolean isNextPage = true;
+            if (response.getPagination().getNextUri() == null) {
+                isNextPage = false;
+            }
+            if (!response.getData().isEmpty()) {
+                transactions.addAll(response.getData());
+                params.setStartId(response.getData().get(response.getData().size() - 1).getId());
+                //if orderType desc = response.getData().get(0).getId()
+            }
+        }
+        return new WalletTrades(walletId, transactions);
+    }
 
-            try {
-                while (isNextPage) {
-                    CoinbaseExpandTransactionsResponse response = null;
-                    if (accountService instanceof CoinbaseAccountServiceRawCDP cdpKeys) {
-                        response = cdpKeys.getExpandTransactions(walletId, params, orderType);
-                    } else if (accountService instanceof CoinbaseAccountServiceRaw legacyKeys) {
-                        response = legacyKeys.getExpandTransactions(walletId, params, orderType);
-                    }
+    public List<FundingRecord> downloadFunding(
+        Map<String, WalletState> walletStates,
+        List<ParsingProblem> parsingProblems
+    ) {
+        long now = Instant.now().toEpochMilli();
+        var walletIds = sortWalletsByFundingUpdates(walletStates).stream()
+            .filter(entry -> entry.getValue().isFundingPollDue(now))
+            .map(Map.Entry::getKey)
+            .toList();
+        LOG.info(
+            "Downloading funding of {} of {} wallet(s), the others are dormant.", walletIds.size(), walletStates.size()
+        );
 
-                    if (response == null) {
-                        throw new IllegalStateException("Download trades history failed.");
-                    }
+        var accountService = exchange.getAccountService();
+        Map<String, CoinbaseTradeHistoryParams> walletParams = new LinkedHashMap<>();
+        for (String walletId : walletIds) {
+            var params = (CoinbaseTradeHistoryParams) accountService.createFundingHistoryParams();
+            params.setLimit(TRANSACTIONS_PER_REQUEST_LIMIT);
+            walletParams.put(walletId, params);
+        }
 
-                    if (response.getPagination().getNextUri() == null) {
-                        isNextPage = false;
-                    }
-                    if (!response.getData().isEmpty()) {
-                        transactions.addAll(response.getData());
-                        params.setStartId(response.getData().get(response.getData().size() - 1).getId());
-                        //if orderType desc = response.getData().get(0).getId()
-                    }
-                    sentRequests++;
-
-                    //Uncomment Rate limiting in case of 429 error
-                    //https://docs.cdp.coinbase.com/exchange/docs/rest-rate-limits/
-//                    if (sentRequests % 15 == 0) {
-//                        try {
-//                            Thread.sleep(1000); // Sleep for 1 second after every 15 requests
-//                        } catch (InterruptedException e) {
-//                            Thread.currentThread().interrupt();
-//                        }
-//                    }
-                }
-                if (!transactions.isEmpty()) {
-                    userTrades.addAll(transactions);
-                    lastTxId = transactions.get(transactions.size() - 1).getId();
-                    walletState.lastBuyId = lastTxId;
-                    walletState.lastTxWalletUpdate = String.valueOf(new Date().getTime());
-                }
-            } catch (IOException e) {
-                throw new IllegalStateException("Download buys history failed.", e);
+        final List<FundingRecord> fundingRecords = new ArrayList<>();
+        List<WalletFunding> walletFundings = downloadWallets(
+            walletIds,
+            "Funding",
+            walletId -> downloadWalletFunding(
+                accountService, walletId, walletParams.get(walletId), walletStates.get(walletId)
+            ),
+            parsingProblems
+        );
+        for (WalletFunding funding : walletFundings) {
+            final WalletState walletState = walletStates.get(funding.getWalletId());
+            fundingRecords.addAll(funding.getRecords());
+            if (!funding.getRecords().isEmpty()) {
+                walletState.lastFundingWalletUpdate = String.valueOf(now);
             }
+            walletState.lastDepositId = funding.getLastDepositId();
+            walletState.lastWithdrawalId = funding.getLastWithdrawalId();
+            walletState.lastFundingCheck = String.valueOf(now);
         }
-        return userTrades;
+        return fundingRecords;
     }
 
-    public List<FundingRecord> downloadFunding(Map<String, WalletState> walletStates) {
-        var walletStatesList = sortWalletsByFundingUpdates(walletStates);
-        var wallets = walletStatesList.stream().
-            collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (u, v) -> u, LinkedHashMap::new));
-
+    private WalletFunding downloadWalletFunding(
+        AccountService accountService,
+        String walletId,
+        CoinbaseTradeHistoryParams params,
+        WalletState walletState
+    ) throws IOException {
         final List<FundingRecord> fundingRecords = new ArrayList<>();
+        String lastDepositId = walletState.lastDepositId;
+        String lastWithdrawalId = walletState.lastWithdrawalId;
 
-        var accountService = exchange.getAccountService();
-        CoinbaseTradeHistoryParams params = (CoinbaseTradeHistoryParams) accountService.createFundingHistoryParams();
-        params.setLimit(TRANSACTIONS_PER_REQUEST_LIMIT);
-
-        for (Map.Entry<String, WalletState> entry : wallets.entrySet()) {
-            final String walletId = entry.getKey();
-            final WalletState walletState = wallets.get(walletId);
-            String lastDepositId = entry.getValue().lastDepositId;
-            String lastWithdrawalId = entry.getValue().lastWithdrawalId;
+        while (true) {
+            params.setStartId(lastDepositId);
+            List<FundingRecord> depositRecords = new ArrayList<>();
+            if (accountService instanceof CoinbaseAccountServiceCDP cdpKeys) {
+                depositRecords = rateLimiter().call(() -> cdpKeys.getDepositHistory(params, walletId));
+            } else if (accountService instanceof CoinbaseAccountService legacyKeys) {
+                depositRecords = rateLimiter().call(() -> legacyKeys.getDepositHistory(params, walletId));
+            }
+            if (depositRecords.isEmpty()) {
+                break;
+            }
+            fundingRecords.addAll(depositRecords);
+            lastDepositId = depositRecords.get(depositRecords.size() - 1).getInternalId();
+        }
 
-            while (true) {
-                params.setStartId(lastDepositId);
-                List<FundingRecord> depositRecords = new ArrayList<>();
-                try {
-                    if (accountService instanceof CoinbaseAccountServiceCDP cdpKeys) {
-                        depositRecords = cdpKeys.getDepositHistory(params, walletId);
-                    } else if (accountService instanceof CoinbaseAccountService legacyKeys) {
-                        depositRecords = legacyKeys.getDepositHistory(params, walletId);
-                    }
-                } catch (IOException e) {
-                    throw new IllegalStateException("Download deposit history failed.", e);
-                }
-                if (depositRecords.isEmpty()) {
-                    break;
-                }
-                fundingRecords.addAll(depositRecords);
-                lastDepositId = depositRecords.get(depositRecords.size() - 1).getInternalId();
+        while (true) {
+            params.setStartId(lastWithdrawalId);
+            List<FundingRecord> withdrawalRecords = new ArrayList<>();
+            if (accountService instanceof CoinbaseAccountServiceCDP cdpKeys) {
+                withdrawalRecords = rateLimiter().call(() -> cdpKeys.getWithdrawalHistory(params, walletId));
+            } else if (accountService instanceof CoinbaseAccountService legacyKeys) {
+                withdrawalRecords = rateLimiter().call(() -> legacyKeys.getWithdrawalHistory(params, walletId));
+            }
+            if (withdrawalRecords.isEmpty()) {
+                break;
             }
+            fundingRecords.addAll(withdrawalRecords);
+            lastWithdrawalId = withdrawalRecords.get(withdrawalRecords.size() - 1).getInternalId();
+        }
+        return new WalletFunding(walletId, fundingRecords, lastDepositId, lastWithdrawalId);
+    }
 
-            while (true) {
-                params.setStartId(lastWithdrawalId);
-                List<FundingRecord> withdrawalRecords = new ArrayList<>();
+    /**
+     * Downloads the wallets concurrently and returns the results of the successfully downloaded ones in the order
+     * of the wallets. A failed wallet is reported as a parsing problem and its state is left as it is, so the wallet
+     * is downloaded again next time.
+     */
+    private <T> List<T> downloadWallets(
+        List<String> walletIds,
+        String downloadName,
+        WalletDownload<T> download,
+        List<ParsingProblem> parsingProblems
+    ) {
+        List<T> results = new ArrayList<>();
+        if (walletIds.isEmpty()) {
+            return results;
+        }
+        ExecutorService executor = createWalletDownloadExecutor(Math.min(WALLET_DOWNLOAD_THREADS, walletIds.size()));
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (String walletId : walletIds) {
+                futures.add(executor.submit(() -> download.download(walletId)));
+            }
+            int failed = 0;
+            for (int i = 0; i < futures.size(); i++) {
                 try {
-                    if (accountService instanceof CoinbaseAccountServiceCDP cdpKeys) {
-                        withdrawalRecords = cdpKeys.getWithdrawalHistory(params, walletId);
-                    } else if (accountService instanceof CoinbaseAccountService legacyKeys) {
-                        withdrawalRecords = legacyKeys.getWithdrawalHistory(params, walletId);
-                    }
-                } catch (IOException e) {
-                    throw new IllegalStateException("Download sells history failed.", e);
-                }
-                if (withdrawalRecords.isEmpty()) {
-                    break;
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    failed++;
+                    LOG.error("{} download of wallet {} failed: {}", downloadName, walletIds.get(i),
+                        e.getCause().getMessage());
+                    parsingProblems.add(new ParsingProblem(
+                        downloadName + " download of wallet " + walletIds.get(i) + " failed",
+                        e.getCause().getMessage(),
+                        ROW_PARSING_FAILED
+                    ));
                 }
-                fundingRecords.addAll(withdrawalRecords);
-                lastWithdrawalId = withdrawalRecords.get(withdrawalRecords.size() - 1).getInternalId();
             }
-
-            walletState.lastDepositId = lastDepositId;
-            walletState.lastWithdrawalId = lastWithdrawalId;
-
-            walletState.lastFundingWalletUpdate = String.valueOf(new Date().getTime());
+            if (failed > 0) {
+                LOG.error("{} download failed for {} of {} wallet(s).", downloadName, failed, walletIds.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(downloadName + " download interrupted.", e);
+        } finally {
+            executor.shutdownNow();
         }
+        return results;
+    }
 
-        return fundingRecords;
+    private static ExecutorService createWalletDownloadExecutor(int threads) {
+        var threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "coinbase-wallet-download-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private String getLastTransactionId(Map<String, WalletState> walletStates) {
-        String walletsState = walletStates.entrySet().stream()
+        var persistedWallets = walletStates.entrySet().stream()
             .filter(entry -> entry.getValue().lastBuyId != null ||
                 entry.getValue().lastSellId != null ||
                 entry.getValue().lastDepositId != null ||
                 entry.getValue().lastWithdrawalId != null ||
                 entry.getValue().lastTxWalletUpdate != null ||
-                entry.getValue().lastFundingWalletUpdate != null
+                entry.getValue().lastFundingWalletUpdate != null ||
+                entry.getValue().lastTxCheck != null ||
+                entry.getValue().lastFundingCheck != null
             )
+            .toList();
+        String walletsState = persistedWallets.stream()
             .map(
                 entry -> entry.getKey()
                     + COLON_SYMBOL
@@ -458,16 +562,69 @@ public class CoinbaseDownloader {
                     + Objects.requireNonNullElse(entry.getValue().lastTxWalletUpdate, DASH_SYMBOL)
                     + COLON_SYMBOL
                     + Objects.requireNonNullElse(entry.getValue().lastFundingWalletUpdate, DASH_SYMBOL)
+                    + COLON_SYMBOL
+                    + Objects.requireNonNullElse(entry.getValue().lastTxCheck, DASH_SYMBOL)
+                    + COLON_SYMBOL
+                    + Objects.requireNonNullElse(entry.getValue().lastFundingCheck, DASH_SYMBOL)
             )
             .collect(Collectors.joining(PIPE_SYMBOL));
+        if (CompactStateCodec.isWorthEncoding(walletsState)) {
+            walletsState = CompactStateCodec.encode(
+                WALLETS_STATE_NAME, walletsState.length(), writer -> writeWalletStates(writer, persistedWallets)
+            );
+        }
         return walletsState + ADVANCED_TRADE_SYMBOL_SEPARATOR + advancedTradeLastDownloadTimestamp();
     }
 
-    private Map<String, WalletState> walletStates(String downloadState) {
-        final Set<String> actualWalletIds = getWalletIds();
+    private static void writeWalletStates(
+        CompactStateCodec.StateWriter writer,
+        List<Map.Entry<String, WalletState>> walletStates
+    ) {
+        writer.writeInt(walletStates.size());
+        for (Map.Entry<String, WalletState> entry : walletStates) {
+            WalletState state = entry.getValue();
+            writer.writeString(entry.getKey())
+                .writeString(state.lastBuyId)
+                .writeString(state.lastSellId)
+                .writeString(state.lastDepositId)
+                .writeString(state.lastWithdrawalId)
+                .writeString(state.lastTxWalletUpdate)
+                .writeString(state.lastFundingWalletUpdate)
+                .writeString(state.lastTxCheck)
+                .writeString(state.lastFundingCheck);
+        }
+    }
 
-        Map<String, WalletState> previousWalletStates =
-            isEmpty(downloadState) ? new HashMap<>() :
+    private static Map<String, WalletState> readWalletStates(CompactStateCodec.StateReader reader) {
+        Map<String, WalletState> walletStates = new HashMap<>();
+        int count = reader.readInt();
+        for (int i = 0; i < count; i++) {
+            walletStates.put(reader.readString(), new WalletState(
+                reader.readString(),
+                reader.readString(),
+                reader.readString(),
+                reader.readString(),
+                reader.readString(),
+                reader.readString(),
+                reader.readString(),
+                reader.readString()
+            ));
+        }
+        return walletStates;
+    }
+
+    private Map<String, WalletState> walletStates(String downloadState) {
+        final Map<String, Wallet> actualWallets = getWallets();
+
+        Map<String, WalletState> previousWalletStates;
+        if (isEmpty(downloadState)) {
+            previousWalletStates = new HashMap<>();
+        } else if (CompactStateCodec.isEncoded(downloadState)) {
+            previousWalletStates = CompactStateCodec.decode(
+                WALLETS_STATE_NAME, downloadState, CoinbaseDownloader::readWalletStates
+            );
+        } else {
+            previousWalletStates =
                 Arrays.stream(downloadState.split("\\" + PIPE_SYMBOL))
                     .map(entry -> entry.split(COLON_SYMBOL))
                     .collect(toMap(
@@ -478,17 +635,20 @@ public class CoinbaseDownloader {
                             getOrNull(entry, 3),
                             getOrNull(entry, 4),
                             getOrNull(entry, 5),
-                            getOrNull(entry, 6)
+                            getOrNull(entry, 6),
+                            getOrNull(entry, 7),
+                            getOrNull(entry, 8)
                         )
                     ));
+        }
 
         Map<String, WalletState> actualWalletStates = new HashMap<>();
-        for (String actualWalletId : actualWalletIds) {
-            final WalletState walletState = previousWalletStates.get(actualWalletId);
-            actualWalletStates.put(
-                actualWalletId,
-                Objects.requireNonNullElseGet(walletState, WalletState::new)
+        for (Map.Entry<String, Wallet> actualWallet : actualWallets.entrySet()) {
+            final WalletState walletState = Objects.requireNonNullElseGet(
+                previousWalletStates.get(actualWallet.getKey()), WalletState::new
             );
+            walletState.hasBalance = hasBalance(actualWallet.getValue());
+            actualWalletStates.put(actualWallet.getKey(), walletState);
         }
         return actualWalletStates;
     }
@@ -513,13 +673,13 @@ public class CoinbaseDownloader {
         return sortedWallets;
     }
 
-    private Set<String> getWalletIds() {
+    private Map<String, Wallet> getWallets() {
         final AccountService accountService = exchange.getAccountService();
         try {
-            return accountService.getAccountInfo().getWallets().keySet()
+            return accountService.getAccountInfo().getWallets().entrySet()
                 .stream()
-                .filter(s -> s.length() == REAL_WALLET_ID_LENGTH)
-                .collect(Collectors.toSet());
+                .filter(e -> e.getKey().length() == REAL_WALLET_ID_LENGTH)
+                .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
         } catch (IOException e) {
             // A 401 means the user's API key is invalid, expired, or revoked - the whole sync can never
             // succeed until they re-authorize. Surface an actionable message (the host shows it as the
@@ -534,6 +694,18 @@ public class CoinbaseDownloader {
         }
     }
 
+    private static boolean hasBalance(Wallet wallet) {
+        if (wallet == null || wallet.getBalances() == null) {
+            return false;
+        }
+        for (Balance balance : wallet.getBalances().values()) {
+            if (balance != null && balance.getTotal() != null && balance.getTotal().signum() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns the HTTP status code that caused {@code t}, or -1 if it was not an HTTP error. Coinbase
      * REST errors reach us through xchange as a rescu {@link HttpStatusIOException}; it can sit a few
@@ -548,6 +720,21 @@ public class CoinbaseDownloader {
         return -1;
     }
 
+    private ApiRateLimiter rateLimiter() {
+        return ApiRateLimiter.forCredential(
+            "Coinbase", ConnectorUtils.getApiKey(exchange), REQUESTS_PER_SECOND, REQUEST_BURST
+        );
+    }
+
+    private ApiRateLimiter advancedTradeRateLimiter() {
+        return ApiRateLimiter.forCredential(
+            "Coinbase advanced trade",
+            ConnectorUtils.getApiKey(exchange),
+            ADVANCED_TRADE_REQUESTS_PER_SECOND,
+            ADVANCED_TRADE_REQUEST_BURST
+        );
+    }
+
     private String getOrNull(String[] arr, int index) {
         if (arr == null) {
             return null;
@@ -563,16 +750,59 @@ public class CoinbaseDownloader {
         String lastWithdrawalId;
         String lastTxWalletUpdate;
         String lastFundingWalletUpdate;
+        // time of the last download of the wallet, dormant wallets are polled only once in a while
+        String lastTxCheck;
+        String lastFundingCheck;
+        // not serialized, taken from the actual account info
+        boolean hasBalance;
 
         public WalletState(String lastBuyId, String lastSellId, String lastDepositId, String lastWithdrawalId, String lastTxWalletUpdate,
-                           String lastFundingWalletUpdate) {
+                           String lastFundingWalletUpdate, String lastTxCheck, String lastFundingCheck) {
             this.lastBuyId = DASH_SYMBOL.equals(lastBuyId) ? null : lastBuyId;
             this.lastSellId = DASH_SYMBOL.equals(lastSellId) ? null : lastSellId;
             this.lastDepositId = DASH_SYMBOL.equals(lastDepositId) ? null : lastDepositId;
             this.lastWithdrawalId = DASH_SYMBOL.equals(lastWithdrawalId) ? null : lastWithdrawalId;
             this.lastTxWalletUpdate = DASH_SYMBOL.equals(lastTxWalletUpdate) ? null : lastTxWalletUpdate;
             this.lastFundingWalletUpdate = DASH_SYMBOL.equals(lastFundingWalletUpdate) ? null : lastFundingWalletUpdate;
+            this.lastTxCheck = DASH_SYMBOL.equals(lastTxCheck) ? null : lastTxCheck;
+            this.lastFundingCheck = DASH_SYMBOL.equals(lastFundingCheck) ? null : lastFundingCheck;
         }
+
+        boolean isTxPollDue(long now) {
+            return isPollDue(lastTxWalletUpdate, lastTxCheck, now);
+        }
+
+        boolean isFundingPollDue(long now) {
+            return isPollDue(lastFundingWalletUpdate, lastFundingCheck, now);
+        }
+
+        private boolean isPollDue(String lastUpdate, String lastCheck, long now) {
+            if (hasBalance || lastCheck == null) {
+                return true;
+            }
+            boolean recentlyActive = lastUpdate != null
+                && now - Long.parseLong(lastUpdate) < ACTIVE_WALLET_PERIOD.toMillis();
+            return recentlyActive || now - Long.parseLong(lastCheck) >= DORMANT_WALLET_POLL_PERIOD.toMillis();
+        }
+    }
+
+    @FunctionalInterface
+    private interface WalletDownload<T> {
+        T download(String walletId) throws IOException;
+    }
+
+    @Value
+    private static class WalletTrades {
+        String walletId;
+        List<CoinbaseShowTransactionV2> transactions;
+    }
+
+    @Value
+    private static class WalletFunding {
+        String walletId;
+        List<FundingRecord> records;
+        String lastDepositId;
+        String lastWithdrawalId;
     }
 
     private String advancedTradeLastDownloadTimestamp() {
@@ -1,6 +1,7 @@
 package io.everytrade.server.plugin.impl.everytrade;
 
 import io.everytrade.server.plugin.api.connector.DownloadResult;
+import io.everytrade.server.plugin.impl.everytrade.ratelimit.ApiRateLimiter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,11 +26,12 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 @FieldDefaults(makeFinal = false, level = PRIVATE)
 public class CoinbaseProDownloader {
-    //https://docs.pro.coinbase.com/#rate-limits - max 5 request per user per second --> 200 ms between requests
+    //https://docs.pro.coinbase.com/#rate-limits - private endpoints 15 requests per second, bursts up to 30
     private static final int TX_PER_REQUEST = 100;
     private static final int FUNDINGS_PER_REQUEST = 100;
     private static final int MAX_REQUEST_COUNT = 3000;
-    private static final int SLEEP_BETWEEN_REQUESTS_MS = 200;
+    private static final double REQUESTS_PER_SECOND = 10;
+    private static final int REQUEST_BURST = 15;
     public static final int FIRST_COINBASE_TX_ID = 1;
     public static final String EXCHANGE_OPENING_DATE = "2012-01-01 23:59:59.909298+00";
     private DownloadState state;
@@ -68,12 +70,7 @@ public class CoinbaseProDownloader {
                 params.setBeforeTradeId(lastDownloadedTx);
                 final List<UserTrade> userTradesBlock;
                 try {
-                    Thread.sleep(SLEEP_BETWEEN_REQUESTS_MS);
-                } catch (InterruptedException e) {
-                    throw new IllegalStateException("User trade history download sleep interrupted.", e);
-                }
-                try {
-                    userTradesBlock = tradeService.getTradeHistory(params).getUserTrades();
+                    userTradesBlock = rateLimiter().call(() -> tradeService.getTradeHistory(params).getUserTrades());
                 } catch (Exception e) {
                     throw new IllegalStateException("User trade history download failed. ", e);
                 }
@@ -105,12 +102,7 @@ public class CoinbaseProDownloader {
         final CoinbaseProTransfersWithHeader depositRecords;
 
         try {
-            Thread.sleep(SLEEP_BETWEEN_REQUESTS_MS);
-        } catch (InterruptedException e) {
-            throw new IllegalStateException("Funding deposit record history download sleep interrupted.", e);
-        }
-        try {
-            depositRecords = accountService.getTransfersWithPagination(params);
+            depositRecords = rateLimiter().call(() -> accountService.getTransfersWithPagination(params));
         } catch (Exception e) {
             throw new IllegalStateException("Funding deposit record history download failed. ", e);
         }
@@ -130,12 +122,7 @@ public class CoinbaseProDownloader {
 
         final CoinbaseProTransfersWithHeader withdrawalRecords;
         try {
-            Thread.sleep(SLEEP_BETWEEN_REQUESTS_MS);
-        } catch (InterruptedException e) {
-            throw new IllegalStateException("Funding withdrawal record history download sleep interrupted.", e);
-        }
-        try {
-            withdrawalRecords = accountService.getTransfersWithPagination(params);
+            withdrawalRecords = rateLimiter().call(() -> accountService.getTransfersWithPagination(params));
         } catch (Exception e) {
             throw new IllegalStateException("Funding withdrawal record history download failed. ", e);
         }
@@ -154,6 +141,12 @@ public class CoinbaseProDownloader {
         return state.serialize();
     }
 
+    private ApiRateLimiter rateLimiter() {
+        return ApiRateLimiter.forCredential(
+            "CoinbasePro", ConnectorUtils.getApiKey(exchange), REQUESTS_PER_SECOND, REQUEST_BURST
+        );
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -8,6 +8,8 @@ import io.everytrade.server.plugin.api.connector.ConnectorParameterType;
 import io.everytrade.server.plugin.api.connector.DownloadResult;
 import io.everytrade.server.plugin.api.connector.IConnector;
 import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.impl.everytrade.dedup.TimeBucketedIdFilter;
+import io.everytrade.server.util.serialization.CompactStateCodec;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.experimental.FieldDefaults;
@@ -55,7 +57,10 @@ public class CoinmateConnector implements IConnector {
     // drops within-batch duplicates from the archived/live passes and survives Coinmate's ms timestamp
     // jitter between fetches).
     private static final long RESCAN_WINDOW_MS = 30L * 24 * 60 * 60 * 1000;
-    private static final int MAX_TRACKED_IDS = 20_000;
+    // the imported ids of a day are kept exactly up to this count, a busier day as a bloom filter of a fixed size
+    // (about 7 kB) sized for it, so the state stays below about 230 kB before compression however busy the account
+    private static final int IMPORTED_IDS_FILTER_CAPACITY = 2_000;
+    private static final double IMPORTED_IDS_FALSE_POSITIVE_RATE = 1e-6;
     private static final Set<String> FINAL_STATUSES = Set.of("OK", "COMPLETED", "CANCELLED");
     private long nextAllowedRequestAtMs = 0;
 
@@ -132,6 +137,7 @@ public class CoinmateConnector implements IConnector {
         // the rescan window must not reach behind the point where id tracking started: rows imported
         // by older plugin versions are not in importedIds and would be re-imported as duplicates
         long from = Math.max(0L, Math.max(state.rescanFloor, state.nextFrom - RESCAN_WINDOW_MS));
+        long previousNextFrom = state.nextFrom;
         long initialTo = Instant.now().toEpochMilli();
 
         List<CoinmateTransactionHistoryEntry> all = new ArrayList<>();
@@ -182,7 +188,7 @@ public class CoinmateConnector implements IConnector {
                         continue;
                     }
                     String txId = String.valueOf(e.getTransactionId());
-                    if (seenThisRun.put(txId, ts) == null && !state.importedIds.containsKey(txId)) {
+                    if (seenThisRun.put(txId, ts) == null && !state.wasImported(txId, ts, previousNextFrom)) {
                         all.add(e);
                     }
                 }
@@ -208,6 +214,13 @@ public class CoinmateConnector implements IConnector {
         }
 
         state.rememberImported(seenThisRun);
+        if (state.probableImports > 0) {
+            LOG.info(
+                "Skipped {} re-downloaded Coinmate rows older than the previous watermark matched by the imported id "
+                    + "filter only.",
+                state.probableImports
+            );
+        }
 
         return all;
     }
@@ -265,6 +278,11 @@ public class CoinmateConnector implements IConnector {
 
     private static class DownloadState {
         private static final String V3_PREFIX = "v3=";
+        // v3 with the imported ids in the compact form, written once the id list gets long
+        private static final String V4_PREFIX = "v4=";
+        // v4 with the imported ids bucketed by day, the busy days as bloom filters
+        private static final String V5_PREFIX = "v5=";
+        private static final String STATE_NAME = "Coinmate";
         // a value below this (2000-01-01) cannot be a millisecond timestamp; the most ancient states
         // stored a Coinmate transaction id instead, from which no resume point can be derived
         private static final long MIN_PLAUSIBLE_TIMESTAMP_MS = 946_684_800_000L;
@@ -272,9 +290,13 @@ public class CoinmateConnector implements IConnector {
         private long nextFrom;
         // ids are tracked only from this timestamp on; the rescan window must not reach behind it
         private long rescanFloor;
-        // txId -> timestamp of transactions already handed to the host, kept for the rescan window;
+        // ids of transactions already handed to the host, kept for the rescan window;
         // the host has no import-time dedup, so re-scanned rows must be filtered out here
-        private final Map<String, Long> importedIds = new HashMap<>();
+        private final TimeBucketedIdFilter importedIds = TimeBucketedIdFilter.daily(
+            IMPORTED_IDS_FALSE_POSITIVE_RATE, IMPORTED_IDS_FILTER_CAPACITY
+        );
+        // rows of this download skipped on a filter hit only, not stored
+        private int probableImports;
 
         DownloadState(long nextFrom, long rescanFloor) {
             this.nextFrom = nextFrom;
@@ -286,6 +308,32 @@ public class CoinmateConnector implements IConnector {
                 return new DownloadState(0L, 0L);
             }
 
+            if (state.startsWith(V4_PREFIX) || state.startsWith(V5_PREFIX)) {
+                boolean bucketed = state.startsWith(V5_PREFIX);
+                String[] parts = state.substring(V4_PREFIX.length()).split("=", 3);
+                DownloadState result = new DownloadState(
+                    parts.length > 1 ? parseLongSafe(parts[1]) : 0L,
+                    parseLongSafe(parts[0])
+                );
+                if (parts.length > 2 && !parts[2].isEmpty()) {
+                    try {
+                        CompactStateCodec.decode(STATE_NAME, parts[2], reader -> {
+                            if (bucketed) {
+                                result.importedIds.read(reader);
+                            } else {
+                                readImportedIds(reader, result.importedIds);
+                            }
+                            return null;
+                        });
+                    } catch (IllegalArgumentException e) {
+                        // without the ids a rescan would import duplicates, resume at the watermark instead
+                        LOG.warn("Imported ids of Coinmate download state not readable: {}", e.getMessage());
+                        return new DownloadState(result.nextFrom, result.nextFrom);
+                    }
+                }
+                return result;
+            }
+
             if (state.startsWith(V3_PREFIX)) {
                 String[] parts = state.substring(V3_PREFIX.length()).split("=", 3);
                 DownloadState result = new DownloadState(
@@ -296,7 +344,7 @@ public class CoinmateConnector implements IConnector {
                     for (String pair : parts[2].split(",")) {
                         int colon = pair.indexOf(':');
                         if (colon > 0) {
-                            result.importedIds.put(pair.substring(0, colon), parseLongSafe(pair.substring(colon + 1)));
+                            result.importedIds.add(pair.substring(0, colon), parseLongSafe(pair.substring(colon + 1)));
                         }
                     }
                 }
@@ -328,26 +376,66 @@ public class CoinmateConnector implements IConnector {
 
         /* The field order (floor BEFORE nextFrom) is deliberate: the previous plugin version reads the
            third '='-separated field as its resume timestamp, so after a plugin rollback it resumes
-           exactly where v3 left off instead of re-downloading (and duplicating) the whole history. */
+           exactly where v3 left off instead of re-downloading (and duplicating) the whole history.
+           v4 and v5 keep the order, the version before v3 resumes at nextFrom; v3 reads them as legacy. */
         public String serialize() {
-            return V3_PREFIX + rescanFloor + "=" + nextFrom + "="
-                + importedIds.entrySet().stream()
+            int textLength = 0;
+            if (importedIds.isExact()) {
+                String ids = importedIds.exactIds().entrySet().stream()
                     .map(e -> e.getKey() + ":" + e.getValue())
                     .collect(Collectors.joining(","));
+                String text = V3_PREFIX + rescanFloor + "=" + nextFrom + "=" + ids;
+                if (!CompactStateCodec.isWorthEncoding(text)) {
+                    return text;
+                }
+                textLength = text.length();
+            }
+            return V5_PREFIX + rescanFloor + "=" + nextFrom + "="
+                + CompactStateCodec.encode(STATE_NAME, textLength, importedIds::write);
+        }
+
+        /* the v4 ids: sorted by time, timestamps as differences; Coinmate ids are numbers growing with
+           time, so they were written as differences too unless some id isn't a plain number */
+        private static void readImportedIds(CompactStateCodec.StateReader reader, TimeBucketedIdFilter importedIds) {
+            int count = reader.readInt();
+            boolean numeric = reader.readInt() == 1;
+            long previousId = 0;
+            for (int i = 0; i < count; i++) {
+                String id;
+                if (numeric) {
+                    previousId += reader.readLong();
+                    id = String.valueOf(previousId);
+                } else {
+                    id = reader.readString();
+                }
+                importedIds.add(id, reader.readTimestamp());
+            }
+        }
+
+        /* a hit on a busy day is a bloom filter hit and may be false; a row at or after the previous
+           watermark was never downloaded before, so it cannot have been imported whatever the filter says.
+           An older row is taken as imported, logged and counted so a wrongly skipped late settling row can be
+           traced down. */
+        boolean wasImported(String txId, long ts, long previousNextFrom) {
+            return switch (importedIds.match(txId, ts)) {
+                case NONE -> false;
+                case EXACT -> true;
+                case PROBABLE -> {
+                    if (ts >= previousNextFrom) {
+                        yield false;
+                    }
+                    probableImports++;
+                    LOG.debug("Coinmate transaction {} at {} skipped, matched by the imported id filter.", txId, ts);
+                    yield true;
+                }
+            };
         }
 
         /* keep ids seen in this run that still fall into the rescan window; older ones can never be
-           re-downloaded again (from = nextFrom - window), so they are dropped to bound the state size */
+           re-downloaded again (from = nextFrom - window), so they are dropped with their day buckets */
         void rememberImported(Map<String, Long> seenThisRun) {
-            importedIds.putAll(seenThisRun);
-            long threshold = nextFrom - RESCAN_WINDOW_MS;
-            importedIds.values().removeIf(ts -> ts < threshold);
-            if (importedIds.size() > MAX_TRACKED_IDS) {
-                List<Long> byAge = new ArrayList<>(importedIds.values());
-                byAge.sort(null);
-                long cutoff = byAge.get(importedIds.size() - MAX_TRACKED_IDS);
-                importedIds.values().removeIf(ts -> ts < cutoff);
-            }
+            importedIds.addAll(seenThisRun);
+            importedIds.evictOlderThan(nextFrom - RESCAN_WINDOW_MS);
         }
 
         private static long parseLongSafe(String s) {
@@ -1,5 +1,7 @@
 package io.everytrade.server.plugin.impl.everytrade;
 
+import org.knowm.xchange.Exchange;
+import org.knowm.xchange.ExchangeSpecification;
 import org.knowm.xchange.currency.Currency;
 import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.dto.account.FundingRecord;
@@ -14,6 +16,14 @@ public class ConnectorUtils {
     private ConnectorUtils() {
     }
 
+    /**
+     * @return API key of the exchange, null when the exchange has no specification (e.g. test mocks)
+     */
+    public static String getApiKey(Exchange exchange) {
+        ExchangeSpecification specification = exchange.getExchangeSpecification();
+        return specification == null ? null : specification.getApiKey();
+    }
+
     public static List<CurrencyPair> toCurrencyPairs(String currencyPairs) {
         return Arrays.stream(currencyPairs.split(","))
             .map(String::strip)
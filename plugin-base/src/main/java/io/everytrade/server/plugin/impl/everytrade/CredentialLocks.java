@@ -0,0 +1,32 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import java.util.Objects;
+
+/**
+ * Striped monitors keyed by a credential (API key, wallet address). Downloads of one credential are serialized while
+ * different credentials run concurrently; two credentials sharing a stripe just wait for each other.
+ */
+final class CredentialLocks {
+    static final int DEFAULT_STRIPES = 64;
+
+    private final Object[] stripes;
+
+    CredentialLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    CredentialLocks(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        this.stripes = new Object[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    Object forCredential(String credential) {
+        int hash = Objects.hashCode(credential);
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+}
@@ -1,5 +1,6 @@
 package io.everytrade.server.plugin.impl.everytrade;
 
+import io.everytrade.server.plugin.impl.everytrade.ratelimit.ApiRateLimiter;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.experimental.FieldDefaults;
@@ -12,7 +13,6 @@ import org.knowm.xchange.huobi.service.HuobiFundingHistoryParams;
 import org.knowm.xchange.huobi.service.HuobiTradeHistoryParams;
 import org.knowm.xchange.huobi.service.HuobiTradeService;
 
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -27,9 +27,9 @@ import static org.knowm.xchange.dto.account.FundingRecord.Type.WITHDRAWAL;
 @AllArgsConstructor
 @FieldDefaults(makeFinal = true, level = PRIVATE)
 public class HuobiDownloader {
-    // huobiapi.github.io/docs/spot/v1/en/#overview-2 --> 10 requests per API_KEY per second
-    // 200 ms = 50% API_KEY capacity
-    private static final Duration SLEEP_BETWEEN_REQUESTS = Duration.ofMillis(200);
+    // huobiapi.github.io/docs/spot/v1/en/#overview-2 --> 10 requests per API_KEY per second, burst + rate within it
+    private static final double REQUESTS_PER_SECOND = 8;
+    private static final int REQUEST_BURST = 2;
     // txs count in request = 100, max 5 sec, 2.500 txs per cycle --> 25 requests
     private static final int MAX_REQUEST_COUNT = 25;
     private static final String FUNDING_STATE_KEY = "funding";
@@ -57,12 +57,12 @@ public class HuobiDownloader {
         for (String pair : pairs) {
             final HuobiDownloadState downloadState = state.getOrDefault(pair, HuobiDownloadState.parseFrom(null));
             do {
-                waitBetweenRequests();
                 params.setStartTime(downloadState.getWindowStart());
                 params.setStartId(downloadState.getLastTxIdAfterGap());
                 final List<UserTrade> userTradesBlock;
                 try {
-                    userTradesBlock = tradeService.getTradeHistory(params, pair).getUserTrades();
+                    userTradesBlock = rateLimiter()
+                        .call(() -> tradeService.getTradeHistory(params, pair).getUserTrades());
                     if (userTradesBlock.isEmpty()) {
                         break;
                     }
@@ -92,13 +92,12 @@ public class HuobiDownloader {
 
         for (FundingRecord.Type type : List.of(WITHDRAWAL, DEPOSIT)) {
             while (sentRequests < MAX_REQUEST_COUNT) {
-                waitBetweenRequests();
                 params.setType(type);
                 params.setStartId(fundingState.getLastTxIdAfterGap());
 
                 final List<FundingRecord> fundingBlock;
                 try {
-                    fundingBlock = accountService.getFundingHistory(params);
+                    fundingBlock = rateLimiter().call(() -> accountService.getFundingHistory(params));
                     if (fundingBlock.isEmpty()) {
                         break;
                     }
@@ -261,11 +260,9 @@ public class HuobiDownloader {
         return -1;
     }
 
-    private void waitBetweenRequests() {
-        try {
-            Thread.sleep(SLEEP_BETWEEN_REQUESTS.toMillis());
-        } catch (InterruptedException e) {
-            throw new IllegalStateException("User funding history download sleep interrupted.", e);
-        }
+    private ApiRateLimiter rateLimiter() {
+        return ApiRateLimiter.forCredential(
+            "Huobi", ConnectorUtils.getApiKey(exchange), REQUESTS_PER_SECOND, REQUEST_BURST
+        );
     }
 }
@@ -0,0 +1,124 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Models Kraken's per API key call counter: every call increases the counter by its cost, the counter decays over
+ * time and calls are rejected when it would exceed the maximum. Calls wait only until the counter has decayed
+ * enough, instead of a fixed delay. Limits of the starter verification tier are used, as the most restrictive ones.
+ * See https://docs.kraken.com/rest/#section/Rate-Limits/REST-API-Rate-Limits.
+ */
+final class KrakenCallRateLimiter {
+    static final double MAX_COUNTER = 15;
+    static final double DECAY_PER_SECOND = 0.33;
+    /**
+     * Ledger and trade history calls increase the counter by 2, other private calls by 1.
+     */
+    static final double HISTORY_CALL_COST = 2;
+
+    private static final Map<String, KrakenCallRateLimiter> LIMITERS_BY_API_KEY = new ConcurrentHashMap<>();
+    // limiters of keys not used for a while are dropped, so that the map doesn't grow with every API key seen
+    static final long IDLE_LIMITER_EVICTION_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final long EVICTION_PERIOD_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final AtomicLong LAST_EVICTION_NANOS = new AtomicLong(System.nanoTime());
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double maxCounter;
+    private final double decayPerNano;
+    private final LongSupplier nanoClock;
+    private double counter;
+    private long updatedNanos;
+    private long usedNanos;
+
+    KrakenCallRateLimiter(double maxCounter, double decayPerSecond, LongSupplier nanoClock) {
+        this.maxCounter = maxCounter;
+        this.decayPerNano = decayPerSecond / NANOS_PER_SECOND;
+        this.nanoClock = Objects.requireNonNull(nanoClock);
+        this.updatedNanos = nanoClock.getAsLong();
+        this.usedNanos = updatedNanos;
+    }
+
+    /**
+     * The counter is kept by Kraken per API key, so is the limiter shared by all the connectors of the key.
+     */
+    static KrakenCallRateLimiter forApiKey(String apiKey) {
+        long now = System.nanoTime();
+        long lastEviction = LAST_EVICTION_NANOS.get();
+        if (now - lastEviction >= EVICTION_PERIOD_NANOS && LAST_EVICTION_NANOS.compareAndSet(lastEviction, now)) {
+            evictIdleLimiters(IDLE_LIMITER_EVICTION_NANOS);
+        }
+        return LIMITERS_BY_API_KEY.compute(apiKey == null ? "" : apiKey, (key, limiter) -> {
+            if (limiter == null) {
+                limiter = new KrakenCallRateLimiter(MAX_COUNTER, DECAY_PER_SECOND, System::nanoTime);
+            }
+            limiter.touch();
+            return limiter;
+        });
+    }
+
+    /**
+     * Drops the limiters whose counter has decayed to zero and which weren't used for the given time, a new limiter
+     * of the key starts at zero just like them.
+     */
+    static void evictIdleLimiters(long idleNanos) {
+        for (String key : LIMITERS_BY_API_KEY.keySet()) {
+            LIMITERS_BY_API_KEY.computeIfPresent(key, (k, limiter) -> limiter.isIdle(idleNanos) ? null : limiter);
+        }
+    }
+
+    /**
+     * Blocks until a call of the given cost fits into the counter.
+     */
+    void acquire(double cost) throws InterruptedException {
+        long waitNanos = reserve(cost);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Counts the call in and returns how long to wait before making it.
+     */
+    synchronized long reserve(double cost) {
+        decay();
+        usedNanos = updatedNanos;
+        double excess = counter + cost - maxCounter;
+        counter += cost;
+        return excess > 0 ? (long) Math.ceil(excess / decayPerNano) : 0;
+    }
+
+    /**
+     * Kraken rejected a call, its counter is full regardless of what was counted here (e.g. calls made by another
+     * application with the same key).
+     */
+    synchronized void onRateLimitExceeded() {
+        decay();
+        counter = Math.max(counter, maxCounter);
+    }
+
+    synchronized void touch() {
+        decay();
+        usedNanos = updatedNanos;
+    }
+
+    synchronized boolean isIdle(long idleNanos) {
+        decay();
+        return counter == 0 && updatedNanos - usedNanos >= idleNanos;
+    }
+
+    synchronized double getCounter() {
+        decay();
+        return counter;
+    }
+
+    private void decay() {
+        long now = nanoClock.getAsLong();
+        counter = Math.max(0, counter - (now - updatedNanos) * decayPerNano);
+        updatedNanos = now;
+    }
+}
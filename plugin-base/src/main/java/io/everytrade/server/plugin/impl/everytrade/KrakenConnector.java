@@ -38,7 +38,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -85,7 +84,6 @@ public class KrakenConnector implements IConnector {
     private static final String WRONG_NUMBER_OF_TRANSACTIONS = "wrong number of txs - expected (1x RECEIVE and 1x SEND)";
     private static final String SPEND_POSITIVE_NUMBER = "Spend - transaction amount must be negative";
     private static final String RECEIVE_POSITIVE_NUMBER = "Receive - transaction amount must be positive";
-    private static final Duration SLEEP_BETWEEN_FUNDING_REQUESTS = Duration.ofMillis(6 * 1000);
 
     private static final int MAX_REQUESTS_COUNT = 7;
     public static final String UID_TRADES_ID = "1";
@@ -93,6 +91,11 @@ public class KrakenConnector implements IConnector {
     public static final String UID_DEPOSIT_ID = "3";
     public static final String UID_WITHDRAWAL_ID = "4";
     public static final String UID_STAKING_ID = "5";
+    public static final String UID_LEDGER_ID = "6";
+    private static final List<String> LEDGER_TYPE_UID_IDS =
+        List.of(UID_TRADES_ID, UID_SALE_ID, UID_DEPOSIT_ID, UID_WITHDRAWAL_ID, UID_STAKING_ID);
+    // one unfiltered scan replaces the downloads of all five ledger types
+    private static final int MAX_LEDGER_SCAN_REQUESTS_COUNT = MAX_REQUESTS_COUNT * LEDGER_TYPE_UID_IDS.size();
     public static final String EXCEPTION_PAIR = "Invalid value of pairs: ";
     public static final String EXCEPTION_CURRENCY = "Invalid currencies: ";
     public static final String EXCEPTION_AMOUNT = "Invalid transactionAmounts: ";
@@ -162,51 +165,144 @@ public class KrakenConnector implements IConnector {
         }
         var userTrades = new ArrayList<UserTrade>();
         var funding = new ArrayList<FundingRecord>();
-        funding.addAll(withdrawal(state));
-        userTrades.addAll(trades(state));
-        funding.addAll(staking(state));
-        funding.addAll(deposit(state));
-        userTrades.addAll(SpendAndReceive(state));
+        if (isLedgerTypeDownloadInProgress(state)) {
+            // offsets of a running per type download can't be mapped onto the unfiltered ledger, finish it first
+            funding.addAll(withdrawal(state));
+            userTrades.addAll(trades(state));
+            funding.addAll(staking(state));
+            funding.addAll(deposit(state));
+            userTrades.addAll(SpendAndReceive(state));
+        } else {
+            migrateToLedgerScan(state);
+            scanLedger(state, userTrades, funding);
+        }
         return getResult(userTrades, funding, state);
     }
 
+    /**
+     * @return true when a per type ledger download of an older state stopped in the middle of its time window
+     */
+    static boolean isLedgerTypeDownloadInProgress(Uids state) {
+        if (state.getUidS().containsKey(UID_LEDGER_ID)) {
+            return false;
+        }
+        return LEDGER_TYPE_UID_IDS.stream()
+            .map(uidId -> state.getUidS().get(uidId))
+            .filter(uid -> uid != null && uid.getUid() != null && uid.getUid().get(OFFSET) != null)
+            .anyMatch(uid -> !"0".equals(uid.getUid().get(OFFSET)));
+    }
+
+    /**
+     * Replaces the per type cursors by a single ledger cursor starting at the oldest of them. The per type cursors are
+     * kept until the first scan completes, their starts tell which entries of the type were already downloaded.
+     */
+    static void migrateToLedgerScan(Uids state) {
+        Map<String, Uid> uidS = state.getUidS();
+        if (uidS.containsKey(UID_LEDGER_ID)) {
+            return;
+        }
+        boolean hasLedgerTypeUids = LEDGER_TYPE_UID_IDS.stream().anyMatch(uidS::containsKey);
+        long start = Long.parseLong(getDefaultStart());
+        if (hasLedgerTypeUids) {
+            start = LEDGER_TYPE_UID_IDS.stream()
+                .mapToLong(uidId -> parseStart(getLedgerTypeStart(state, uidId)))
+                .min()
+                .orElse(start);
+        }
+        state.addUid(UID_LEDGER_ID, createCursor(String.valueOf(start), getDefaultEnd()));
+    }
+
+    /**
+     * Routes the ledger entries to the per type builders, keyed by the per type uid ids. Entries not newer than the
+     * start of a migrated per type cursor were already downloaded by it and are dropped.
+     */
+    static Map<String, List<KrakenLedger>> routeLedgers(Uids state, List<KrakenLedger> ledgers) {
+        Map<String, List<KrakenLedger>> routed = new HashMap<>();
+        LEDGER_TYPE_UID_IDS.forEach(uidId -> routed.put(uidId, new ArrayList<>()));
+        for (KrakenLedger ledger : ledgers) {
+            String uidId = getLedgerTypeUidId(ledger.getLedgerType());
+            if (uidId != null && ledger.getUnixTime() > parseStart(getLedgerTypeStart(state, uidId))) {
+                routed.get(uidId).add(ledger);
+            }
+        }
+        return routed;
+    }
+
+    private static String getLedgerTypeUidId(LedgerType ledgerType) {
+        if (ledgerType == null) {
+            return null;
+        }
+        switch (ledgerType.toString().toUpperCase()) {
+            case "TRADE":
+                return UID_TRADES_ID;
+            case "SALE":
+            case "SPEND":
+            case "RECEIVE":
+                return UID_SALE_ID;
+            case "DEPOSIT":
+                return UID_DEPOSIT_ID;
+            case "WITHDRAWAL":
+                return UID_WITHDRAWAL_ID;
+            case "STAKING":
+                return UID_STAKING_ID;
+            default:
+                return null;
+        }
+    }
+
+    private static String getLedgerTypeStart(Uids state, String uidId) {
+        Uid uid = state.getUidS().get(uidId);
+        return uid == null || uid.getUid() == null ? null : uid.getUid().get(START);
+    }
+
+    private static long parseStart(String start) {
+        return start == null ? Long.parseLong(getDefaultStart()) : Long.parseLong(start);
+    }
+
+    private void scanLedger(Uids state, List<UserTrade> userTrades, List<FundingRecord> funding) {
+        var accountService = (KrakenAccountService) exchange.getAccountService();
+        String startUnixId = getStartState(state, UID_LEDGER_ID);
+        String endUnixId = getEndState(state, UID_LEDGER_ID);
+        Long offset = getOffsetState(state, UID_LEDGER_ID);
+        List<KrakenLedger> blocks = new ArrayList<>();
+        try {
+            // null ledger type requests all entries
+            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_LEDGER_ID, null,
+                MAX_LEDGER_SCAN_REQUESTS_COUNT);
+        } catch (IOException e) {
+            throw new IllegalStateException("Download ledger history failed.", e);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        var ledgers = routeLedgers(state, blocks);
+        String status = state.getUidS().get(UID_LEDGER_ID).getUid().get(STATUS);
+        if (ALL_DATA_DOWNLOADED.getCode().equals(status)) {
+            LEDGER_TYPE_UID_IDS.forEach(state.getUidS()::remove);
+        }
+        var withdrawals = ledgers.get(UID_WITHDRAWAL_ID);
+        validateWithdrawals(withdrawals);
+        funding.addAll(createFundings(withdrawals, WITHDRAWAL, null));
+        userTrades.addAll(convertLedgerPairsToTrade(getPairsFromBlocks(ledgers.get(UID_TRADES_ID))));
+        funding.addAll(createFundings(ledgers.get(UID_STAKING_ID), OTHER_INFLOW, "reward"));
+        funding.addAll(createFundings(ledgers.get(UID_DEPOSIT_ID), DEPOSIT, null));
+        userTrades.addAll(convertSpendReceivePairsToTrade(ledgers.get(UID_SALE_ID)));
+    }
+
     private static Uids getDefaultUids() {
         Uids state = ConnectorSerialization.createDefaultUidMap();
-        String start = getDefaultStart();
-        String end = getDefaultEnd();
-        Map<SequenceIdentifierType, String> trade = new TreeMap<>();
-        trade.put(START, start);
-        trade.put(END, end);
-        trade.put(OFFSET, "0");
-        trade.put(STATUS, PARTIAL_DATA_DOWNLOADED.getCode());
-        Map<SequenceIdentifierType, String> sale = new TreeMap<>();
-        sale.put(START, start);
-        sale.put(END, end);
-        sale.put(OFFSET, "0");
-        sale.put(STATUS,  PARTIAL_DATA_DOWNLOADED.getCode());
-        Map<SequenceIdentifierType, String> deposit = new TreeMap<>();
-        deposit.put(START, start);
-        deposit.put(END, end);
-        deposit.put(OFFSET, "0");
-        deposit.put(STATUS,  PARTIAL_DATA_DOWNLOADED.getCode());
-        Map<SequenceIdentifierType, String> withdrawal = new TreeMap<>();
-        withdrawal.put(START, start);
-        withdrawal.put(END, end);
-        withdrawal.put(OFFSET, "0");
-        withdrawal.put(STATUS,  PARTIAL_DATA_DOWNLOADED.getCode());
-        Map<SequenceIdentifierType, String> staking = new TreeMap<>();
-        staking.put(START, start);
-        staking.put(END, end);
-        staking.put(OFFSET, "0");
-        staking.put(STATUS,  PARTIAL_DATA_DOWNLOADED.getCode());
-        state.addUid(UID_TRADES_ID, new Uid(trade));
-        state.addUid(UID_SALE_ID, new Uid(sale));
-        state.addUid(UID_DEPOSIT_ID, new Uid(deposit));
-        state.addUid(UID_WITHDRAWAL_ID, new Uid(withdrawal));
-        state.addUid(UID_STAKING_ID, new Uid(staking));
+        state.addUid(UID_LEDGER_ID, createCursor(getDefaultStart(), getDefaultEnd()));
         return state;
     }
 
+    private static Uid createCursor(String start, String end) {
+        Map<SequenceIdentifierType, String> cursor = new TreeMap<>();
+        cursor.put(START, start);
+        cursor.put(END, end);
+        cursor.put(OFFSET, "0");
+        cursor.put(STATUS, PARTIAL_DATA_DOWNLOADED.getCode());
+        return new Uid(cursor);
+    }
+
     private static String getDefaultStart() {
         return String.valueOf(Instant.parse("1970-01-01T00:00:00Z").getEpochSecond());
     }
@@ -229,7 +325,8 @@ public class KrakenConnector implements IConnector {
         Long offset = getOffsetState(state, UID_DEPOSIT_ID);
         List<KrakenLedger> blocks = new ArrayList<>();
         try {
-            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_DEPOSIT_ID, LedgerType.DEPOSIT);
+            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_DEPOSIT_ID, LedgerType.DEPOSIT,
+                MAX_REQUESTS_COUNT);
         } catch (IOException e) {
             throw new IllegalStateException("Download user trade history failed.", e);
         } catch (InterruptedException e) {
@@ -246,7 +343,8 @@ public class KrakenConnector implements IConnector {
 
         List<KrakenLedger> blocks = new ArrayList<>();
         try {
-            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_WITHDRAWAL_ID, LedgerType.WITHDRAWAL);
+            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_WITHDRAWAL_ID, LedgerType.WITHDRAWAL,
+                MAX_REQUESTS_COUNT);
             validateWithdrawals(blocks);
         } catch (IOException e) {
             throw new IllegalStateException("Download user trade history failed.", e);
@@ -318,53 +416,59 @@ public class KrakenConnector implements IConnector {
         Long offset = getSaleOffsetState(state);
         List<KrakenLedger> blocks = new ArrayList<>();
         try {
-            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_SALE_ID, SALE);
-            Map<String, List<KrakenLedger>> pairsReceiveSend = new HashMap<>();
-            blocks.forEach(leger -> {
-                    try {
-                        if (pairsReceiveSend.get(leger.getRefId()) == null) {
-                            List<KrakenLedger> list = new ArrayList<>();
-                            list.add(leger);
-                            pairsReceiveSend.put(leger.getRefId(), list);
-                        } else {
-                            List<KrakenLedger> krakenLedgers = pairsReceiveSend.get(leger.getRefId());
-                            krakenLedgers.add(leger);
-                        }
-                    } catch (Exception e) {
-                        parsingProblems.add(new ParsingProblem(leger.toString(), e.getMessage(), ROW_PARSING_FAILED));
-                    }
-                }
-            );
-            var resultsKeys = pairsReceiveSend.keySet();
-            List<UserTrade> result = new ArrayList<>();
+            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_SALE_ID, SALE,
+                MAX_REQUESTS_COUNT);
+        } catch (IOException e) {
+            throw new IllegalStateException("Download receive spend history failed.", e);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        return convertSpendReceivePairsToTrade(blocks);
+    }
 
-            for (String key : resultsKeys) {
-                var receiveSpendPair = pairsReceiveSend.get(key);
+    private List<UserTrade> convertSpendReceivePairsToTrade(List<KrakenLedger> blocks) {
+        Map<String, List<KrakenLedger>> pairsReceiveSend = new HashMap<>();
+        blocks.forEach(leger -> {
                 try {
-                    validateReceiveSendPair(receiveSpendPair);
-                    result.add(convertSpendReceivePairToTrade(receiveSpendPair));
+                    if (pairsReceiveSend.get(leger.getRefId()) == null) {
+                        List<KrakenLedger> list = new ArrayList<>();
+                        list.add(leger);
+                        pairsReceiveSend.put(leger.getRefId(), list);
+                    } else {
+                        List<KrakenLedger> krakenLedgers = pairsReceiveSend.get(leger.getRefId());
+                        krakenLedgers.add(leger);
+                    }
                 } catch (Exception e) {
-                    parsingProblems.add(new ParsingProblem(receiveSpendPair.toString(), e.getMessage(), ROW_PARSING_FAILED));
+                    parsingProblems.add(new ParsingProblem(leger.toString(), e.getMessage(), ROW_PARSING_FAILED));
                 }
             }
-            return result;
-        } catch (IOException e) {
-            throw new IllegalStateException("Download receive spend history failed.", e);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        );
+        var resultsKeys = pairsReceiveSend.keySet();
+        List<UserTrade> result = new ArrayList<>();
+
+        for (String key : resultsKeys) {
+            var receiveSpendPair = pairsReceiveSend.get(key);
+            try {
+                validateReceiveSendPair(receiveSpendPair);
+                result.add(convertSpendReceivePairToTrade(receiveSpendPair));
+            } catch (Exception e) {
+                parsingProblems.add(new ParsingProblem(receiveSpendPair.toString(), e.getMessage(), ROW_PARSING_FAILED));
+            }
         }
+        return result;
     }
 
-    private static void downloadLedgers(Uids state, KrakenAccountService accountService, String startUnixId,
-                                        String endUnixId, Long offset, List<KrakenLedger> blocks, String uidType,
-                                        LedgerType ledgerType) throws IOException, InterruptedException {
+    private void downloadLedgers(Uids state, KrakenAccountService accountService, String startUnixId,
+                                 String endUnixId, Long offset, List<KrakenLedger> blocks, String uidType,
+                                 LedgerType ledgerType, int maxRequests) throws IOException, InterruptedException {
+        var callLimiter = getCallLimiter();
         int requests = 0;
         int retryCount = 0;
         int maxRetries = 5;
 
-        while (requests < MAX_REQUESTS_COUNT) {
+        while (requests < maxRequests) {
             try {
-                Thread.sleep(SLEEP_BETWEEN_FUNDING_REQUESTS.toMillis());
+                callLimiter.acquire(KrakenCallRateLimiter.HISTORY_CALL_COST);
                 var block = accountService.getKrakenPartialLedgerInfo(ledgerType, startUnixId, endUnixId, offset);
 
                 if (block.isEmpty()) {
@@ -391,6 +495,7 @@ public class KrakenConnector implements IConnector {
                     throw new IOException("Exceeded maximum retry attempts due to rate limiting.", e);
                 }
                 retryCount++;
+                callLimiter.onRateLimitExceeded();
                 long backoffTime = (long) Math.pow(2, retryCount) * 1000;
                 LOG.info("Rate limit exceeded. Retrying after {} ms.", backoffTime);
                 Thread.sleep(backoffTime);
@@ -398,6 +503,10 @@ public class KrakenConnector implements IConnector {
         }
     }
 
+    private KrakenCallRateLimiter getCallLimiter() {
+        return KrakenCallRateLimiter.forApiKey(ConnectorUtils.getApiKey(exchange));
+    }
+
     private static void updateStateForCompletion(Uids state, String uidType, String start) {
         state.getUidS().get(uidType).setUid(END, null);
         state.getUidS().get(uidType).setUid(OFFSET, "0");
@@ -611,7 +720,8 @@ public class KrakenConnector implements IConnector {
         Long offset = getOffsetState(state, UID_TRADES_ID);
         List<KrakenLedger> blocks = new ArrayList<>();
         try {
-            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_TRADES_ID, TRADE);
+            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_TRADES_ID, TRADE,
+                MAX_REQUESTS_COUNT);
         } catch (IOException e) {
             throw new IllegalStateException("Download user trade history failed.", e);
         } catch (InterruptedException e) {
@@ -628,7 +738,8 @@ public class KrakenConnector implements IConnector {
         Long offset = getOffsetState(state, UID_STAKING_ID);
         List<KrakenLedger> blocks = new ArrayList<>();
         try {
-            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_STAKING_ID, STAKING);
+            downloadLedgers(state, accountService, startUnixId, endUnixId, offset, blocks, UID_STAKING_ID, STAKING,
+                MAX_REQUESTS_COUNT);
         } catch (IOException e) {
             throw new IllegalStateException("Download funding records history failed.", e);
         } catch (InterruptedException e) {
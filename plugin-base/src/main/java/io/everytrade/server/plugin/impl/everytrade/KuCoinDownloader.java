@@ -1,6 +1,7 @@
 package io.everytrade.server.plugin.impl.everytrade;
 
 import io.everytrade.server.plugin.api.connector.DownloadResult;
+import io.everytrade.server.plugin.impl.everytrade.ratelimit.ApiRateLimiter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -32,7 +33,9 @@ public class KuCoinDownloader {
         new GregorianCalendar(2019, 02, 18, 0, 0).getTime();
 
     private static final int MAX_TRADE_REQUEST_COUNT = 500;
-    private static final int SLEEP_BETWEEN_REQUESTS = 350;
+    // This API is restricted for each account, the request rate limit is 9 times/3s: a burst of 3 and 2/s for 3 s
+    private static final double REQUESTS_PER_SECOND = 2;
+    private static final int REQUEST_BURST = 3;
     private static final int PAGE = 1; // txs from next page is downloaded by new start/end date
     private static final int PAGE_LIMIT = 500; // pageLimit set by xChange - TRADE_HISTORIES_TO_FETCH = 500;
     private static final long WEEK = 7 * 24 * 60 * 60 * 1000L;
@@ -108,14 +111,12 @@ public class KuCoinDownloader {
 
             while (sentRequests < MAX_TRADE_REQUEST_COUNT) {
                 ++sentRequests;
-                // This API is restricted for each account, the request rate limit is 9 times/3s.
-                Thread.sleep(SLEEP_BETWEEN_REQUESTS);
                 final List<UserTrade> userTradesBlock;
                 try {
                     params.setEndTime(new Date(newEndDate));
                     params.setStartTime(new Date(newStartDate));
                     params.setNextPageCursor(String.valueOf(PAGE));
-                    userTradesBlock = tradeService.getTradeHistory(params).getUserTrades();
+                    userTradesBlock = rateLimiter().call(() -> tradeService.getTradeHistory(params).getUserTrades());
                 } catch (Exception e) {
                     throw new IllegalStateException("User trade history download failed. ", e);
                 }
@@ -191,14 +192,12 @@ public class KuCoinDownloader {
 
             while (sentRequests < MAX_TRADE_REQUEST_COUNT) {
                 ++sentRequests;
-                // This API is restricted for each account, the request rate limit is 9 times/3s.
-                Thread.sleep(SLEEP_BETWEEN_REQUESTS);
                 final List<UserTrade> userTradesBlock;
                 try {
                     params.setEndTime(new Date(oldEndDate));
                     params.setStartTime(new Date(oldStartDate));
                     params.setNextPageCursor(String.valueOf(PAGE));
-                    userTradesBlock = tradeService.getTradeHistory(params).getUserTrades();
+                    userTradesBlock = rateLimiter().call(() -> tradeService.getTradeHistory(params).getUserTrades());
                 } catch (Exception e) {
                     throw new IllegalStateException("User trade history download failed. ", e);
                 }
@@ -314,15 +313,13 @@ public class KuCoinDownloader {
 
             while (sentRequests < MAX_TRADE_REQUEST_COUNT) {
                 ++sentRequests;
-                // This API is restricted for each account, the request rate limit is 9 times/3s.
-                Thread.sleep(SLEEP_BETWEEN_REQUESTS);
                 final List<FundingRecord> userDepositsBlock;
                 try {
                     params.setEndTime(new Date(newEndDate));
                     params.setStartTime(new Date(newStartDate));
                     params.setNextPageCursor(String.valueOf(PAGE));
                     params.setType(type);
-                    userDepositsBlock = accountService.getFundingHistory(params);
+                    userDepositsBlock = rateLimiter().call(() -> accountService.getFundingHistory(params));
                 } catch (Exception e) {
                     throw new IllegalStateException("Funding history download failed. ", e);
                 }
@@ -397,15 +394,13 @@ public class KuCoinDownloader {
 
             while (sentRequests < MAX_TRADE_REQUEST_COUNT) {
                 ++sentRequests;
-                // This API is restricted for each account, the request rate limit is 9 times/3s.
-                Thread.sleep(SLEEP_BETWEEN_REQUESTS);
                 final List<FundingRecord> userDepositsBlock;
                 try {
                     params.setEndTime(new Date(oldEndDate));
                     params.setStartTime(new Date(oldStartDate));
                     params.setNextPageCursor(String.valueOf(PAGE));
                     params.setType(type);
-                    userDepositsBlock = accountService.getFundingHistory(params);
+                    userDepositsBlock = rateLimiter().call(() -> accountService.getFundingHistory(params));
                 } catch (Exception e) {
                     throw new IllegalStateException("User trade history download failed. ", e);
                 }
@@ -474,6 +469,12 @@ public class KuCoinDownloader {
         return userDeposits;
     }
 
+    private ApiRateLimiter rateLimiter() {
+        return ApiRateLimiter.forCredential(
+            "KuCoin", ConnectorUtils.getApiKey(exchange), REQUESTS_PER_SECOND, REQUEST_BURST
+        );
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -1,5 +1,6 @@
 package io.everytrade.server.plugin.impl.everytrade;
 
+import io.everytrade.server.plugin.impl.everytrade.ratelimit.ApiRateLimiter;
 import io.everytrade.server.util.serialization.DownloadState;
 import org.knowm.xchange.Exchange;
 import org.knowm.xchange.dto.account.FundingRecord;
@@ -24,6 +25,13 @@ import java.util.UUID;
 
 // https://www.okex.com/docs/en/#spot-account_information - limit 20 requests per second
 public class OkxDownloader {
+    // order history 40 requests per 2 seconds, deposit and withdrawal history 6 requests per second; the burst plus
+    // the requests refilled during the window must stay within the limit
+    private static final double ORDER_REQUESTS_PER_SECOND = 15;
+    private static final int ORDER_REQUEST_BURST = 10;
+    private static final double FUNDING_REQUESTS_PER_SECOND = 5;
+    private static final int FUNDING_REQUEST_BURST = 1;
+
     private final Exchange exchange;
     private final OkexAccountServiceRaw accountRaw;
     private final OkexTradeServiceRaw tradeRaw;
@@ -53,23 +61,15 @@ public class OkxDownloader {
             boolean reachedLastTrade = false;
 
             for (; ; ) {
-                OkexResponse<List<OkexOrderDetails>> resp;
-                try {
-                    resp = tradeRaw.getOrderHistory(
-                        "SPOT",
-                        null,
-                        null,
-                        afterOrdId, // after
-                        null,       // before
-                        "100"
-                    );
-                } catch (IOException e) {
-                    if (is429(e)) {
-                        sleepQuietly(300);
-                        continue;
-                    }
-                    throw e;
-                }
+                final String pageAfterOrdId = afterOrdId;
+                OkexResponse<List<OkexOrderDetails>> resp = orderRateLimiter().call(() -> tradeRaw.getOrderHistory(
+                    "SPOT",
+                    null,
+                    null,
+                    pageAfterOrdId, // after
+                    null,           // before
+                    "100"
+                ));
 
                 List<OkexOrderDetails> page = resp.getData();
                 if (page == null || page.isEmpty()) {
@@ -97,9 +97,6 @@ public class OkxDownloader {
                 }
 
                 afterOrdId = page.get(page.size() - 1).getOrderId();
-
-                // OKX rate limiting
-                sleepQuietly(80);
             }
 
         } catch (IOException e) {
@@ -134,14 +131,11 @@ public class OkxDownloader {
         boolean reachedLast = false;
 
         for (; ; ) {
+            final String pageAfter = after;
             OkexResponse<List<OkexWithdrawal>> resp;
             try {
-                resp = accountRaw.getWithdrawalHistory(null, after, null);
+                resp = fundingRateLimiter().call(() -> accountRaw.getWithdrawalHistory(null, pageAfter, null));
             } catch (IOException e) {
-                if (is429(e)) {
-                    sleepQuietly(300);
-                    continue;
-                }
                 throw new RuntimeException(e);
             }
 
@@ -172,7 +166,6 @@ public class OkxDownloader {
             }
 
             after = page.get(page.size() - 1).getTs();
-            sleepQuietly(80);
         }
 
         results.sort(Comparator.comparing(FundingRecord::getDate).reversed());
@@ -189,14 +182,11 @@ public class OkxDownloader {
         boolean reachedLast = false;
 
         for (; ; ) {
+            final String pageAfter = after;
             OkexResponse<List<OkexDeposit>> resp;
             try {
-                resp = accountRaw.getDepositHistory(null, after, null);
+                resp = fundingRateLimiter().call(() -> accountRaw.getDepositHistory(null, pageAfter, null));
             } catch (IOException e) {
-                if (is429(e)) {
-                    sleepQuietly(300);
-                    continue;
-                }
                 throw new RuntimeException(e);
             }
 
@@ -226,18 +216,12 @@ public class OkxDownloader {
             }
 
             after = page.get(page.size() - 1).getTs();
-            sleepQuietly(80);
         }
 
         results.sort(Comparator.comparing(FundingRecord::getDate).reversed());
         return results;
     }
 
-    private static boolean is429(IOException e) {
-        String msg = e.getMessage();
-        return msg != null && msg.contains("429");
-    }
-
     private static Long parseLongOrNull(String v) {
         if (v == null || v.isBlank()) {
             return null;
@@ -245,11 +229,15 @@ public class OkxDownloader {
         return Long.parseLong(v);
     }
 
-    private static void sleepQuietly(long ms) {
-        try {
-            Thread.sleep(ms);
-        } catch (InterruptedException ignored) {
-            Thread.currentThread().interrupt();
-        }
+    private ApiRateLimiter orderRateLimiter() {
+        return ApiRateLimiter.forCredential(
+            "OKX", ConnectorUtils.getApiKey(exchange), ORDER_REQUESTS_PER_SECOND, ORDER_REQUEST_BURST
+        );
+    }
+
+    private ApiRateLimiter fundingRateLimiter() {
+        return ApiRateLimiter.forCredential(
+            "OKX funding", ConnectorUtils.getApiKey(exchange), FUNDING_REQUESTS_PER_SECOND, FUNDING_REQUEST_BURST
+        );
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package io.everytrade.server.plugin.impl.everytrade.dedup;
+
+import io.everytrade.server.util.serialization.CompactStateCodec;
+
+/**
+ * Bloom filter of string ids sized for a capacity and a false positive rate. The hashes are computed from the
+ * characters of the id only, so a filter read from a download state answers the same on any JVM.
+ */
+final class BloomFilter {
+    private static final double LN2 = Math.log(2);
+    private static final int MAX_HASHES = 32;
+
+    private final byte[] bits;
+    private final int hashCount;
+    private final int capacity;
+    private int size;
+
+    private BloomFilter(byte[] bits, int hashCount, int capacity, int size) {
+        this.bits = bits;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    static BloomFilter create(int capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(
+                String.format("Invalid bloom filter capacity %s or false positive rate %s.", capacity,
+                    falsePositiveRate)
+            );
+        }
+        int byteCount = byteCount(capacity, falsePositiveRate);
+        int hashCount = (int) Math.round((double) byteCount * 8 / capacity * LN2);
+        return new BloomFilter(new byte[byteCount], Math.max(1, Math.min(MAX_HASHES, hashCount)), capacity, 0);
+    }
+
+    /**
+     * @return size of the bit set of a filter created for the capacity and the false positive rate
+     */
+    static int byteCount(int capacity, double falsePositiveRate) {
+        long bitCount = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+        return Math.toIntExact(Math.max(8, (bitCount + 7) / 8));
+    }
+
+    boolean mightContain(String id) {
+        long hash1 = hash(id);
+        long hash2 = secondHash(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bit(hash1, hash2, i);
+            if ((bits[bit >>> 3] & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false when the id (or a colliding one) was added before
+     */
+    boolean add(String id) {
+        if (mightContain(id)) {
+            return false;
+        }
+        long hash1 = hash(id);
+        long hash2 = secondHash(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bit(hash1, hash2, i);
+            bits[bit >>> 3] |= (byte) (1 << (bit & 7));
+        }
+        size++;
+        return true;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    void write(CompactStateCodec.StateWriter writer) {
+        writer.writeInt(capacity).writeInt(size).writeInt(hashCount).writeBytes(bits);
+    }
+
+    static BloomFilter read(CompactStateCodec.StateReader reader) {
+        int capacity = reader.readInt();
+        int size = reader.readInt();
+        int hashCount = reader.readInt();
+        byte[] bits = reader.readBytes();
+        if (capacity <= 0 || size < 0 || hashCount < 1 || hashCount > MAX_HASHES || bits.length == 0) {
+            throw new IllegalArgumentException("Damaged encoded state, invalid bloom filter.");
+        }
+        return new BloomFilter(bits, hashCount, capacity, size);
+    }
+
+    // the hash functions are derived from two hashes as hash1 + i * hash2 (Kirsch-Mitzenmacher)
+    private int bit(long hash1, long hash2, int i) {
+        return (int) Math.floorMod(hash1 + i * hash2, bits.length * 8L);
+    }
+
+    private static long secondHash(long hash1) {
+        return mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    // FNV-1a over the characters, finished by the splitmix64 mixer for well spread bits of similar ids
+    private static long hash(String id) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,276 @@
+package io.everytrade.server.plugin.impl.everytrade.dedup;
+
+import io.everytrade.server.util.serialization.CompactStateCodec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Ids of transactions already handed to the host, for connectors that re-download a trailing window and must not
+ * import the re-read rows again. The ids are kept in buckets by the timestamp of their transaction, buckets falling
+ * out of the window are dropped as a whole.
+ * <p>
+ * A bucket holds its ids exactly up to {@code filterCapacity} of them, then it turns into a bloom filter sized for
+ * that many ids at the configured false positive rate; an exact bucket is written as the filter too when the filter
+ * is smaller. The filter keeps its size, past the capacity its false positive rate grows instead. A bucket thus
+ * never takes more than the filter, the size of the state and the cost of the lookups depend on the window only,
+ * never on the activity.
+ * <p>
+ * A hit in an exact bucket is {@link Match#EXACT}, a hit in a filter bucket only {@link Match#PROBABLE}; the caller
+ * should confirm it, e.g. a row newer than anything downloaded before cannot have been imported, whatever the
+ * filter says.
+ */
+public final class TimeBucketedIdFilter {
+    private static final Pattern NUMERIC_ID = Pattern.compile("0|[1-9][0-9]{0,17}");
+    private static final int EXACT_BUCKET = 0;
+    private static final int FILTER_BUCKET = 1;
+
+    public enum Match {
+        NONE,
+        EXACT,
+        PROBABLE
+    }
+
+    private final long bucketMillis;
+    private final long toleranceMillis;
+    private final double falsePositiveRate;
+    private final int filterCapacity;
+    private final int filterBytes;
+    private final NavigableMap<Long, Bucket> buckets = new TreeMap<>();
+
+    /**
+     * @param bucketSize         time span of one bucket
+     * @param timestampTolerance how much the timestamp of the same transaction may differ between two downloads
+     * @param falsePositiveRate  probability that an id not seen before matches a filter bucket holding
+     *                           {@code filterCapacity} ids
+     * @param filterCapacity     number of ids the filter of a bucket is sized for
+     */
+    public TimeBucketedIdFilter(
+        Duration bucketSize,
+        Duration timestampTolerance,
+        double falsePositiveRate,
+        int filterCapacity
+    ) {
+        if (bucketSize.toMillis() <= 0 || timestampTolerance.isNegative() || filterCapacity <= 0
+            || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid id filter bucket size %s, tolerance %s, false positive rate %s or filter capacity %s.",
+                bucketSize, timestampTolerance, falsePositiveRate, filterCapacity
+            ));
+        }
+        this.bucketMillis = bucketSize.toMillis();
+        this.toleranceMillis = timestampTolerance.toMillis();
+        this.falsePositiveRate = falsePositiveRate;
+        this.filterCapacity = filterCapacity;
+        this.filterBytes = BloomFilter.byteCount(filterCapacity, falsePositiveRate);
+    }
+
+    /**
+     * Daily buckets, the timestamps of the same transaction may differ by up to an hour.
+     */
+    public static TimeBucketedIdFilter daily(double falsePositiveRate, int filterCapacity) {
+        return new TimeBucketedIdFilter(Duration.ofDays(1), Duration.ofHours(1), falsePositiveRate, filterCapacity);
+    }
+
+    public Match match(String id, long timestamp) {
+        Match result = Match.NONE;
+        for (Bucket bucket : buckets.subMap(
+            bucketIndex(timestamp - toleranceMillis), true, bucketIndex(timestamp + toleranceMillis), true
+        ).values()) {
+            Match match = bucket.match(id);
+            if (match == Match.EXACT) {
+                return match;
+            }
+            if (match == Match.PROBABLE) {
+                result = match;
+            }
+        }
+        return result;
+    }
+
+    public void add(String id, long timestamp) {
+        buckets.computeIfAbsent(bucketIndex(timestamp), index -> new Bucket()).add(id, timestamp);
+    }
+
+    public void addAll(Map<String, Long> idTimestamps) {
+        idTimestamps.forEach(this::add);
+    }
+
+    /**
+     * Drops the ids of transactions older than the given timestamp; a filter bucket is dropped once all of it is.
+     */
+    public void evictOlderThan(long timestamp) {
+        buckets.headMap(bucketIndex(timestamp)).clear();
+        Map.Entry<Long, Bucket> first = buckets.firstEntry();
+        if (first != null && first.getValue().exactIds != null) {
+            first.getValue().exactIds.values().removeIf(ts -> ts < timestamp);
+            if (first.getValue().exactIds.isEmpty()) {
+                buckets.remove(first.getKey());
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return buckets.isEmpty();
+    }
+
+    /**
+     * @return true when no bucket turned into a filter, i.e. {@link #exactIds()} are all the ids
+     */
+    public boolean isExact() {
+        return buckets.values().stream().allMatch(bucket -> bucket.exactIds != null);
+    }
+
+    /**
+     * @return id -> timestamp of the ids kept exactly
+     */
+    public Map<String, Long> exactIds() {
+        Map<String, Long> ids = new HashMap<>();
+        buckets.values().stream()
+            .filter(bucket -> bucket.exactIds != null)
+            .forEach(bucket -> ids.putAll(bucket.exactIds));
+        return ids;
+    }
+
+    /**
+     * @return number of ids, approximate for the filter buckets
+     */
+    public int size() {
+        return buckets.values().stream().mapToInt(Bucket::size).sum();
+    }
+
+    /* buckets by time; exact ids sorted by time with timestamps as differences, plain number ids (growing with time
+       at most exchanges) as differences too; filter buckets as their bit set. An exact bucket larger than its filter
+       turns into the filter before it is written, so the ids in memory match the written ones. */
+    public void write(CompactStateCodec.StateWriter writer) {
+        writer.writeInt(buckets.size());
+        for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+            writer.writeLong(entry.getKey());
+            Bucket bucket = entry.getValue();
+            if (bucket.exactIds != null
+                && CompactStateCodec.binaryLength(w -> writeExactIds(w, bucket.exactIds)) > filterBytes) {
+                bucket.toFilter();
+            }
+            if (bucket.exactIds != null) {
+                writeExactIds(writer, bucket.exactIds);
+            } else {
+                writer.writeInt(FILTER_BUCKET);
+                bucket.filter.write(writer);
+            }
+        }
+    }
+
+    /**
+     * Adds the ids written by {@link #write(CompactStateCodec.StateWriter)}.
+     *
+     * @throws IllegalArgumentException when the state is damaged
+     */
+    public void read(CompactStateCodec.StateReader reader) {
+        int bucketCount = reader.readInt();
+        for (int i = 0; i < bucketCount; i++) {
+            long index = reader.readLong();
+            int type = reader.readInt();
+            if (type == EXACT_BUCKET) {
+                readExactIds(reader).forEach(this::add);
+            } else if (type == FILTER_BUCKET) {
+                BloomFilter filter = BloomFilter.read(reader);
+                if (buckets.containsKey(index)) {
+                    throw new IllegalArgumentException("Damaged encoded state, repeated filter bucket.");
+                }
+                buckets.put(index, new Bucket(filter));
+            } else {
+                throw new IllegalArgumentException("Damaged encoded state, unknown bucket type " + type + ".");
+            }
+        }
+    }
+
+    private static void writeExactIds(CompactStateCodec.StateWriter writer, Map<String, Long> exactIds) {
+        var byTime = new ArrayList<>(exactIds.entrySet());
+        byTime.sort(Map.Entry.comparingByValue());
+        boolean numeric = byTime.stream().allMatch(e -> NUMERIC_ID.matcher(e.getKey()).matches());
+        writer.writeInt(EXACT_BUCKET).writeInt(byTime.size()).writeInt(numeric ? 1 : 0);
+        long previousId = 0;
+        for (Map.Entry<String, Long> entry : byTime) {
+            if (numeric) {
+                long id = Long.parseLong(entry.getKey());
+                writer.writeLong(id - previousId);
+                previousId = id;
+            } else {
+                writer.writeString(entry.getKey());
+            }
+            writer.writeTimestamp(entry.getValue());
+        }
+    }
+
+    private static Map<String, Long> readExactIds(CompactStateCodec.StateReader reader) {
+        int count = reader.readInt();
+        boolean numeric = reader.readInt() == 1;
+        Map<String, Long> ids = new HashMap<>();
+        long previousId = 0;
+        for (int i = 0; i < count; i++) {
+            String id;
+            if (numeric) {
+                previousId += reader.readLong();
+                id = String.valueOf(previousId);
+            } else {
+                id = reader.readString();
+                if (id == null) {
+                    throw new IllegalArgumentException("Damaged encoded state, missing id.");
+                }
+            }
+            ids.put(id, reader.readTimestamp());
+        }
+        return ids;
+    }
+
+    private long bucketIndex(long timestamp) {
+        return Math.floorDiv(timestamp, bucketMillis);
+    }
+
+    private final class Bucket {
+        // id -> timestamp while the bucket is exact, null once it turned into the filter
+        private Map<String, Long> exactIds = new HashMap<>();
+        private BloomFilter filter;
+
+        private Bucket() {
+        }
+
+        private Bucket(BloomFilter filter) {
+            this.exactIds = null;
+            this.filter = filter;
+        }
+
+        private Match match(String id) {
+            if (exactIds != null) {
+                return exactIds.containsKey(id) ? Match.EXACT : Match.NONE;
+            }
+            return filter.mightContain(id) ? Match.PROBABLE : Match.NONE;
+        }
+
+        private void add(String id, long timestamp) {
+            if (exactIds == null) {
+                filter.add(id);
+                return;
+            }
+            exactIds.put(id, timestamp);
+            if (exactIds.size() > filterCapacity) {
+                toFilter();
+            }
+        }
+
+        private void toFilter() {
+            filter = BloomFilter.create(filterCapacity, falsePositiveRate);
+            exactIds.keySet().forEach(filter::add);
+            exactIds = null;
+        }
+
+        private int size() {
+            return exactIds != null ? exactIds.size() : filter.getSize();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.IParseResultSink;
+import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.ClusterValidator;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.ImportValidation;
+
+import static io.everytrade.server.plugin.api.parser.ParsingProblemType.PARSED_ROW_IGNORED;
+import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
+
+/**
+ * Result of converting a single bean to a validated transaction cluster: the cluster, a problem attributed to the
+ * bean's row, or nothing when the bean produces no cluster.
+ */
+final class ClusterConversion {
+    private static final ClusterConversion EMPTY = new ClusterConversion(null, null);
+
+    private final TransactionCluster cluster;
+    private final ParsingProblem problem;
+
+    private ClusterConversion(TransactionCluster cluster, ParsingProblem problem) {
+        this.cluster = cluster;
+        this.problem = problem;
+    }
+
+    static ClusterConversion of(ExchangeBean bean) {
+        try {
+            var cluster = bean.toTransactionCluster();
+            if (cluster == null) {
+                return EMPTY;
+            }
+            ImportValidation.validateClusterOrThrow(cluster);
+            ClusterValidator.clusterValidator(cluster);
+            return new ClusterConversion(cluster, null);
+        } catch (DataIgnoredException e) {
+            return new ClusterConversion(null, new ParsingProblem(bean.rowToString(), e.getMessage(), PARSED_ROW_IGNORED));
+        } catch (Exception e) {
+            if (bean.getRowValues() != null) {
+                return new ClusterConversion(
+                    null, new ParsingProblem(bean.rowToString(), e.getMessage(), ROW_PARSING_FAILED)
+                );
+            }
+            return EMPTY;
+        }
+    }
+
+    void emitTo(IParseResultSink sink) {
+        if (cluster != null) {
+            sink.onTransactionCluster(cluster);
+        } else if (problem != null) {
+            sink.onParsingProblem(problem);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.csv.CsvHeader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Header lookup over all known {@link ExchangeParseDetail}s, built once. Ordered headers are bucketed by separator and
+ * by the case-folded value of their first column, so only the templates whose first column occurs in the header line
+ * are evaluated. Headers which can't be bucketed (regex first column, unordered, empty) are evaluated on every lookup.
+ * The result is the same as scanning all details: the matching header with most columns wins, the first registered
+ * one on a tie.
+ */
+public final class CsvHeaderIndex {
+    private static final char MAGIC_MARK = '\uFEFF';
+    private static final char QUOTE = '"';
+
+    // separator -> folded column value -> candidate headers
+    private final Map<String, Map<String, List<IndexedHeader>>> buckets;
+    private final List<IndexedHeader> alwaysEvaluated;
+
+    private CsvHeaderIndex(Map<String, Map<String, List<IndexedHeader>>> buckets, List<IndexedHeader> alwaysEvaluated) {
+        this.buckets = buckets;
+        this.alwaysEvaluated = alwaysEvaluated;
+    }
+
+    public static CsvHeaderIndex of(List<ExchangeParseDetail> details) {
+        Map<String, Map<String, List<IndexedHeader>>> buckets = new LinkedHashMap<>();
+        List<IndexedHeader> alwaysEvaluated = new ArrayList<>();
+        int order = 0;
+        for (ExchangeParseDetail detail : details) {
+            for (CsvHeader header : detail.getHeaders()) {
+                var indexed = new IndexedHeader(detail, header, order++);
+                List<String> keys = keysOf(header);
+                if (keys == null) {
+                    alwaysEvaluated.add(indexed);
+                    continue;
+                }
+                var separatorBuckets = buckets.computeIfAbsent(header.getSeparator(), s -> new HashMap<>());
+                keys.forEach(key -> separatorBuckets.computeIfAbsent(key, k -> new ArrayList<>()).add(indexed));
+            }
+        }
+        return new CsvHeaderIndex(buckets, alwaysEvaluated);
+    }
+
+    public ExchangeParseDetail find(String headerLine) {
+        if (headerLine == null) {
+            return null;
+        }
+        IndexedHeader best = null;
+        for (Map.Entry<String, Map<String, List<IndexedHeader>>> entry : buckets.entrySet()) {
+            String separator = entry.getKey();
+            Map<String, List<IndexedHeader>> separatorBuckets = entry.getValue();
+            int start = 0;
+            while (true) {
+                int end = headerLine.indexOf(separator, start);
+                String token = headerLine.substring(start, end < 0 ? headerLine.length() : end);
+                best = evaluateToken(token, separatorBuckets, headerLine, best);
+                if (end < 0) {
+                    break;
+                }
+                start = end + separator.length();
+            }
+        }
+        for (IndexedHeader header : alwaysEvaluated) {
+            best = better(best, header, headerLine);
+        }
+        return best == null ? null : best.detail;
+    }
+
+    private static IndexedHeader evaluateToken(
+        String token,
+        Map<String, List<IndexedHeader>> separatorBuckets,
+        String headerLine,
+        IndexedHeader best
+    ) {
+        // a column matches template T when it equals (ignoring case) one of T, "T", <BOM>T and <BOM>"T"
+        String withoutMark = !token.isEmpty() && token.charAt(0) == MAGIC_MARK ? token.substring(1) : token;
+        String[] variants = {token, unquote(token), withoutMark, unquote(withoutMark)};
+        for (int i = 0; i < variants.length; i++) {
+            if (isDuplicate(variants, i)) {
+                continue;
+            }
+            List<IndexedHeader> candidates = separatorBuckets.get(fold(variants[i]));
+            if (candidates == null) {
+                continue;
+            }
+            for (IndexedHeader candidate : candidates) {
+                best = better(best, candidate, headerLine);
+            }
+        }
+        return best;
+    }
+
+    private static IndexedHeader better(IndexedHeader best, IndexedHeader candidate, String headerLine) {
+        if (best != null) {
+            if (candidate.columnCount < best.columnCount) {
+                return best;
+            }
+            if (candidate.columnCount == best.columnCount && candidate.order >= best.order) {
+                return best;
+            }
+        }
+        return candidate.header.matching(headerLine) ? candidate : best;
+    }
+
+    private static List<String> keysOf(CsvHeader header) {
+        List<String> values = header.getHeaderValues();
+        if (values.isEmpty()) {
+            return null;
+        }
+        List<String> candidates = header.isOrdered() ? values.subList(0, 1) : values;
+        List<String> keys = new ArrayList<>(candidates.size());
+        for (String value : candidates) {
+            if (CsvHeader.isHeaderTemplateRegex(value)) {
+                return null;
+            }
+            keys.add(fold(value));
+        }
+        return keys;
+    }
+
+    private static boolean isDuplicate(String[] variants, int index) {
+        for (int i = 0; i < index; i++) {
+            if (variants[i].equals(variants[index])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String unquote(String value) {
+        int length = value.length();
+        if (length >= 2 && value.charAt(0) == QUOTE && value.charAt(length - 1) == QUOTE) {
+            return value.substring(1, length - 1);
+        }
+        return value;
+    }
+
+    // same equivalence as String.equalsIgnoreCase, which compares upper and then lower case of each char
+    private static String fold(String value) {
+        char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    private static final class IndexedHeader {
+        private final ExchangeParseDetail detail;
+        private final CsvHeader header;
+        private final int order;
+        private final int columnCount;
+
+        private IndexedHeader(ExchangeParseDetail detail, CsvHeader header, int order) {
+            this.detail = detail;
+            this.header = header;
+            this.order = order;
+            this.columnCount = header.getHeaderValues().size();
+        }
+    }
+}
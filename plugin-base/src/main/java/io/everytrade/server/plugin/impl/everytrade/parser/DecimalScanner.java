@@ -0,0 +1,127 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+
+import java.math.BigDecimal;
+
+/**
+ * Single pass parsing of numeric cells without intermediate strings. Values with up to 18 digits are built from
+ * the unscaled long and the scale, anything else (exponents, longer values, invalid input) takes the original
+ * string replacing path, so the results and exceptions are the same as before.
+ */
+public final class DecimalScanner {
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private DecimalScanner() {
+    }
+
+    /**
+     * Number with a thousands separator ("2,100.00") or a decimal comma ("2100,00"), see
+     * {@link EverytradeCSVParserValidator#parserNumber(String)}.
+     */
+    public static BigDecimal parseNumber(String value) {
+        if (value == null) {
+            return null;
+        }
+        BigDecimal result = scan(value, false);
+        return result != null ? result : parseNumberByReplacing(value);
+    }
+
+    /**
+     * Number with the characters of {@link ExchangeBean#IGNORED_CHARS_IN_NUMBER} (commas, white spaces, dollar and
+     * euro signs) removed.
+     */
+    public static BigDecimal parseIgnoringSymbols(String value) {
+        BigDecimal result = scan(value, true);
+        return result != null ? result : new BigDecimal(value.replaceAll(ExchangeBean.IGNORED_CHARS_IN_NUMBER, ""));
+    }
+
+    /*
+     * Returns null when the value isn't a plain decimal number fitting into long, the caller then falls back to
+     * the BigDecimal string constructor.
+     */
+    private static BigDecimal scan(String value, boolean ignoreSymbols) {
+        long unscaled = 0;
+        int digits = 0;
+        int dots = 0;
+        int commas = 0;
+        int digitsAfterDot = 0;
+        int digitsAfterComma = 0;
+        boolean negative = false;
+        boolean significant = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_LONG_DIGITS) {
+                    return null;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (dots > 0) {
+                    digitsAfterDot++;
+                }
+                if (commas > 0) {
+                    digitsAfterComma++;
+                }
+            } else if (c == '.') {
+                if (++dots > 1) {
+                    return null;
+                }
+            } else if (ignoreSymbols && isIgnoredSymbol(c)) {
+                continue; // removed, doesn't make the following sign misplaced
+            } else if (c == ',') {
+                commas++;
+            } else if ((c == '-' || c == '+') && !significant) {
+                negative = c == '-';
+            } else {
+                return null;
+            }
+            significant = true;
+        }
+        if (digits == 0) {
+            return null;
+        }
+        final int scale;
+        if (dots == 1) {
+            scale = digitsAfterDot; // commas are thousands separators
+        } else if (commas == 0) {
+            scale = 0;
+        } else if (commas == 1) {
+            scale = digitsAfterComma; // decimal comma
+        } else {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static boolean isIgnoredSymbol(char c) {
+        switch (c) {
+            case ',':
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+            case '$':
+            case '€':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static BigDecimal parseNumberByReplacing(String value) {
+        // e.g. 2,100.00
+        if (value.contains(",") && value.contains(".")) {
+            value = value.replace(",", "");
+        }
+        // e.g. 2100,00
+        if (value.contains(",")) {
+            value = value.replace(",", ".");
+        }
+        if ("0".equals(value)) {
+            return BigDecimal.ZERO;
+        }
+        return new BigDecimal(value);
+    }
+}
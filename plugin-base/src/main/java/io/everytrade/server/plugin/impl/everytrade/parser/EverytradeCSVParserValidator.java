@@ -23,22 +23,11 @@ public class EverytradeCSVParserValidator {
         return value.split("/");
     }
 
+    /**
+     * Parses number with a thousands separator (e.g. 2,100.00) or a decimal comma (e.g. 2100,00).
+     */
     public static BigDecimal parserNumber(String value) {
-        if(value == null) {
-            return null;
-        }
-        // e.g. 2,100.00
-        if (value.contains(",") && value.contains(".")) {
-            value = value.replace(",", "");
-        }
-        // e.g. 2100,00
-        if (value.contains(",")) {
-            value = value.replace(",", ".");
-        }
-        if("0".equals(value)) {
-            return BigDecimal.ZERO;
-        }
-        return new BigDecimal(value);
+        return DecimalScanner.parseNumber(value);
     }
 
     public static String correctCurrency(String value) {
@@ -2,13 +2,14 @@ package io.everytrade.server.plugin.impl.everytrade.parser;
 
 import io.everytrade.server.plugin.api.IPlugin;
 import io.everytrade.server.plugin.api.parser.ICsvParser;
+import io.everytrade.server.plugin.api.parser.IParseResultSink;
 import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.api.parser.ParseResultCollector;
 import io.everytrade.server.plugin.api.parser.ParserDescriptor;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.csv.CsvHeader;
 import io.everytrade.server.plugin.impl.everytrade.WhaleBooksPlugin;
-import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.UnknownHeaderException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.AnycoinExchangeSpecificParserV1;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.BinanceExchangeSpecificParserV4;
@@ -111,24 +112,23 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.okx.OkxWdrlDe
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.simplecoin.SimplecoinBeanV2;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.trezorSuite.TrezorSuiteBeanV1;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.trezorSuite.TrezorSuiteExchangeSpecificParser;
-import io.everytrade.server.plugin.impl.everytrade.parser.utils.ClusterValidator;
-import io.everytrade.server.plugin.impl.everytrade.parser.utils.ImportValidation;
 import io.everytrade.server.plugin.impl.everytrade.parser.utils.ProfileContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.FileInputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static io.everytrade.server.model.SupportedExchange.ANYCOIN;
 import static io.everytrade.server.model.SupportedExchange.AQUANOW;
@@ -169,8 +169,6 @@ import static io.everytrade.server.model.SupportedExchange.SHAKEPAY;
 import static io.everytrade.server.model.SupportedExchange.SIMPLECOIN;
 import static io.everytrade.server.model.SupportedExchange.TREZOR_SUITE;
 import static io.everytrade.server.model.SupportedExchange.WALLET_OF_SATOSHI;
-import static io.everytrade.server.plugin.api.parser.ParsingProblemType.PARSED_ROW_IGNORED;
-import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
 import static java.util.Map.entry;
 import static java.util.stream.Collectors.toMap;
 
@@ -1406,6 +1404,8 @@ public class EverytradeCsvMultiParser implements ICsvParser {
 
     }
 
+    private static final CsvHeaderIndex HEADER_INDEX = CsvHeaderIndex.of(EXCHANGE_PARSE_DETAILS);
+
     public static final ParserDescriptor DESCRIPTOR = new ParserDescriptor(
         ID,
         EXCHANGE_PARSE_DETAILS.stream()
@@ -1417,6 +1417,24 @@ public class EverytradeCsvMultiParser implements ICsvParser {
     );
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final int conversionParallelism;
+    private final ExecutorService conversionExecutor;
+
+    public EverytradeCsvMultiParser() {
+        this(1);
+    }
+
+    /**
+     * @param conversionParallelism number of threads converting parsed rows of single row parsers to transaction
+     *                              clusters; 1 converts on the parsing thread
+     */
+    public EverytradeCsvMultiParser(int conversionParallelism) {
+        if (conversionParallelism < 1) {
+            throw new IllegalArgumentException("Conversion parallelism must be positive: " + conversionParallelism);
+        }
+        this.conversionParallelism = conversionParallelism;
+        this.conversionExecutor = conversionParallelism == 1 ? null : createConversionExecutor(conversionParallelism);
+    }
 
     @Override
     public String getId() {
@@ -1430,6 +1448,45 @@ public class EverytradeCsvMultiParser implements ICsvParser {
 
     @Override
     public ParseResult parse(File file, String header, String profileName) {
+        var collector = new ParseResultCollector();
+        var parserProblems = parseRows(file, header, profileName, collector, true);
+        var rowsResult = collector.toParseResult();
+
+        List<TransactionCluster> transactionClusters = rowsResult.getTransactionClusters();
+        List<ParsingProblem> parsingProblems = new ArrayList<>(parserProblems);
+        parsingProblems.addAll(rowsResult.getParsingProblems());
+        log.info(
+            "{} transaction cluster(s) with {} transactions parsed successfully.",
+            transactionClusters.size(),
+            countTransactions(transactionClusters)
+        );
+        if (!parsingProblems.isEmpty()) {
+            log.warn("{} row(s) not parsed.", parsingProblems.size());
+        }
+
+        return new ParseResult(transactionClusters, parsingProblems);
+    }
+
+    @Override
+    public void parse(File file, String header, String profileName, IParseResultSink sink) {
+        parseRows(file, header, profileName, sink, false).forEach(sink::onParsingProblem);
+    }
+
+    /**
+     * Passes clusters and row conversion problems to the sink as the rows are read. Multi row parsers group the rows
+     * in a bounded window while reading if they support it, otherwise their rows are converted after the whole file
+     * is read.
+     * @param bufferRows read all the rows before converting them, a failed parse can then still be retried with
+     *                   another line separator; rows passed to the sink while reading can't be taken back
+     * @return problems reported by the exchange parser itself, known only after the whole file is read
+     */
+    private List<ParsingProblem> parseRows(
+        File file,
+        String header,
+        String profileName,
+        IParseResultSink sink,
+        boolean bufferRows
+    ) {
         var exchangeParseDetail = findCsvDetailByHeader(header);
         if (exchangeParseDetail == null) {
             throw new UnknownHeaderException(String.format("Unknown header: '%s'", header));
@@ -1437,56 +1494,68 @@ public class EverytradeCsvMultiParser implements ICsvParser {
 
         ProfileContext.set(profileName);
 
-        File fileToProcess = skipPrefixRows(file, exchangeParseDetail);
-        boolean usingTempFile = !file.equals(fileToProcess);
+        int headerLineIndex = findHeaderLineIndex(file, exchangeParseDetail);
 
         try {
             var exchangeParser = exchangeParseDetail.getParserFactory().get();
-            var listBeans = exchangeParser.parse(fileToProcess);
-            var parsingProblems = new ArrayList<>(exchangeParser.getParsingProblems());
-
             if (exchangeParser instanceof IMultiExchangeSpecificParser) {
-                listBeans = ((IMultiExchangeSpecificParser) exchangeParser).convertMultipleRowsToTransactions(listBeans);
-            }
-
-            List<TransactionCluster> transactionClusters = new ArrayList<>();
-            for (ExchangeBean p : listBeans) {
-                try {
-                    var cluster = p.toTransactionCluster();
-                    if (cluster != null) {
-                        ImportValidation.validateClusterOrThrow(cluster);
-                        ClusterValidator.clusterValidator(cluster);
-                        transactionClusters.add(cluster);
-                    }
-                } catch (DataIgnoredException e) {
-                    parsingProblems.add(new ParsingProblem(p.rowToString(), e.getMessage(), PARSED_ROW_IGNORED));
-                } catch (Exception e) {
-                    if (p.getRowValues() != null) {
-                        parsingProblems.add(new ParsingProblem(p.rowToString(), e.getMessage(), ROW_PARSING_FAILED));
-                    }
+                var multiParser = (IMultiExchangeSpecificParser) exchangeParser;
+                IMultiExchangeSpecificParser.StreamingConversion conversion = null;
+                if (!bufferRows) {
+                    conversion = multiParser.startStreamingConversion(
+                        bean -> ClusterConversion.of((ExchangeBean) bean).emitTo(sink)
+                    );
+                }
+                if (conversion != null) {
+                    exchangeParser.parse(file, headerLineIndex, conversion);
+                    conversion.finish();
+                    return new ArrayList<>(exchangeParser.getParsingProblems());
                 }
+                var listBeans = exchangeParser.parse(file, headerLineIndex);
+                var parserProblems = new ArrayList<>(exchangeParser.getParsingProblems());
+                listBeans = multiParser.convertMultipleRowsToTransactions(listBeans);
+                listBeans.forEach(bean -> ClusterConversion.of(bean).emitTo(sink));
+                return parserProblems;
             }
-
-            log.info(
-                "{} transaction cluster(s) with {} transactions parsed successfully.",
-                transactionClusters.size(),
-                countTransactions(transactionClusters)
-            );
-            if (!parsingProblems.isEmpty()) {
-                log.warn("{} row(s) not parsed.", parsingProblems.size());
+            if (bufferRows) {
+                var listBeans = exchangeParser.parse(file, headerLineIndex);
+                var parserProblems = new ArrayList<>(exchangeParser.getParsingProblems());
+                convertRows(listBeans::forEach, profileName, sink);
+                return parserProblems;
             }
-
-            return new ParseResult(transactionClusters, parsingProblems);
+            convertRows(rows -> exchangeParser.parse(file, headerLineIndex, rows), profileName, sink);
+            return new ArrayList<>(exchangeParser.getParsingProblems());
         } finally {
-            if (usingTempFile) {
-                fileToProcess.delete();
-            }
             ProfileContext.clear();
         }
     }
 
+    // converts the rows of a single row parser on this thread, or on the conversion threads when there are some
+    private void convertRows(Consumer<Consumer<ExchangeBean>> rows, String profileName, IParseResultSink sink) {
+        if (conversionExecutor == null) {
+            rows.accept(bean -> ClusterConversion.of(bean).emitTo(sink));
+            return;
+        }
+        var converter = new ParallelClusterConverter(
+            conversionExecutor, profileName, sink, 2 * conversionParallelism
+        );
+        try {
+            rows.accept(converter);
+        } catch (RuntimeException e) {
+            converter.cancel();
+            throw e;
+        }
+        converter.finish();
+    }
 
-    private File skipPrefixRows(File file, ExchangeParseDetail detail) {
+    @Override
+    public void close() {
+        if (conversionExecutor != null) {
+            conversionExecutor.shutdownNow();
+        }
+    }
+
+    private int findHeaderLineIndex(File file, ExchangeParseDetail detail) {
         try (var reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
             for (int i = 0; i <= MAX_PREFIX_ROWS_TO_SCAN; i++) {
                 String line = reader.readLine();
@@ -1495,20 +1564,7 @@ public class EverytradeCsvMultiParser implements ICsvParser {
                 }
                 boolean lineMatchesHeader = detail.getHeaders().stream().anyMatch(h -> h.matching(line));
                 if (lineMatchesHeader) {
-                    if (i == 0) {
-                        return file;
-                    }
-                    File tempFile = File.createTempFile("everytrade_prefix_stripped_", ".csv");
-                    try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
-                        writer.write(line);
-                        writer.newLine();
-                        String dataLine;
-                        while ((dataLine = reader.readLine()) != null) {
-                            writer.write(dataLine);
-                            writer.newLine();
-                        }
-                    }
-                    return tempFile;
+                    return i;
                 }
             }
         } catch (IOException e) {
@@ -1520,15 +1576,20 @@ public class EverytradeCsvMultiParser implements ICsvParser {
     }
 
     private ExchangeParseDetail findCsvDetailByHeader(String header) {
-        return EXCHANGE_PARSE_DETAILS.stream()
-            .flatMap(detail ->
-                detail.getHeaders().stream()
-                    .filter(h -> h.matching(header))
-                    .map(h -> Map.entry(detail, h))
-            )
-            .max(Comparator.comparingInt(e -> e.getValue().getHeaderValues().size()))
-            .map(Map.Entry::getKey)
-            .orElse(null);
+        return HEADER_INDEX.find(header);
+    }
+
+    static List<ExchangeParseDetail> getExchangeParseDetails() {
+        return List.copyOf(EXCHANGE_PARSE_DETAILS);
+    }
+
+    private static ExecutorService createConversionExecutor(int threads) {
+        var threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "csv-cluster-conversion-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private int countTransactions(List<TransactionCluster> transactionClusters) {
@@ -0,0 +1,79 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.List;
+
+/**
+ * Parses dates which may come in several patterns (UTC, date only values mean the start of the day). Rows of one
+ * file share the pattern, so the pattern which matched last is tried first and the other patterns only on its miss.
+ * Patterns are tried without exceptions for the ones which don't match.
+ * <p>
+ * The patterns have to be unambiguous (no value matching more than one of them, like "d/M/yyyy" and "M/d/yyyy"),
+ * otherwise the result would depend on the previously parsed values.
+ */
+public final class InferringDateParser {
+    private final DateTimeFormatter[] formatters;
+    private volatile int inferredIndex = -1;
+
+    public InferringDateParser(List<String> patterns) {
+        this.formatters = patterns.stream()
+            .map(pattern -> DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC))
+            .toArray(DateTimeFormatter[]::new);
+    }
+
+    /**
+     * @return parsed date, null when the value doesn't match any pattern
+     */
+    public Instant parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        int inferred = inferredIndex;
+        if (inferred >= 0) {
+            Instant date = parse(formatters[inferred], value);
+            if (date != null) {
+                return date;
+            }
+        }
+        for (int i = 0; i < formatters.length; i++) {
+            if (i == inferred) {
+                continue;
+            }
+            Instant date = parse(formatters[i], value);
+            if (date != null) {
+                inferredIndex = i;
+                return date;
+            }
+        }
+        return null;
+    }
+
+    private static Instant parse(DateTimeFormatter formatter, String value) {
+        ParsePosition position = new ParsePosition(0);
+        if (formatter.parseUnresolved(value, position) == null || position.getIndex() != value.length()) {
+            return null;
+        }
+        try {
+            // resolving may still fail on invalid values like 32.3.2023
+            TemporalAccessor temporal = formatter.parse(value);
+            if (temporal.isSupported(ChronoField.INSTANT_SECONDS)) {
+                return Instant.from(temporal);
+            }
+            // queried directly, Instant::from would fail with an exception on the date only values
+            LocalDate date = temporal.query(TemporalQueries.localDate());
+            LocalTime time = temporal.query(TemporalQueries.localTime());
+            return (time == null ? date.atStartOfDay() : date.atTime(time)).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
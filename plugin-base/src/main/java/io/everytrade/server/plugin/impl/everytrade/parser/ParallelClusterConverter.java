@@ -0,0 +1,120 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.api.parser.IParseResultSink;
+import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.ProfileContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Converts beans to transaction clusters on an executor. Beans are converted in batches, at most
+ * {@code maxPendingBatches} batches are in flight so memory stays bounded while the file is read. Results are passed
+ * to the sink in the order the beans were accepted, on the thread calling {@link #accept} and {@link #finish}.
+ * A conversion failure is rethrown from {@link #finish}, the row parser would report it as a problem of the row
+ * being read at that moment.
+ */
+final class ParallelClusterConverter implements Consumer<ExchangeBean> {
+    static final int BATCH_SIZE = 256;
+
+    private final ExecutorService executor;
+    private final String profileName;
+    private final IParseResultSink sink;
+    private final int maxPendingBatches;
+    private final Deque<Future<List<ClusterConversion>>> pendingBatches = new ArrayDeque<>();
+    private List<ExchangeBean> batch = new ArrayList<>(BATCH_SIZE);
+    private ParsingProcessException failure;
+
+    ParallelClusterConverter(
+        ExecutorService executor,
+        String profileName,
+        IParseResultSink sink,
+        int maxPendingBatches
+    ) {
+        this.executor = executor;
+        this.profileName = profileName;
+        this.sink = sink;
+        this.maxPendingBatches = maxPendingBatches;
+    }
+
+    @Override
+    public void accept(ExchangeBean bean) {
+        if (failure != null) {
+            return;
+        }
+        batch.add(bean);
+        if (batch.size() == BATCH_SIZE) {
+            submitBatch();
+        }
+    }
+
+    /**
+     * Converts the remaining beans and waits until all results are passed to the sink.
+     */
+    void finish() {
+        if (failure == null && !batch.isEmpty()) {
+            submitBatch();
+        }
+        while (failure == null && !pendingBatches.isEmpty()) {
+            emitOldestBatch();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Drops all the results not passed to the sink yet, e.g. when reading of the file failed.
+     */
+    void cancel() {
+        batch.clear();
+        pendingBatches.forEach(f -> f.cancel(true));
+        pendingBatches.clear();
+    }
+
+    private void submitBatch() {
+        var beans = batch;
+        batch = new ArrayList<>(BATCH_SIZE);
+        pendingBatches.addLast(executor.submit(() -> convert(beans)));
+        while (failure == null && pendingBatches.size() > maxPendingBatches) {
+            emitOldestBatch();
+        }
+    }
+
+    private List<ClusterConversion> convert(List<ExchangeBean> beans) {
+        // the profile is thread bound, worker threads need the profile of the thread which started parsing
+        ProfileContext.set(profileName);
+        try {
+            List<ClusterConversion> conversions = new ArrayList<>(beans.size());
+            for (ExchangeBean bean : beans) {
+                conversions.add(ClusterConversion.of(bean));
+            }
+            return conversions;
+        } finally {
+            ProfileContext.clear();
+        }
+    }
+
+    private void emitOldestBatch() {
+        try {
+            pendingBatches.removeFirst().get().forEach(c -> c.emitTo(sink));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new ParsingProcessException("Conversion of parsed rows interrupted."));
+        } catch (ExecutionException e) {
+            fail(new ParsingProcessException(e.getCause()));
+        }
+    }
+
+    private void fail(ParsingProcessException e) {
+        failure = e;
+        cancel();
+    }
+}
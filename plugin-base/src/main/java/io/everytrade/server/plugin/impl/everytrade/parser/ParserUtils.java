@@ -3,22 +3,47 @@ package io.everytrade.server.plugin.impl.everytrade.parser;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.time.Year;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ParserUtils {
     public static final int DECIMAL_DIGITS = 17;
     public static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
 
+    // patterns come from the code, the bound only protects against patterns built from input data
+    static final int MAX_CACHED_FORMATTERS = 256;
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    private static final String ISO_LOCAL_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final String ISO_LOCAL_T_PATTERN = "yyyy-MM-dd'T'HH:mm:ss";
+    private static final int ISO_LOCAL_LENGTH = ISO_LOCAL_PATTERN.length();
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
     private ParserUtils() {
     }
 
     public static Instant parse(String dateTimePattern, String dateTime) {
-        final DateTimeFormatter dateTimeFormatter =
-            DateTimeFormatter.ofPattern(dateTimePattern, Locale.US).withZone(ZoneOffset.UTC);
+        if (ISO_LOCAL_PATTERN.equals(dateTimePattern) || ISO_LOCAL_T_PATTERN.equals(dateTimePattern)) {
+            Instant instant = parseIsoLocal(dateTime, ISO_LOCAL_PATTERN.equals(dateTimePattern) ? ' ' : 'T', false);
+            if (instant != null) {
+                return instant;
+            }
+        }
+        return formatter(dateTimePattern).parse(dateTime, Instant::from);
+    }
 
-        return dateTimeFormatter.parse(dateTime, Instant::from);
+    /**
+     * Parses ISO-8601 instant like {@link Instant#parse(CharSequence)}, the common "2021-03-24T10:15:30.123Z" form
+     * is parsed without the formatter machinery.
+     */
+    public static Instant parseInstant(String dateTime) {
+        Instant instant = parseIsoLocal(dateTime, 'T', true);
+        return instant != null ? instant : Instant.parse(dateTime);
     }
 
     public static boolean equalsToZero(BigDecimal number) {
@@ -28,4 +53,92 @@ public class ParserUtils {
     public static boolean nullOrZero(BigDecimal number) {
         return number == null || equalsToZero(number);
     }
+
+    static DateTimeFormatter formatter(String dateTimePattern) {
+        DateTimeFormatter formatter = FORMATTERS.get(dateTimePattern);
+        if (formatter != null) {
+            return formatter;
+        }
+        formatter = DateTimeFormatter.ofPattern(dateTimePattern, Locale.US).withZone(ZoneOffset.UTC);
+        if (FORMATTERS.size() < MAX_CACHED_FORMATTERS) {
+            FORMATTERS.putIfAbsent(dateTimePattern, formatter);
+        }
+        return formatter;
+    }
+
+    /*
+     * "yyyy-MM-dd?HH:mm:ss" with optional ".fraction" and "Z" suffix when instantSuffix is set. Returns null for
+     * anything else, including values the formatters would resolve in a non trivial way (e.g. 24:00:00), so the
+     * caller falls back to the formatter with its exact semantics.
+     */
+    private static Instant parseIsoLocal(String value, char dateTimeSeparator, boolean instantSuffix) {
+        if (value == null || value.length() < ISO_LOCAL_LENGTH
+            || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != dateTimeSeparator
+            || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2);
+        int minute = digits(value, 14, 2);
+        int second = digits(value, 17, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 28 && day > lengthOfMonth(year, month)
+            || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+        int nanos = 0;
+        if (instantSuffix) {
+            int end = value.length() - 1;
+            if (value.charAt(end) != 'Z') {
+                return null;
+            }
+            int pos = ISO_LOCAL_LENGTH;
+            if (pos < end) {
+                int fractionDigits = end - pos - 1;
+                if (value.charAt(pos) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                    return null;
+                }
+                nanos = digits(value, pos + 1, fractionDigits);
+                if (nanos < 0) {
+                    return null;
+                }
+                for (int i = fractionDigits; i < 9; i++) {
+                    nanos *= 10;
+                }
+            }
+        } else if (value.length() != ISO_LOCAL_LENGTH) {
+            return null;
+        }
+        long epochDay = epochDay(year, month, day);
+        return Instant.ofEpochSecond(epochDay * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second, nanos);
+    }
+
+    private static int digits(String value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            return Year.isLeap(year) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static long epochDay(int year, int month, int day) {
+        long y = year - 1L;
+        long days = 365 * y + y / 4 - y / 100 + y / 400 + DAYS_BEFORE_MONTH[month - 1] + day - 1;
+        if (month > 2 && Year.isLeap(year)) {
+            days++;
+        }
+        return days - 719_162L; // days from 0001-01-01 to 1970-01-01
+    }
 }
@@ -3,20 +3,18 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 import com.univocity.parsers.common.DataValidationException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceBeanV4;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.BinanceSortedGroupV4;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.QuoteStrippingReader;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.StreamingRowGrouper;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.Reader;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static io.everytrade.server.model.TransactionType.AIRDROP;
@@ -47,6 +45,7 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
     IMultiExchangeSpecificParser<BinanceBeanV4> {
 
     private static final long TRANSACTION_MERGE_TOLERANCE_MS = 1000;
+    private static final int MAX_OPEN_ROWS = 50_000;
     List<BinanceBeanV4> originalRows;
     List<BinanceBeanV4> unSupportedRows = new ArrayList<>();
     List<BinanceBeanV4> rowsWithOneRowTransactionType = new ArrayList<>();
@@ -57,19 +56,8 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
     }
 
     @Override
-    protected void correctFile(File file) {
-        try {
-            // Load the entire content of the file into a String
-            String content = Files.lines(file.toPath(), StandardCharsets.UTF_8).collect(Collectors.joining("\n"));
-
-            // Remove all double quotes from the content
-            content = content.replace("\"", "");
-
-            // rewrite the file with the new content
-            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    protected Reader filterReader(Reader reader) {
+        return new QuoteStrippingReader(reader);
     }
 
     /**
@@ -240,15 +228,78 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
         return row;
     }
 
+    /*
+     * Single stable sort by time and one sweep over the sorted rows: rows of the same time form a group (in the file
+     * order), groups with unsupported rows are flagged and left out, the others are merged within the tolerance.
+     */
     private List<BinanceBeanV4> prepareBeansForTransactionsFromMultiRows(List<BinanceBeanV4> rows) {
-        var groupedRowsByTime = createGroupsFromRows(rowsWithMultipleRowTransactionType);
-        Map<Instant, List<BinanceBeanV4>> sortedGroupsByDate = new TreeMap<>(groupedRowsByTime);
-        // clean groups of rows from unsupported rubbish
-        var cleanGroups = removeGroupsWithUnsupportedRows(sortedGroupsByDate);
-        // merging rows nearly in the same time
-        var mergedGroups = mergeGroupsInTimeWithinTolerance((Map<Instant, List<BinanceBeanV4>>) cleanGroups);
+        List<BinanceBeanV4> sortedRows = new ArrayList<>(rows);
+        sortedRows.sort(Comparator.comparing(BinanceBeanV4::getDate));
+        var merge = new TimeToleranceMerge();
+        int groupStart = 0;
+        for (int i = 1; i <= sortedRows.size(); i++) {
+            Instant time = sortedRows.get(groupStart).getDate();
+            if (i < sortedRows.size() && sortedRows.get(i).getDate().equals(time)) {
+                continue;
+            }
+            List<BinanceBeanV4> group = new ArrayList<>(sortedRows.subList(groupStart, i));
+            if (!setUnsupportedGroup(group)) {
+                merge.add(time, group);
+            }
+            groupStart = i;
+        }
         // creating transaction
-        return createTransactionFromGroupOfRows(mergedGroups);
+        return createTransactionFromGroupOfRows(merge.result);
+    }
+
+    /**
+     * Multi row groups are merged with groups close in time, so the rows are converted in segments separated by a gap
+     * longer than the merge tolerance. One row transactions of a segment follow its multi row transactions like in
+     * {@link #convertMultipleRowsToTransactions(List)}.
+     */
+    @Override
+    public StreamingConversion<BinanceBeanV4> startStreamingConversion(Consumer<? super ExchangeBean> transactions) {
+        List<BinanceBeanV4> oneRowSegment = new ArrayList<>();
+        Runnable flushOneRowSegment = () -> {
+            prepareBeansForTransactionsFromOneRowTypes(oneRowSegment).forEach(transactions);
+            oneRowSegment.clear();
+            unSupportedRows.forEach(r -> {
+                r.setRowNumber(r.getRowId());
+                transactions.accept(r);
+            });
+            unSupportedRows.clear();
+        };
+        var grouper = StreamingRowGrouper.<BinanceBeanV4, Instant>splitOnGap(
+            BinanceBeanV4::getDate,
+            row -> row.getDate().toEpochMilli(),
+            TRANSACTION_MERGE_TOLERANCE_MS,
+            MAX_OPEN_ROWS,
+            groups -> {
+                List<BinanceBeanV4> segment = new ArrayList<>();
+                groups.values().forEach(segment::addAll);
+                prepareBeansForTransactionsFromMultiRows(segment).forEach(transactions);
+                flushOneRowSegment.run();
+            }
+        );
+        return new StreamingConversion<>() {
+            @Override
+            public void accept(BinanceBeanV4 row) {
+                if (!row.isUnsupportedRow() && !row.getOperationType().isMultiRowType) {
+                    oneRowSegment.add(row);
+                    if (oneRowSegment.size() >= MAX_OPEN_ROWS) {
+                        flushOneRowSegment.run();
+                    }
+                } else {
+                    grouper.add(row);
+                }
+            }
+
+            @Override
+            public void finish() {
+                grouper.finish();
+                flushOneRowSegment.run();
+            }
+        };
     }
 
     public List<? extends ExchangeBean> convertMultipleRowsToTransactions(List<BinanceBeanV4> rows) {
@@ -268,24 +319,34 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
     public Map<?, List<BinanceBeanV4>> removeGroupsWithUnsupportedRows(Map<?, List<BinanceBeanV4>> rowGroups) {
         Map<Object, List<BinanceBeanV4>> result = new HashMap<>();
         for (Map.Entry<?, List<BinanceBeanV4>> entry : rowGroups.entrySet()) {
-            var rowsInGroup = entry.getValue();
-            List<BinanceBeanV4> unSupportedRow = rowsInGroup.stream()
-                .filter(r -> r.isUnsupportedRow() == true)
-                .collect(Collectors.toList());
-            var isOneOrMoreUnsupportedRows =
-                !unSupportedRow.isEmpty();
-            if (!isOneOrMoreUnsupportedRows) {
+            if (!setUnsupportedGroup(entry.getValue())) {
                 result.put(entry.getKey(), entry.getValue());
-            } else {
-                var mess = unSupportedRow.get(0).getMessage();
-                var ids = rowsInGroup.stream().map(r -> r.getRowId()).collect(Collectors.toList());
-                var s = BinanceSortedGroupV4.parseIds(ids);
-                setRowsAsUnsupported(rowsInGroup, "One or more rows in group " + "\"rows:" + s + "\" is unsupported;" + mess);
             }
         }
         return result;
     }
 
+    /**
+     * @return true when the group contains an unsupported row, all the rows of the group are set unsupported then
+     */
+    private boolean setUnsupportedGroup(List<BinanceBeanV4> rowsInGroup) {
+        BinanceBeanV4 unsupportedRow = null;
+        for (BinanceBeanV4 row : rowsInGroup) {
+            if (row.isUnsupportedRow()) {
+                unsupportedRow = row;
+                break;
+            }
+        }
+        if (unsupportedRow == null) {
+            return false;
+        }
+        var mess = unsupportedRow.getMessage();
+        var ids = rowsInGroup.stream().map(r -> r.getRowId()).collect(Collectors.toList());
+        var s = BinanceSortedGroupV4.parseIds(ids);
+        setRowsAsUnsupported(rowsInGroup, "One or more rows in group " + "\"rows:" + s + "\" is unsupported;" + mess);
+        return true;
+    }
+
     private void setRowsAsUnsupported(List<BinanceBeanV4> rowsInGroup, String message) {
         rowsInGroup.forEach(r -> {
             r.setMessage(message);
@@ -294,22 +355,20 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
         unSupportedRows.addAll(rowsInGroup);
     }
 
-    private Map<Instant, List<BinanceBeanV4>> mergeGroupsInTimeWithinTolerance(Map<Instant, List<BinanceBeanV4>> groups) {
-        Map<Instant, List<BinanceBeanV4>> result = new HashMap<>();
-        Map<Instant, List<BinanceBeanV4>> sortedMap = groups.entrySet()
-            .stream()
-            .sorted(Comparator.comparing(Map.Entry::getKey))
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
-                (oldValue, newValue) -> oldValue, LinkedHashMap::new));
+    /**
+     * Merges groups of rows nearly in the same time, the groups have to be added in ascending time order.
+     */
+    private static final class TimeToleranceMerge {
+        private final Map<Instant, List<BinanceBeanV4>> result = new HashMap<>();
+        private Instant previousKey = Instant.EPOCH;
+        private List<BinanceBeanV4> previousValues = new ArrayList<>();
 
-        Instant previousKey = Instant.EPOCH;
-        List<BinanceBeanV4> previousValues = new ArrayList<>();
-        for (Map.Entry<Instant, List<BinanceBeanV4>> entry : sortedMap.entrySet()) {
-            var currentKey = entry.getKey();
-            var currentValues = entry.getValue();
-            if (currentValues.stream().anyMatch(op -> op.getOperationType().equals(OPERATION_TYPE_TRANSACTION_REVENUE))){
+        private void add(Instant currentKey, List<BinanceBeanV4> currentValues) {
+            boolean transactionRevenue = currentValues.stream()
+                .anyMatch(op -> op.getOperationType().equals(OPERATION_TYPE_TRANSACTION_REVENUE));
+            if (transactionRevenue) {
                 result.put(currentKey, currentValues);
-                continue;
+                return;
             } else if ((currentKey.minusMillis(TRANSACTION_MERGE_TOLERANCE_MS).equals(previousKey)
                 || currentKey.minusMillis(TRANSACTION_MERGE_TOLERANCE_MS).isBefore(previousKey))) {
 
@@ -320,7 +379,7 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
                     previousValues = currentValues;
                     previousKey = currentKey;
                     previousValues.forEach(r -> r.setDate((Instant) null));
-                    continue;
+                    return;
                 }
                 List<BinanceBeanV4> all = currentValues;
                 all.addAll(previousValues);
@@ -334,7 +393,6 @@ public class BinanceExchangeSpecificParserV4 extends DefaultUnivocityExchangeSpe
             previousKey = currentKey;
             previousValues = currentValues;
         }
-        return result;
     }
 
     @Override
@@ -22,9 +22,14 @@ public class BitfinexExchangeSpecificParser implements IExchangeSpecificParser {
     }
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
+        return parse(inputFile, 0);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, int headerLineIndex) {
         final DefaultUnivocityExchangeSpecificParser parser
             = new DefaultUnivocityExchangeSpecificParser(BitfinexBeanV1.class, delimiter);
-        final List<? extends ExchangeBean> exchangeBeans = parser.parse(inputFile);
+        final List<? extends ExchangeBean> exchangeBeans = parser.parse(inputFile, headerLineIndex);
         final List<BitfinexBeanV1> bitfinexBeans = new ArrayList<>();
         for (ExchangeBean exchangeBean : exchangeBeans) {
             if (!(exchangeBean instanceof BitfinexBeanV1)){
@@ -2,10 +2,12 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.BitflyerBeanV2;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.coibasePro.v2.CoinbaseProSortedGroup;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.StreamingRowGrouper;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.groupingBy;
@@ -13,6 +15,10 @@ import static java.util.stream.Collectors.groupingBy;
 public class BitflyerMultiRowParser extends DefaultUnivocityExchangeSpecificParser implements IExchangeSpecificParser,
     IMultiExchangeSpecificParser<BitflyerBeanV2> {
 
+    // a trade and its fee row are next to each other
+    private static final long GROUPING_WINDOW_ROWS = 1_000;
+    private static final int MAX_OPEN_ROWS = 10_000;
+
     public BitflyerMultiRowParser(Class<? extends ExchangeBean> exchangeBean, String delimiter) {
         super(exchangeBean, delimiter);
     }
@@ -38,14 +44,50 @@ public class BitflyerMultiRowParser extends DefaultUnivocityExchangeSpecificPars
     }
 
     @Override
-    public Map<String, List<BitflyerBeanV2>> createGroupsFromRows(List<BitflyerBeanV2> rows) {
-        return rows.stream().collect(groupingBy( r -> {
-            String orderId = r.getOrderID();
-            if (orderId.endsWith("F")) {
-                orderId = orderId.substring(0,orderId.length()-1);
+    public StreamingConversion<BitflyerBeanV2> startStreamingConversion(Consumer<? super ExchangeBean> transactions) {
+        var grouper = StreamingRowGrouper.<BitflyerBeanV2, String>slidingWindow(
+            BitflyerMultiRowParser::groupKey,
+            BitflyerBeanV2::getRowId,
+            GROUPING_WINDOW_ROWS,
+            MAX_OPEN_ROWS,
+            groups -> {
+                createTransactionFromGroupOfRows(groups).forEach(transactions);
+                unSupportedRows.forEach(r -> {
+                    r.setRowNumber(r.getRowId());
+                    transactions.accept(r);
+                });
+                unSupportedRows.clear();
+            }
+        );
+        return new StreamingConversion<>() {
+            private int rowId = 1;
+
+            @Override
+            public void accept(BitflyerBeanV2 row) {
+                rowId++;
+                row.setRowId(rowId);
+                row.setMessage("Row id " + rowId);
+                grouper.add(row);
             }
-            return orderId;
-        }));
+
+            @Override
+            public void finish() {
+                grouper.finish();
+            }
+        };
+    }
+
+    @Override
+    public Map<String, List<BitflyerBeanV2>> createGroupsFromRows(List<BitflyerBeanV2> rows) {
+        return rows.stream().collect(groupingBy(BitflyerMultiRowParser::groupKey));
+    }
+
+    private static String groupKey(BitflyerBeanV2 row) {
+        String orderId = row.getOrderID();
+        if (orderId.endsWith("F")) {
+            orderId = orderId.substring(0,orderId.length()-1);
+        }
+        return orderId;
     }
 
     @Override
@@ -23,7 +23,12 @@ public class CoinbaseExchangeSpecificParser implements IExchangeSpecificParser {
     }
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
-        final File tempFile = generalizeHeader(inputFile);
+        return parse(inputFile, 0);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, int headerLineIndex) {
+        final File tempFile = generalizeHeader(inputFile, headerLineIndex);
         final DefaultUnivocityExchangeSpecificParser parser
             = new DefaultUnivocityExchangeSpecificParser(CoinbaseBeanV1.class, delimiter);
         final List<? extends ExchangeBean> exchangeBeans = parser.parse(tempFile);
@@ -43,13 +48,15 @@ public class CoinbaseExchangeSpecificParser implements IExchangeSpecificParser {
         return parsingProblems;
     }
 
-    private File generalizeHeader(File file) {
+    private File generalizeHeader(File file, int headerLineIndex) {
         File tempFile = new File(file.getAbsolutePath() + ".tmp");
         try (
             final BufferedReader bufferedReader = new BufferedReader(new FileReader(file));
             final PrintWriter printWriter = new PrintWriter(tempFile)
         ) {
-            bufferedReader.readLine(); // skip file header
+            for (int i = 0; i <= headerLineIndex; i++) {
+                bufferedReader.readLine(); // skip prefix rows and file header
+            }
             printWriter.println(GENERALIZED_HEADER);
             String line;
             while ((line = bufferedReader.readLine()) != null) {
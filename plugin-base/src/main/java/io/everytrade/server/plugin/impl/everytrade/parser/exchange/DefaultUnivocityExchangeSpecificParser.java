@@ -1,23 +1,27 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import com.univocity.parsers.common.Context;
-import com.univocity.parsers.common.processor.BeanListProcessor;
+import com.univocity.parsers.common.ParsingContext;
+import com.univocity.parsers.common.processor.BeanProcessor;
 import com.univocity.parsers.csv.CsvParserSettings;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.api.parser.ParsingProblemType;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.CsvFileUtils;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.LineSeparatorDetector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import static io.everytrade.server.plugin.api.parser.ParsingProblemType.PARSED_ROW_IGNORED;
 import static io.everytrade.server.plugin.api.parser.ParsingProblemType.ROW_PARSING_FAILED;
@@ -27,6 +31,8 @@ public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecific
     protected static final Logger LOG = LoggerFactory.getLogger(DefaultUnivocityExchangeSpecificParser.class);
     protected static final String DEFAULT_DELIMITER = ",";
     protected static final List<String> LINE_SEPARATORS = List.of("\n", "\r", "\r\n");
+    private static final LongAdder DETECTED_SEPARATOR_PARSES = new LongAdder();
+    private static final LongAdder FALLBACK_SEPARATOR_PARSES = new LongAdder();
 
     protected final Class<? extends ExchangeBean> exchangeBean;
     protected final String delimiter;
@@ -57,22 +63,69 @@ public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecific
 
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
+        return parse(inputFile, 0);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, int headerLineIndex) {
+        if (headerLineIndex > 0 && isFileCorrected()) {
+            return IExchangeSpecificParser.super.parse(inputFile, headerLineIndex);
+        }
+        var collector = new BeanCollector(null);
+        parse(inputFile, headerLineIndex, collector);
+        return collector.beans;
+    }
+
+    @Override
+    public void parse(File inputFile, int headerLineIndex, Consumer<? super ExchangeBean> beanConsumer) {
+        if (headerLineIndex > 0 && isFileCorrected()) {
+            IExchangeSpecificParser.super.parse(inputFile, headerLineIndex, beanConsumer);
+            return;
+        }
+        parse(inputFile, headerLineIndex, new BeanCollector(beanConsumer));
+    }
+
+    private void parse(File inputFile, int headerLineIndex, BeanCollector collector) {
         parsingProblems = new ArrayList<>();
         correctFile(inputFile);
 
         if (lineSeparator != null) {
-            return parse(inputFile, createParserSettings(parsingProblems, lineSeparator), exchangeBean);
+            parse(inputFile, headerLineIndex, createParserSettings(parsingProblems, lineSeparator), collector);
+            return;
+        }
+
+        Exception lastException = null;
+        String detectedSeparator = detectLineSeparator(inputFile, headerLineIndex);
+        if (detectedSeparator != null) {
+            try {
+                parse(inputFile, headerLineIndex, createParserSettings(parsingProblems, detectedSeparator), collector);
+                DETECTED_SEPARATOR_PARSES.increment();
+                return;
+            } catch (Exception e) {
+                if (!collector.reset()) {
+                    throw e;
+                }
+                lastException = e;
+                parsingProblems.clear();
+                LOG.warn("Failed to parse file with detected line separator. Trying the other configs...");
+            }
         }
+        FALLBACK_SEPARATOR_PARSES.increment();
 
+        // the detected separator failed already, no need to parse the file with it again
         var settings = LINE_SEPARATORS.stream()
+            .filter(separator -> !separator.equals(detectedSeparator))
             .map(separator -> createParserSettings(parsingProblems, separator))
             .collect(toList());
 
-        Exception lastException = null;
         for (CsvParserSettings s : settings) {
             try {
-                return parse(inputFile, s, exchangeBean);
+                parse(inputFile, headerLineIndex, s, collector);
+                return;
             } catch (Exception e) {
+                if (!collector.reset()) {
+                    throw e;
+                }
                 lastException = e;
                 LOG.error("Failed to parse file. Trying another config...");
             }
@@ -80,14 +133,44 @@ public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecific
         throw new RuntimeException(lastException);
     }
 
+    /**
+     * Number of parses done with the line separator detected from the file sample.
+     */
+    public static long getDetectedSeparatorParseCount() {
+        return DETECTED_SEPARATOR_PARSES.sum();
+    }
+
+    /**
+     * Number of parses which had to try the other line separators, because the separator wasn't detected or parsing
+     * with the detected one failed.
+     */
+    public static long getFallbackSeparatorParseCount() {
+        return FALLBACK_SEPARATOR_PARSES.sum();
+    }
+
+    private String detectLineSeparator(File file, int headerLineIndex) {
+        try (Reader reader = filterReader(CsvFileUtils.openReader(file, headerLineIndex))) {
+            return LineSeparatorDetector.detect(reader);
+        } catch (IOException e) {
+            LOG.warn("Failed to detect line separator: {}", e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public List<ParsingProblem> getParsingProblems() {
         return parsingProblems;
     }
 
-    private <T extends ExchangeBean> List<T> parse(File file, CsvParserSettings parserSettings, Class<T> exchangeBean) {
-        try (Reader reader = new FileReader(file, StandardCharsets.UTF_8)) {
-            BeanListProcessor<T> rowProcessor = new BeanListProcessor<>(exchangeBean) {
+    private <T extends ExchangeBean> void parse(
+        File file,
+        int headerLineIndex,
+        CsvParserSettings parserSettings,
+        Consumer<? super T> beanConsumer
+    ) {
+        try (Reader reader = filterReader(CsvFileUtils.openReader(file, headerLineIndex))) {
+            @SuppressWarnings("unchecked")
+            BeanProcessor<T> rowProcessor = new BeanProcessor<>((Class<T>) exchangeBean) {
                 @Override
                 public T createBean(String[] row, Context context) {
                     rowId++;
@@ -102,11 +185,15 @@ public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecific
                     bean.setRowId(rowId);
                     return bean;
                 }
+
+                @Override
+                public void beanProcessed(T bean, ParsingContext context) {
+                    beanConsumer.accept(bean);
+                }
             };
             parserSettings.setProcessor(rowProcessor);
             com.univocity.parsers.csv.CsvParser parser = new com.univocity.parsers.csv.CsvParser(parserSettings);
             parser.parse(reader);
-            return rowProcessor.getBeans();
         } catch (Exception e) {
             throw new ParsingProcessException(String.format("Parsing error. %s", e.getMessage()));
         }
@@ -148,4 +235,48 @@ public class DefaultUnivocityExchangeSpecificParser implements IExchangeSpecific
     protected void correctFile(File file){
     }
 
+    /**
+     * Hook for parsers which need to fix the file content while it's read, unlike {@link #correctFile(File)} the
+     * file itself is left untouched and the memory use doesn't depend on the file size.
+     */
+    protected Reader filterReader(Reader reader) {
+        return reader;
+    }
+
+    /**
+     * Parsers rewriting the file in {@link #correctFile(File)} have to return true, they get a copy starting at
+     * the header line instead of the original file.
+     */
+    protected boolean isFileCorrected() {
+        return false;
+    }
+
+    /**
+     * Collects the beans, or passes them on when streaming. A failed parsing attempt can be retried with another
+     * configuration only if no bean has been passed on yet.
+     */
+    private static final class BeanCollector implements Consumer<ExchangeBean> {
+        private final Consumer<? super ExchangeBean> target;
+        private final List<ExchangeBean> beans = new ArrayList<>();
+        private int passedCount;
+
+        private BeanCollector(Consumer<? super ExchangeBean> target) {
+            this.target = target;
+        }
+
+        @Override
+        public void accept(ExchangeBean bean) {
+            if (target == null) {
+                beans.add(bean);
+            } else {
+                target.accept(bean);
+                passedCount++;
+            }
+        }
+
+        private boolean reset() {
+            beans.clear();
+            return passedCount == 0;
+        }
+    }
 }
@@ -62,13 +62,8 @@ public abstract class ExchangeBean implements IImportableBean {
     }
 
     public static void validateCurrencyPair(Currency base, Currency quote) {
-        try {
-            var currencyPair = new CurrencyPair(base, quote);
-            if (!CurrencyPair.getTradeablePairs().contains(currencyPair)) {
-                throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(currencyPair.toString()));
-            }
-        } catch (CurrencyPair.FiatCryptoCombinationException | DataValidationException e) {
-            throw new DataValidationException(e.getMessage());
+        if (!CurrencyPair.isTradeable(base, quote)) {
+            throw new DataValidationException(UNSUPPORTED_CURRENCY_PAIR.concat(new CurrencyPair(base, quote).toString()));
         }
     }
 
@@ -125,12 +120,9 @@ public abstract class ExchangeBean implements IImportableBean {
     }
 
     private CurrencyPair findTradablePair(Currency baseCurrency, Currency quoteCurrency) {
-        try {
-            final CurrencyPair currencyPair = new CurrencyPair(baseCurrency, quoteCurrency);
-            return CurrencyPair.getTradeablePairs().contains(currencyPair) ? currencyPair : null;
-        } catch (CurrencyPair.FiatCryptoCombinationException e) {
-            return null;
-        }
+        return CurrencyPair.isTradeable(baseCurrency, quoteCurrency)
+            ? new CurrencyPair(baseCurrency, quoteCurrency)
+            : null;
     }
 
     protected static BigDecimal setAmountFromString(String value) {
@@ -1,11 +1,43 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.CsvFileUtils;
 
 import java.io.File;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IExchangeSpecificParser {
     List<? extends ExchangeBean> parse(File inputFile);
     List<ParsingProblem> getParsingProblems();
+
+    /**
+     * Parses the file starting at the header line, rows in front of it are skipped. Parsers reading the file through
+     * {@link CsvFileUtils#openReader(File, int)} skip them in place, by default a copy from the header line on is
+     * parsed.
+     * @param inputFile CSV file to be parsed
+     * @param headerLineIndex zero based index of the header line
+     */
+    default List<? extends ExchangeBean> parse(File inputFile, int headerLineIndex) {
+        if (headerLineIndex == 0) {
+            return parse(inputFile);
+        }
+        File copy = CsvFileUtils.copyFromLine(inputFile, headerLineIndex);
+        try {
+            return parse(copy);
+        } finally {
+            copy.delete();
+        }
+    }
+
+    /**
+     * Parses the file starting at the header line and passes the beans to the consumer as they are read, in the
+     * order of the file's rows. By default all beans are parsed first and passed afterwards.
+     * @param inputFile CSV file to be parsed
+     * @param headerLineIndex zero based index of the header line
+     * @param beanConsumer receiver of the parsed beans
+     */
+    default void parse(File inputFile, int headerLineIndex, Consumer<? super ExchangeBean> beanConsumer) {
+        parse(inputFile, headerLineIndex).forEach(beanConsumer);
+    }
 }
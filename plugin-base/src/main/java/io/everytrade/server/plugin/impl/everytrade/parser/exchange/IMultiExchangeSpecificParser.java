@@ -2,6 +2,7 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface IMultiExchangeSpecificParser<T extends ExchangeBean> {
 
@@ -12,4 +13,21 @@ public interface IMultiExchangeSpecificParser<T extends ExchangeBean> {
     Map<?, List<T>> removeGroupsWithUnsupportedRows(Map<?, List<T>> rowGroups);
 
     List<T> createTransactionFromGroupOfRows(Map<?, List<T>> groups);
+
+    /**
+     * Conversion of the rows as they are read, for parsers whose groups of rows can be closed before the whole file
+     * is read. The converted transactions and the unsupported rows are passed to the given consumer.
+     *
+     * @return null when the parser needs all the rows at once, {@link #convertMultipleRowsToTransactions} is used then
+     */
+    default StreamingConversion<T> startStreamingConversion(Consumer<? super ExchangeBean> transactions) {
+        return null;
+    }
+
+    interface StreamingConversion<T> extends Consumer<T> {
+        /**
+         * Called after the last row, converts the groups still open.
+         */
+        void finish();
+    }
 }
@@ -16,6 +16,11 @@ public abstract class InvityExchangeSpecificParser extends DefaultUnivocityExcha
         super(exchangeBean, delimiter);
     }
 
+    @Override
+    protected boolean isFileCorrected() {
+        return true;
+    }
+
     /**
      * Strips all double-quote characters from a CSV file.
      * Used for preprocessing Invity CSV exports that have escaped quotes.
@@ -6,12 +6,15 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exchange.binance.v4.Bi
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.kraken.KrakenAssetCodeType;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.kraken.KrakenSortedGroup;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.kraken.KrakenSupportedTypes;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.StreamingRowGrouper;
 import io.everytrade.server.util.serialization.KrakenSubType;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static io.everytrade.server.plugin.impl.everytrade.parser.exchange.kraken.KrakenAssetCodeType.STAKED;
@@ -25,6 +28,12 @@ import static java.util.stream.Collectors.groupingBy;
 public class KrakenExchangeSpecificParser extends DefaultUnivocityExchangeSpecificParser implements IExchangeSpecificParser,
     IMultiExchangeSpecificParser<KrakenBeanV2> {
 
+    // rows of a refid are seconds apart, a deposit may wait for its confirmation for hours; a lone deposit,
+    // withdrawal or transfer row is held for longer so that its duplicate row pairs up
+    private static final long GROUPING_WINDOW_MILLIS = Duration.ofDays(1).toMillis();
+    private static final long HOLD_WINDOW_MILLIS = Duration.ofDays(30).toMillis();
+    private static final int GROUPING_WINDOW_ROWS = 50_000;
+
     public KrakenExchangeSpecificParser(Class<? extends ExchangeBean> exchangeBean, String delimiter) {
         super(exchangeBean, delimiter);
     }
@@ -38,13 +47,7 @@ public class KrakenExchangeSpecificParser extends DefaultUnivocityExchangeSpecif
         List<KrakenBeanV2> result;
         this.rows = setRowsWithIds(rows);
         var groupedRowsByRefId = createGroupsFromRows(rows);
-        // clean groups of rows from unsupported rubbish
-        var cleanUnsupportedGroups = removeGroupsWithUnsupportedRows(groupedRowsByRefId);
-        var rowsWithoutDuplicities = removeDepositWithdrawalDuplicities(cleanUnsupportedGroups);
-
-        // clean group of rows from duplicities
-        // creating transaction
-        List<KrakenBeanV2> rowsReadyForTxs = createTransactionFromGroupOfRows(rowsWithoutDuplicities);
+        List<KrakenBeanV2> rowsReadyForTxs = convertGroups(groupedRowsByRefId);
         result = rowsReadyForTxs;
         unSupportedRows.stream().forEach(r -> {
             r.setRowNumber((long) r.getRowId());
@@ -56,6 +59,53 @@ public class KrakenExchangeSpecificParser extends DefaultUnivocityExchangeSpecif
         return rowsReadyForTxs;
     }
 
+    @Override
+    public StreamingConversion<KrakenBeanV2> startStreamingConversion(Consumer<? super ExchangeBean> transactions) {
+        var grouper = StreamingRowGrouper.<KrakenBeanV2, String>slidingWindow(
+            KrakenBeanV2::getRefid,
+            row -> row.getTime().toEpochMilli(),
+            GROUPING_WINDOW_MILLIS,
+            GROUPING_WINDOW_ROWS,
+            groups -> {
+                convertGroups(groups).forEach(transactions);
+                unSupportedRows.forEach(r -> {
+                    r.setRowNumber((long) r.getRowId());
+                    transactions.accept(r);
+                });
+                unSupportedRows.clear();
+                duplicities.clear();
+            }
+        ).holdingIncomplete(
+            rows -> rows.size() == 1 && KrakenSupportedTypes.DUPLICABLE_TYPES.contains(rows.get(0).getType()),
+            HOLD_WINDOW_MILLIS
+        );
+        return new StreamingConversion<>() {
+            private int rowId = 1;
+
+            @Override
+            public void accept(KrakenBeanV2 row) {
+                rowId++;
+                row.setRowId(rowId);
+                row.setMessage("Row id " + rowId);
+                grouper.add(row);
+            }
+
+            @Override
+            public void finish() {
+                grouper.finish();
+            }
+        };
+    }
+
+    private List<KrakenBeanV2> convertGroups(Map<?, List<KrakenBeanV2>> groupedRowsByRefId) {
+        // clean groups of rows from unsupported rubbish
+        var cleanUnsupportedGroups = removeGroupsWithUnsupportedRows(groupedRowsByRefId);
+        // clean group of rows from duplicities
+        var rowsWithoutDuplicities = removeDepositWithdrawalDuplicities(cleanUnsupportedGroups);
+        // creating transaction
+        return createTransactionFromGroupOfRows(rowsWithoutDuplicities);
+    }
+
     @Override
     public Map<?, List<KrakenBeanV2>> removeGroupsWithUnsupportedRows(Map<?, List<KrakenBeanV2>> rowGroups) {
         Map<Object, List<KrakenBeanV2>> result = new HashMap<>();
@@ -6,6 +6,7 @@ import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.TransactionType;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import lombok.Data;
@@ -56,7 +57,7 @@ public class AnycoinBeanV1 extends ExchangeBean {
 
     @Parsed(field = "Date")
     public void setDate(String date) {
-        this.date = Instant.parse(date);
+        this.date = ParserUtils.parseInstant(date);
     }
 
     @Parsed(field = "Type")
@@ -3,6 +3,7 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean;
 import com.univocity.parsers.annotations.Parsed;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.TransactionType;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.kuCoin.BaseTransactionMapper;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -47,7 +48,7 @@ public class BitcoinRdBeanV1 extends BaseTransactionMapper {
 
     @Parsed(field = "timestamp")
     public void setTimestamp(String timestamp) {
-        this.timestamp = Instant.parse(timestamp);
+        this.timestamp = ParserUtils.parseInstant(timestamp);
     }
 
     @Parsed(field = "symbol")
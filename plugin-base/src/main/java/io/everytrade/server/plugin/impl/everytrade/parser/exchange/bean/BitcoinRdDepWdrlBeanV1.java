@@ -3,6 +3,7 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean;
 import com.univocity.parsers.annotations.Parsed;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.TransactionType;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.kuCoin.BaseTransactionMapper;
 
@@ -71,7 +72,7 @@ public class BitcoinRdDepWdrlBeanV1 extends BaseTransactionMapper {
 
     @Parsed(field = "updated_at")
     public void setUpdated_at(String updated_at) {
-        this.updated_at = Instant.parse(updated_at);
+        this.updated_at = ParserUtils.parseInstant(updated_at);
     }
 
     @Override
@@ -54,7 +54,7 @@ public class BitstampBeanV2 extends ExchangeBean {
     @Parsed(field = "Datetime")
     public void setDatetime(String field) {
         // ISO-8601, e.g. 2025-06-03T09:35:39Z
-        this.dateTime = Instant.parse(field);
+        this.dateTime = ParserUtils.parseInstant(field);
     }
 
     @Parsed(field = "Amount")
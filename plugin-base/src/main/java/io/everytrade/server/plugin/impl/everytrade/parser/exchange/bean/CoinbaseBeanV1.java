@@ -51,6 +51,9 @@ import static java.util.Collections.emptyList;
 
 @ToString
 public class CoinbaseBeanV1 extends ExchangeBean {
+    private static final DateTimeFormatter UTC_TIMESTAMP_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss 'UTC'").withZone(ZoneId.of("UTC"));
+
     private Instant timeStamp;
     private TransactionType transactionType;
     private Currency asset;
@@ -69,11 +72,9 @@ public class CoinbaseBeanV1 extends ExchangeBean {
     @Parsed(field = "Timestamp")
     public void setTimeStamp(String value) {
         try {
-            timeStamp = Instant.parse(value);
+            timeStamp = ParserUtils.parseInstant(value);
         } catch (DateTimeParseException e) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss 'UTC'")
-                .withZone(ZoneId.of("UTC"));
-            timeStamp = Instant.from(formatter.parse(value));
+            timeStamp = Instant.from(UTC_TIMESTAMP_FORMATTER.parse(value));
         }
     }
 
@@ -62,7 +62,7 @@ public class CoinbaseProBeanV1 extends ExchangeBean {
 
     @Parsed(field = "created at")
     public void setCreatedAt(String value) {
-        createdAt = Instant.parse(value);
+        createdAt = ParserUtils.parseInstant(value);
     }
 
     @Parsed(field = "size")
@@ -4,6 +4,7 @@ import com.univocity.parsers.annotations.Parsed;
 import com.univocity.parsers.common.DataValidationException;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.TransactionType;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.kuCoin.BaseTransactionMapper;
 import lombok.experimental.FieldDefaults;
@@ -48,7 +49,7 @@ public class KvaPayBeanV1 extends BaseTransactionMapper {
 
     @Parsed(field = "Date Created")
     public void setDateCreated(String dateCreated) {
-        this.dateCreated = Instant.parse(dateCreated);
+        this.dateCreated = ParserUtils.parseInstant(dateCreated);
     }
 
     @Parsed(field = "Type")
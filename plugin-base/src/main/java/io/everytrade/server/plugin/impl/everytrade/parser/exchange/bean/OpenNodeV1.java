@@ -30,6 +30,8 @@ import static java.util.Collections.emptyList;
 
 @FieldDefaults(level = PRIVATE)
 public class OpenNodeV1 extends ExchangeBean {
+    private static final DateTimeFormatter SETTLEMENT_DATE_TIME_FORMATTER =
+        DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a", Locale.US);
 
     String openNodeId;
     String description;
@@ -84,8 +86,7 @@ public class OpenNodeV1 extends ExchangeBean {
     private Instant combineDateAndTime(String day, String time) {
         try {
             String stringDate = String.format("%s %s", day, time);
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a", Locale.US);
-            final LocalDateTime localDateTime = LocalDateTime.parse(stringDate, formatter);
+            final LocalDateTime localDateTime = LocalDateTime.parse(stringDate, SETTLEMENT_DATE_TIME_FORMATTER);
             return localDateTime.toInstant(ZoneOffset.UTC);
         } catch (Exception e) {
             throw new DataIgnoredException("Wrong settlement date/time format. ");
@@ -28,6 +28,8 @@ import static lombok.AccessLevel.PRIVATE;
 
 @FieldDefaults(level = PRIVATE)
 public class OpenNodeV3 extends ExchangeBean {
+    private static final DateTimeFormatter SETTLEMENT_DATE_TIME_FORMATTER =
+        DateTimeFormatter.ofPattern("MM/dd/yyyy hh-mm a");
 
     String openNodeId;
     String date;
@@ -102,8 +104,7 @@ public class OpenNodeV3 extends ExchangeBean {
     private Instant combineDateAndTime(String day, String time) {
         try {
             String stringDate = String.format("%s %s", day, time);
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy hh-mm a");
-            final LocalDateTime localDateTime = LocalDateTime.parse(stringDate, formatter);
+            final LocalDateTime localDateTime = LocalDateTime.parse(stringDate, SETTLEMENT_DATE_TIME_FORMATTER);
             return localDateTime.toInstant(ZoneOffset.UTC);
         } catch (Exception e) {
             throw new DataIgnoredException("Wrong settlement date/time format. ");
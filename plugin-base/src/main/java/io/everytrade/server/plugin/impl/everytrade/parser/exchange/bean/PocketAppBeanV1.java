@@ -4,6 +4,7 @@ import com.univocity.parsers.annotations.Parsed;
 import com.univocity.parsers.common.DataValidationException;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.TransactionType;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.kuCoin.BaseTransactionMapper;
 import lombok.experimental.FieldDefaults;
 
@@ -39,7 +40,7 @@ public class PocketAppBeanV1 extends BaseTransactionMapper {
 
     @Parsed(field = "date")
     public void setDate(String date) {
-        this.date = Instant.parse(date);
+        this.date = ParserUtils.parseInstant(date);
     }
 
     @Parsed(field = "reference")
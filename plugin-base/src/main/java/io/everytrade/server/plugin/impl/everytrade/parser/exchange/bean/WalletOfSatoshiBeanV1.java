@@ -3,6 +3,7 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean;
 import com.univocity.parsers.annotations.Parsed;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.TransactionType;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.kuCoin.BaseTransactionMapper;
 import lombok.experimental.FieldDefaults;
 
@@ -25,7 +26,7 @@ public class WalletOfSatoshiBeanV1 extends BaseTransactionMapper {
 
     @Parsed(field = "utcDate")
     public void setUtcDate(String utcDate) {
-        this.utcDate = Instant.parse(utcDate);
+        this.utcDate = ParserUtils.parseInstant(utcDate);
     }
 
     @Parsed(field = "type")
@@ -8,6 +8,7 @@ import io.everytrade.server.model.TransactionType;
 import io.everytrade.server.plugin.api.parser.FeeRebateImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.DecimalScanner;
 import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
@@ -69,8 +70,8 @@ public class BinanceBeanV2 extends ExchangeBean {
         pairBase = currencyPair.getBase();
         pairQuote = currencyPair.getQuote();
         this.type = detectTransactionType(type);
-        this.filled = new BigDecimal(filled.replaceAll(IGNORED_CHARS_IN_NUMBER, ""));
-        this.total = new BigDecimal(total.replaceAll(IGNORED_CHARS_IN_NUMBER, ""));
+        this.filled = DecimalScanner.parseIgnoringSymbols(filled);
+        this.total = DecimalScanner.parseIgnoringSymbols(total);
         feeCurrency = findEnds(fee);
         if (feeCurrency != null) {
             final String feeValue = fee.replaceAll("[A-Z,\\s$]", "");
@@ -10,12 +10,11 @@ import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProce
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.UnknownHeaderException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IExchangeSpecificParser;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.CsvFileUtils;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -47,9 +46,14 @@ public class BinanceExchangeSpecificParser implements IExchangeSpecificParser {
     public List<? extends ExchangeBean> parse(
         File inputFile
     ) {
+        return parse(inputFile, 0);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, int headerLineIndex) {
         parsingProblems = new ArrayList<>();
         final List<BinanceBeanV2> binanceBeans = new ArrayList<>();
-        try (Reader reader = new FileReader(inputFile, StandardCharsets.UTF_8)) {
+        try (Reader reader = CsvFileUtils.openReader(inputFile, headerLineIndex)) {
             final CsvParserSettings csvParserSettings = new CsvParserSettings();
             csvParserSettings.getFormat().setDelimiter(delimiter);
             csvParserSettings.setHeaderExtractionEnabled(false);
@@ -10,12 +10,11 @@ import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.IExchangeSpecificParser;
+import io.everytrade.server.plugin.impl.everytrade.parser.utils.CsvFileUtils;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -54,10 +53,15 @@ public class BinanceExchangeSpecificParserV3 implements IExchangeSpecificParser
 
     @Override
     public List<? extends ExchangeBean> parse(File inputFile) {
+        return parse(inputFile, 0);
+    }
+
+    @Override
+    public List<? extends ExchangeBean> parse(File inputFile, int headerLineIndex) {
         parsingProblems = new ArrayList<>();
         final List<BinanceBeanV3> binanceBeans = new ArrayList<>();
 
-        try (Reader reader = new FileReader(inputFile, StandardCharsets.UTF_8)) {
+        try (Reader reader = CsvFileUtils.openReader(inputFile, headerLineIndex)) {
             final CsvParserSettings csvParserSettings = new CsvParserSettings();
             csvParserSettings.getFormat().setDelimiter(delimiter);
             csvParserSettings.setHeaderExtractionEnabled(false);
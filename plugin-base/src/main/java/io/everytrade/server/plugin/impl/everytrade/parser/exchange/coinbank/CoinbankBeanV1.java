@@ -7,6 +7,7 @@ import io.everytrade.server.model.TransactionType;
 import io.everytrade.server.plugin.api.parser.FeeRebateImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.DataIgnoredException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import lombok.Data;
@@ -77,7 +78,7 @@ public class CoinbankBeanV1 extends ExchangeBean implements Cloneable {
 
     @Parsed(field = "Datum")
     public void setDate(String date) {
-        this.date = Instant.parse(date + "Z");
+        this.date = ParserUtils.parseInstant(date + "Z");
     }
 
     @Parsed(field = {"Směr", "Operace"})
@@ -1,7 +1,9 @@
 package io.everytrade.server.plugin.impl.everytrade.parser.exchange.everytrade;
 
+import com.univocity.parsers.annotations.Convert;
 import com.univocity.parsers.annotations.Parsed;
 import com.univocity.parsers.common.DataValidationException;
+import com.univocity.parsers.conversions.Conversion;
 import io.everytrade.server.model.Currency;
 import io.everytrade.server.model.CurrencyPair;
 import io.everytrade.server.model.TransactionType;
@@ -9,18 +11,13 @@ import io.everytrade.server.plugin.api.parser.FeeRebateImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.impl.everytrade.parser.EverytradeCSVParserValidator;
+import io.everytrade.server.plugin.impl.everytrade.parser.InferringDateParser;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
 import lombok.ToString;
 import lombok.experimental.FieldDefaults;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -91,38 +88,15 @@ public class EveryTradeBeanV3_2 extends ExchangeBean {
         "yyyy/M/d"
     );
 
-    private static final List<DateTimeFormatter> DATE_FORMATTERS = DATE_PATTERNS.stream()
-        .map(pattern -> DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC))
-        .toList();
-
     @Parsed(field = "UID")
     public void setUid(String value) {
         uid = value;
     }
 
     @Parsed(field = "DATE")
-    public void setDate(String value) {
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                TemporalAccessor temporal = formatter.parseBest(
-                    value,
-                    Instant::from,
-                    LocalDateTime::from,
-                    LocalDate::from
-                );
-                if (temporal instanceof Instant) {
-                    date = (Instant) temporal;
-                } else if (temporal instanceof LocalDateTime) {
-                    date = ((LocalDateTime) temporal).toInstant(ZoneOffset.UTC);
-                } else if (temporal instanceof LocalDate) {
-                    date = ((LocalDate) temporal).atStartOfDay(ZoneOffset.UTC).toInstant();
-                }
-                return;
-            } catch (DateTimeParseException e) {
-                // Continue to next formatter
-            }
-        }
-        throw new IllegalArgumentException("Invalid date format: " + value);
+    @Convert(conversionClass = DateConversion.class)
+    public void setDate(Instant value) {
+        date = value;
     }
 
     @Parsed(field = "SYMBOL")
@@ -400,5 +374,25 @@ public class EveryTradeBeanV3_2 extends ExchangeBean {
         }
     }
 
+    /**
+     * Univocity creates the conversion for each parse, so the date pattern inferred from the rows of one file isn't
+     * shared with other files parsed at the same time.
+     */
+    public static class DateConversion implements Conversion<String, Instant> {
+        private final InferringDateParser dateParser = new InferringDateParser(DATE_PATTERNS);
+
+        @Override
+        public Instant execute(String input) {
+            Instant date = dateParser.parse(input);
+            if (date == null) {
+                throw new IllegalArgumentException("Invalid date format: " + input);
+            }
+            return date;
+        }
 
+        @Override
+        public String revert(Instant input) {
+            return input == null ? null : input.toString();
+        }
+    }
 }
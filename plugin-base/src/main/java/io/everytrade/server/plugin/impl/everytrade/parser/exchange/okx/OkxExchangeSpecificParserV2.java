@@ -176,6 +176,11 @@ public class OkxExchangeSpecificParserV2 extends DefaultUnivocityExchangeSpecifi
         tx.getFeeTransactions().add(feeTx);
     }
 
+    @Override
+    protected boolean isFileCorrected() {
+        return true;
+    }
+
     @Override
     protected void correctFile(File file) {
         removeFirstLine(file);
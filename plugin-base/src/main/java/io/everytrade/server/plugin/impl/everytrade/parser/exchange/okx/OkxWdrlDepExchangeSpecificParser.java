@@ -13,6 +13,11 @@ public class OkxWdrlDepExchangeSpecificParser extends DefaultUnivocityExchangeSp
         super(exchangeBean, delimiter);
     }
 
+    @Override
+    protected boolean isFileCorrected() {
+        return true;
+    }
+
     @Override
     protected void correctFile(File file) {
         OkxExchangeSpecificParserV2.removeFirstLine(file);
@@ -15,6 +15,19 @@ import java.util.Locale;
 
 public class TrezorSuiteSortedGroup {
 
+    private static final List<DateTimeFormatter> DATE_FORMATTERS = List.of(
+        DateTimeFormatter.ofPattern("d.M.yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("d. M. yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("d/M/yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("M/d/yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("d-M-yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("yyyy.M.d", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("yyyy-M-d", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("yyyy/M/d", Locale.ENGLISH)
+    );
+    private static final DateTimeFormatter TIME_24H_FORMATTER = DateTimeFormatter.ofPattern("H:mm:ss");
+    private static final DateTimeFormatter TIME_12H_FORMATTER = DateTimeFormatter.ofPattern("h:mm:ss a", Locale.ENGLISH);
+
     public static TrezorSuiteBeanV1 createWithdrawalTx(TrezorSuiteBeanV1 row) {
         return createTransaction(row, TransactionType.WITHDRAWAL);
     }
@@ -57,20 +70,9 @@ public class TrezorSuiteSortedGroup {
     private static Instant parseDateTime(String date, String time) {
         String normalizedDate = date.trim();
 
-        List<DateTimeFormatter> formatters = List.of(
-            DateTimeFormatter.ofPattern("d.M.yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("d. M. yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("d/M/yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("M/d/yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("d-M-yyyy", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("yyyy.M.d", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("yyyy-M-d", Locale.ENGLISH),
-            DateTimeFormatter.ofPattern("yyyy/M/d", Locale.ENGLISH)
-        );
-
         LocalDate localDate = null;
 
-        for (DateTimeFormatter formatter : formatters) {
+        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
             try {
                 localDate = LocalDate.parse(normalizedDate, formatter);
                 break;
@@ -88,9 +90,9 @@ public class TrezorSuiteSortedGroup {
 
         LocalTime localTime;
         try {
-            localTime = LocalTime.parse(timePart, DateTimeFormatter.ofPattern("H:mm:ss"));
+            localTime = LocalTime.parse(timePart, TIME_24H_FORMATTER);
         } catch (DateTimeParseException e) {
-            localTime = LocalTime.parse(timePart, DateTimeFormatter.ofPattern("h:mm:ss a", Locale.ENGLISH));
+            localTime = LocalTime.parse(timePart, TIME_12H_FORMATTER);
         }
 
         ZonedDateTime zonedDateTime = ZonedDateTime.of(
@@ -0,0 +1,64 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.utils;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public final class CsvFileUtils {
+
+    private CsvFileUtils() {
+    }
+
+    /**
+     * Opens the file for reading positioned at the given line, the lines before it (e.g. a preamble in front of
+     * the header) are skipped without copying the file.
+     */
+    public static BufferedReader openReader(File file, int firstLineIndex) throws IOException {
+        // decoder replaces malformed input like FileReader does, Files.newBufferedReader would fail on it
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)
+        );
+        try {
+            for (int i = 0; i < firstLineIndex; i++) {
+                if (reader.readLine() == null) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    /**
+     * Copies the file from the given line on into a temp file. Only for parsers which have to rewrite the whole file
+     * anyway; the caller is responsible for deleting the copy.
+     */
+    public static File copyFromLine(File file, int firstLineIndex) {
+        File tempFile = null;
+        try (BufferedReader reader = openReader(file, firstLineIndex)) {
+            tempFile = File.createTempFile("everytrade_prefix_stripped_", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            return tempFile;
+        } catch (IOException e) {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            throw new ParsingProcessException(String.format("Failed to skip prefix rows: %s", e.getMessage()));
+        }
+    }
+}
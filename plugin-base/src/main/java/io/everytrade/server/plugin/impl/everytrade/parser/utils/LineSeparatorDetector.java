@@ -0,0 +1,48 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Detects the line separator of a CSV file from a bounded sample of its beginning. Line breaks inside quoted values
+ * and a leading byte order mark are ignored.
+ */
+public final class LineSeparatorDetector {
+    public static final int SAMPLE_SIZE = 64 * 1024;
+
+    private static final char MAGIC_MARK = '\uFEFF';
+    private static final char QUOTE = '"';
+
+    private LineSeparatorDetector() {
+    }
+
+    /**
+     * @return "\n", "\r" or "\r\n", null when no line break was found within the sample
+     */
+    public static String detect(Reader reader) throws IOException {
+        char[] sample = new char[SAMPLE_SIZE + 1]; // one more char to tell "\r" from "\r\n" at the sample end
+        int length = 0;
+        int read;
+        while (length < sample.length && (read = reader.read(sample, length, sample.length - length)) != -1) {
+            length += read;
+        }
+        return detect(sample, length);
+    }
+
+    static String detect(char[] sample, int length) {
+        boolean quoted = false;
+        int start = length > 0 && sample[0] == MAGIC_MARK ? 1 : 0;
+        int end = Math.min(length, SAMPLE_SIZE);
+        for (int i = start; i < end; i++) {
+            char c = sample[i];
+            if (c == QUOTE) {
+                quoted = !quoted;
+            } else if (!quoted && c == '\n') {
+                return "\n";
+            } else if (!quoted && c == '\r') {
+                return i + 1 < length && sample[i + 1] == '\n' ? "\r\n" : "\r";
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.utils;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Drops all double quote characters of the underlying reader on the fly, for exports where the quotes are broken
+ * (e.g. whole rows wrapped in doubled quotes) and can't be handled by the CSV parser.
+ */
+public final class QuoteStrippingReader extends FilterReader {
+    private static final char QUOTE = '"';
+
+    public QuoteStrippingReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c;
+        do {
+            c = in.read();
+        } while (c == QUOTE);
+        return c;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int kept;
+        do {
+            int read = in.read(buffer, offset, length);
+            if (read == -1) {
+                return -1;
+            }
+            kept = 0;
+            for (int i = offset; i < offset + read; i++) {
+                char c = buffer[i];
+                if (c != QUOTE) {
+                    buffer[offset + kept++] = c;
+                }
+            }
+        } while (kept == 0); // a chunk of quotes only is not the end of the stream
+        return kept;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && read() != -1) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+}
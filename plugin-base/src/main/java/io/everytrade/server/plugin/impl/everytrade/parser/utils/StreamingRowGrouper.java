@@ -0,0 +1,282 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Groups rows of a file as they are read, keeping only a bounded window of open groups in memory. Exchange exports
+ * are ordered by time and the rows of one group lie close to each other, so a group can be closed once the rows
+ * read have moved far enough from it; closed groups are passed to the consumer right away.
+ * <p>
+ * The distance of rows is measured on a coordinate of the row, e.g. its time in millis or its row number, in both
+ * directions so that files ordered from the newest rows work as well. The number of rows held is limited too, when
+ * the limit is reached the oldest groups are closed regardless of their distance.
+ * <p>
+ * Rows arriving for an already closed group (stragglers) can't be added to it anymore. They are grouped aside and
+ * passed to the consumer by {@link #finish()}, after all the regular groups. Groups known to be incomplete, e.g. the
+ * first row of a pair whose second row may come much later, can be held open for longer instead, see
+ * {@link #holdingIncomplete(Predicate, long)}.
+ *
+ * @param <T> row type
+ * @param <K> group key type
+ */
+public final class StreamingRowGrouper<T, K> {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingRowGrouper.class);
+    private static final int MAX_REMEMBERED_CLOSED_KEYS = 65_536;
+
+    private final Function<? super T, ? extends K> keyFunction;
+    private final ToLongFunction<? super T> coordinateFunction;
+    private final long maxDistance;
+    private final int maxOpenRows;
+    private final boolean splitOnGap;
+    private final Consumer<Map<K, List<T>>> closedGroupsConsumer;
+
+    // access ordered, the least recently extended group first
+    private final LinkedHashMap<K, OpenGroup<T>> openGroups = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, Boolean> closedKeys = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Boolean> eldest) {
+            return size() > MAX_REMEMBERED_CLOSED_KEYS;
+        }
+    };
+    private final Map<K, List<T>> stragglers = new LinkedHashMap<>();
+    // in the order they were held
+    private final Map<K, OpenGroup<T>> heldGroups = new LinkedHashMap<>();
+    private Predicate<? super List<T>> incomplete = rows -> false;
+    private long maxHoldDistance;
+    private boolean finishing;
+    private int openRows;
+    private int heldRows;
+    private long previousCoordinate;
+    private boolean hasPrevious;
+    private long stragglerCount;
+    private long forcedCloseCount;
+    private long releasedHeldCount;
+
+    private StreamingRowGrouper(
+        Function<? super T, ? extends K> keyFunction,
+        ToLongFunction<? super T> coordinateFunction,
+        long maxDistance,
+        int maxOpenRows,
+        boolean splitOnGap,
+        Consumer<Map<K, List<T>>> closedGroupsConsumer
+    ) {
+        if (maxDistance < 0 || maxOpenRows <= 0) {
+            throw new IllegalArgumentException(
+                String.format("Invalid grouping window distance %s or row count %s.", maxDistance, maxOpenRows)
+            );
+        }
+        this.keyFunction = Objects.requireNonNull(keyFunction);
+        this.coordinateFunction = Objects.requireNonNull(coordinateFunction);
+        this.maxDistance = maxDistance;
+        this.maxOpenRows = maxOpenRows;
+        this.splitOnGap = splitOnGap;
+        this.closedGroupsConsumer = Objects.requireNonNull(closedGroupsConsumer);
+    }
+
+    /**
+     * Every group is closed on its own once the current row is more than {@code maxDistance} away from the last row
+     * of the group.
+     */
+    public static <T, K> StreamingRowGrouper<T, K> slidingWindow(
+        Function<? super T, ? extends K> keyFunction,
+        ToLongFunction<? super T> coordinateFunction,
+        long maxDistance,
+        int maxOpenRows,
+        Consumer<Map<K, List<T>>> closedGroupsConsumer
+    ) {
+        return new StreamingRowGrouper<>(
+            keyFunction, coordinateFunction, maxDistance, maxOpenRows, false, closedGroupsConsumer
+        );
+    }
+
+    /**
+     * All open groups are closed together once two consecutive rows are more than {@code maxDistance} apart, for
+     * parsers which relate neighbouring groups to each other (e.g. merge groups close in time).
+     */
+    public static <T, K> StreamingRowGrouper<T, K> splitOnGap(
+        Function<? super T, ? extends K> keyFunction,
+        ToLongFunction<? super T> coordinateFunction,
+        long maxDistance,
+        int maxOpenRows,
+        Consumer<Map<K, List<T>>> closedGroupsConsumer
+    ) {
+        return new StreamingRowGrouper<>(
+            keyFunction, coordinateFunction, maxDistance, maxOpenRows, true, closedGroupsConsumer
+        );
+    }
+
+    /**
+     * Groups matching the predicate when they would be closed are held aside instead, outside of the window. A held
+     * group is passed on once a further row makes it no longer match, or unchanged like by {@link #finish()} once the
+     * current row is more than {@code maxHoldDistance} away from its last row or the held rows exceed the row limit
+     * of the window, the longest held groups first; rows of such a group coming later are stragglers.
+     */
+    public StreamingRowGrouper<T, K> holdingIncomplete(Predicate<? super List<T>> incomplete, long maxHoldDistance) {
+        if (maxHoldDistance < maxDistance) {
+            throw new IllegalArgumentException(String.format(
+                "Hold distance %s shorter than the grouping window distance %s.", maxHoldDistance, maxDistance
+            ));
+        }
+        this.incomplete = Objects.requireNonNull(incomplete);
+        this.maxHoldDistance = maxHoldDistance;
+        return this;
+    }
+
+    public void add(T row) {
+        K key = keyFunction.apply(row);
+        long coordinate = coordinateFunction.applyAsLong(row);
+        if (splitOnGap && hasPrevious && (Math.abs(coordinate - previousCoordinate) > maxDistance
+            || openRows >= maxOpenRows)) {
+            if (openRows >= maxOpenRows) {
+                forcedCloseCount++;
+            }
+            emit(closeAll());
+        }
+        previousCoordinate = coordinate;
+        hasPrevious = true;
+
+        OpenGroup<T> held = heldGroups.get(key);
+        if (held != null) {
+            held.rows.add(row);
+            held.lastCoordinate = coordinate;
+            heldRows++;
+            if (!incomplete.test(held.rows)) {
+                heldGroups.remove(key);
+                heldRows -= held.rows.size();
+                closedKeys.put(key, Boolean.TRUE);
+                emit(Map.of(key, held.rows));
+            }
+            emit(releaseHeld(coordinate));
+            return;
+        }
+        if (closedKeys.containsKey(key)) {
+            stragglers.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+            stragglerCount++;
+            return;
+        }
+        OpenGroup<T> group = openGroups.computeIfAbsent(key, k -> new OpenGroup<>());
+        group.rows.add(row);
+        group.lastCoordinate = coordinate;
+        openRows++;
+
+        if (!splitOnGap) {
+            emit(closeExpired(coordinate));
+        }
+        emit(releaseHeld(coordinate));
+    }
+
+    /**
+     * Closes all open groups and passes the stragglers on.
+     */
+    public void finish() {
+        finishing = true;
+        emit(closeAll());
+        if (!heldGroups.isEmpty()) {
+            Map<K, List<T>> groups = new LinkedHashMap<>();
+            heldGroups.forEach((key, group) -> groups.put(key, group.rows));
+            heldGroups.clear();
+            heldRows = 0;
+            emit(groups);
+        }
+        if (!stragglers.isEmpty()) {
+            LOG.warn(
+                "{} row(s) of {} group(s) came after their group was closed, they are converted separately.",
+                stragglerCount, stragglers.size()
+            );
+            var groups = new LinkedHashMap<>(stragglers);
+            stragglers.clear();
+            emit(groups);
+        }
+        if (forcedCloseCount > 0) {
+            LOG.warn("Grouping window of {} rows was full {} time(s).", maxOpenRows, forcedCloseCount);
+        }
+        if (releasedHeldCount > 0) {
+            LOG.warn("{} incomplete group(s) passed on before the end of the file.", releasedHeldCount);
+        }
+    }
+
+    public int getOpenRowCount() {
+        return openRows;
+    }
+
+    public long getStragglerCount() {
+        return stragglerCount;
+    }
+
+    private Map<K, List<T>> closeExpired(long coordinate) {
+        Map<K, List<T>> closed = new LinkedHashMap<>();
+        Iterator<Map.Entry<K, OpenGroup<T>>> iterator = openGroups.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, OpenGroup<T>> entry = iterator.next();
+            boolean full = openRows > maxOpenRows;
+            if (!full && Math.abs(coordinate - entry.getValue().lastCoordinate) <= maxDistance) {
+                break;
+            }
+            if (full) {
+                forcedCloseCount++;
+            }
+            iterator.remove();
+            close(entry.getKey(), entry.getValue(), closed);
+        }
+        return closed;
+    }
+
+    private Map<K, List<T>> releaseHeld(long coordinate) {
+        Map<K, List<T>> released = new LinkedHashMap<>();
+        Iterator<Map.Entry<K, OpenGroup<T>>> iterator = heldGroups.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, OpenGroup<T>> entry = iterator.next();
+            boolean full = heldRows > maxOpenRows;
+            if (!full && Math.abs(coordinate - entry.getValue().lastCoordinate) <= maxHoldDistance) {
+                break;
+            }
+            iterator.remove();
+            heldRows -= entry.getValue().rows.size();
+            released.put(entry.getKey(), entry.getValue().rows);
+            closedKeys.put(entry.getKey(), Boolean.TRUE);
+            releasedHeldCount++;
+        }
+        return released;
+    }
+
+    private Map<K, List<T>> closeAll() {
+        Map<K, List<T>> closed = new LinkedHashMap<>();
+        openGroups.forEach((key, group) -> close(key, group, closed));
+        openGroups.clear();
+        return closed;
+    }
+
+    private void close(K key, OpenGroup<T> group, Map<K, List<T>> closed) {
+        openRows -= group.rows.size();
+        if (!finishing && incomplete.test(group.rows)) {
+            heldGroups.put(key, group);
+            heldRows += group.rows.size();
+            return;
+        }
+        closed.put(key, group.rows);
+        closedKeys.put(key, Boolean.TRUE);
+    }
+
+    private void emit(Map<K, List<T>> groups) {
+        if (!groups.isEmpty()) {
+            closedGroupsConsumer.accept(groups);
+        }
+    }
+
+    private static final class OpenGroup<T> {
+        private final List<T> rows = new ArrayList<>();
+        private long lastCoordinate;
+    }
+}
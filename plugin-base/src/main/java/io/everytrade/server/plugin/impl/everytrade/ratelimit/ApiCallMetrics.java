@@ -0,0 +1,106 @@
+package io.everytrade.server.plugin.impl.everytrade.ratelimit;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the API calls made through {@link ApiRateLimiter}, one instance per exchange (or API) name.
+ */
+public final class ApiCallMetrics {
+    private static final Map<String, ApiCallMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final String exchange;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rateLimitedResponses = new LongAdder();
+    private final LongAdder serverErrorResponses = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder throttledNanos = new LongAdder();
+
+    private ApiCallMetrics(String exchange) {
+        this.exchange = exchange;
+    }
+
+    public static ApiCallMetrics forExchange(String exchange) {
+        return METRICS.computeIfAbsent(exchange, ApiCallMetrics::new);
+    }
+
+    /**
+     * @return metrics of all exchanges called so far, sorted by the exchange name
+     */
+    public static Map<String, ApiCallMetrics> all() {
+        return new TreeMap<>(METRICS);
+    }
+
+    void onCall() {
+        calls.increment();
+    }
+
+    void onRetry() {
+        retries.increment();
+    }
+
+    void onRateLimited() {
+        rateLimitedResponses.increment();
+    }
+
+    void onServerError() {
+        serverErrorResponses.increment();
+    }
+
+    void onFailure() {
+        failedCalls.increment();
+    }
+
+    void onThrottled(long nanos) {
+        throttledNanos.add(nanos);
+    }
+
+    public String getExchange() {
+        return exchange;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getRateLimitedResponses() {
+        return rateLimitedResponses.sum();
+    }
+
+    public long getServerErrorResponses() {
+        return serverErrorResponses.sum();
+    }
+
+    public long getFailedCalls() {
+        return failedCalls.sum();
+    }
+
+    /**
+     * @return total time the callers waited for a permit
+     */
+    public Duration getThrottledTime() {
+        return Duration.ofNanos(throttledNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: calls=%d, retries=%d, rateLimited=%d, serverErrors=%d, failed=%d, throttled=%d ms",
+            exchange,
+            getCalls(),
+            getRetries(),
+            getRateLimitedResponses(),
+            getServerErrorResponses(),
+            getFailedCalls(),
+            getThrottledTime().toMillis()
+        );
+    }
+}
@@ -0,0 +1,205 @@
+package io.everytrade.server.plugin.impl.everytrade.ratelimit;
+
+import org.knowm.xchange.exceptions.RateLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import si.mazi.rescu.HttpResponseAware;
+import si.mazi.rescu.HttpStatusException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Paces and retries the API calls of one credential at one exchange. All downloads using the credential share the
+ * limiter, so the configured rate holds for the credential no matter how many downloads run.
+ * <p>
+ * Calls failing with HTTP 408, 429 or 5xx (or xchange's {@link RateLimitExceededException}) are retried with jittered
+ * exponential backoff. A delay requested by the API in {@code Retry-After} or a rate limit reset header takes
+ * precedence and pauses the whole credential, not just the failed call.
+ */
+public final class ApiRateLimiter {
+    private static final Logger LOG = LoggerFactory.getLogger(ApiRateLimiter.class);
+    private static final Map<String, ApiRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+    // limiters of credentials not used for a while are dropped, so that the map doesn't grow with every API key seen
+    static final Duration IDLE_LIMITER_EVICTION = Duration.ofMinutes(10);
+    private static final long EVICTION_PERIOD_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final AtomicLong LAST_EVICTION_NANOS = new AtomicLong(System.nanoTime());
+
+    static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(408, HTTP_TOO_MANY_REQUESTS, 500, 502, 503, 504);
+    static final int MAX_ATTEMPTS = 5;
+    static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(60);
+
+    private final ApiCallMetrics metrics;
+    private final TokenBucket bucket;
+    private final NanoSleeper sleeper;
+
+    ApiRateLimiter(ApiCallMetrics metrics, TokenBucket bucket, NanoSleeper sleeper) {
+        this.metrics = metrics;
+        this.bucket = bucket;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * @param exchange         name of the exchange or API, the metrics are collected under it
+     * @param credential       API key or other credential the exchange counts the requests by
+     * @param permitsPerSecond sustained request rate
+     * @param burst            requests which may be sent at once after an idle period
+     * @return limiter shared by all callers of the exchange and credential, the rate of its first caller applies
+     */
+    public static ApiRateLimiter forCredential(String exchange, String credential, double permitsPerSecond, int burst) {
+        long now = System.nanoTime();
+        long lastEviction = LAST_EVICTION_NANOS.get();
+        if (now - lastEviction >= EVICTION_PERIOD_NANOS && LAST_EVICTION_NANOS.compareAndSet(lastEviction, now)) {
+            evictIdleLimiters(IDLE_LIMITER_EVICTION.toNanos());
+        }
+        return LIMITERS.compute(exchange + '\n' + credential, (key, limiter) -> {
+            if (limiter == null) {
+                limiter = new ApiRateLimiter(
+                    ApiCallMetrics.forExchange(exchange),
+                    new TokenBucket(permitsPerSecond, burst, System::nanoTime),
+                    TimeUnit.NANOSECONDS::sleep
+                );
+            }
+            limiter.bucket.touch();
+            return limiter;
+        });
+    }
+
+    /**
+     * Drops the limiters with a full bucket which weren't used for the given time. The next caller of the credential
+     * gets a new limiter starting with a full bucket, the same as the dropped one would give.
+     */
+    static void evictIdleLimiters(long idleNanos) {
+        for (String key : LIMITERS.keySet()) {
+            LIMITERS.computeIfPresent(key, (k, limiter) -> limiter.bucket.isIdle(idleNanos) ? null : limiter);
+        }
+    }
+
+    /**
+     * Limiter of an API counting its limits per IP address rather than per credential, shared by all credentials.
+     */
+    public static ApiRateLimiter forExchange(String exchange, double permitsPerSecond, int burst) {
+        return forCredential(exchange, "", permitsPerSecond, burst);
+    }
+
+    /**
+     * Waits for a permit and executes the call, retrying it on rate limit and server errors.
+     *
+     * @throws InterruptedIOException when interrupted while waiting, the interrupt flag is kept
+     */
+    public <T> T call(ApiCall<T> call) throws IOException {
+        return call(1, call);
+    }
+
+    /**
+     * Same as {@link #call(ApiCall)} for APIs which weight their calls, every attempt takes {@code weight} permits.
+     */
+    public <T> T call(int weight, ApiCall<T> call) throws IOException {
+        long backoffMillis = INITIAL_BACKOFF.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            acquire(weight);
+            metrics.onCall();
+            try {
+                return call.execute();
+            } catch (IOException | RuntimeException e) {
+                int status = httpStatusOf(e);
+                if (!RETRYABLE_STATUS.contains(status) || attempt == MAX_ATTEMPTS) {
+                    metrics.onFailure();
+                    throw e;
+                }
+                if (status == HTTP_TOO_MANY_REQUESTS) {
+                    metrics.onRateLimited();
+                } else {
+                    metrics.onServerError();
+                }
+                Duration delay = requestedDelay(e).orElse(Duration.ofMillis(jitter(backoffMillis)));
+                if (delay.compareTo(MAX_RETRY_DELAY) > 0) {
+                    delay = MAX_RETRY_DELAY;
+                }
+                LOG.warn(
+                    "{} API returned HTTP {} (attempt {}/{}), retrying in {} ms.",
+                    metrics.getExchange(), status, attempt, MAX_ATTEMPTS, delay.toMillis()
+                );
+                metrics.onRetry();
+                bucket.pause(delay.toNanos());
+                backoffMillis = Math.min(backoffMillis * 2, MAX_RETRY_DELAY.toMillis());
+            }
+        }
+    }
+
+    /**
+     * Waits for a permit without executing anything, for clients doing their own retries.
+     */
+    public void acquire() throws InterruptedIOException {
+        acquire(1);
+    }
+
+    public void acquire(int weight) throws InterruptedIOException {
+        long waitNanos = bucket.reserve(weight);
+        if (waitNanos <= 0) {
+            return;
+        }
+        metrics.onThrottled(waitNanos);
+        try {
+            sleeper.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(metrics.getExchange() + " API call interrupted while rate limited.");
+        }
+    }
+
+    public ApiCallMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the HTTP status code that caused {@code t}, or -1 if it was not an HTTP error. xchange may wrap the rescu
+     * exception, so the whole cause chain is walked.
+     */
+    static int httpStatusOf(Throwable t) {
+        for (Throwable c = t; c != null && c != c.getCause(); c = c.getCause()) {
+            if (c instanceof HttpStatusException httpEx) {
+                return httpEx.getHttpStatusCode();
+            }
+            if (c instanceof RateLimitExceededException) {
+                return HTTP_TOO_MANY_REQUESTS;
+            }
+        }
+        return -1;
+    }
+
+    private static Optional<Duration> requestedDelay(Throwable t) {
+        for (Throwable c = t; c != null && c != c.getCause(); c = c.getCause()) {
+            if (c instanceof HttpResponseAware response) {
+                return RetryDelays.fromHeaders(response.getResponseHeaders(), Instant.now());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static long jitter(long baseMillis) {
+        double factor = 0.75 + ThreadLocalRandom.current().nextDouble() * 0.5;
+        return (long) (baseMillis * factor);
+    }
+
+    @FunctionalInterface
+    public interface ApiCall<T> {
+        T execute() throws IOException;
+    }
+
+    @FunctionalInterface
+    interface NanoSleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+}
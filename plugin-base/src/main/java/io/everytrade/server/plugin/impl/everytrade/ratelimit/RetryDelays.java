@@ -0,0 +1,91 @@
+package io.everytrade.server.plugin.impl.everytrade.ratelimit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads the delay requested by an API from the response headers: {@code Retry-After} (seconds or HTTP date) and the
+ * common rate limit reset headers.
+ */
+final class RetryDelays {
+    static final String RETRY_AFTER = "Retry-After";
+    // delta seconds (IETF draft), some APIs send epoch seconds instead
+    static final List<String> RESET_SECONDS_HEADERS = List.of("RateLimit-Reset", "X-RateLimit-Reset");
+    // KuCoin, delta millis
+    static final String RESET_MILLIS_HEADER = "gw-ratelimit-reset";
+
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    private RetryDelays() {
+    }
+
+    static Optional<Duration> fromHeaders(Map<String, List<String>> headers, Instant now) {
+        if (headers == null || headers.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Duration> retryAfter = header(headers, RETRY_AFTER).flatMap(value -> parseRetryAfter(value, now));
+        if (retryAfter.isPresent()) {
+            return retryAfter;
+        }
+        for (String name : RESET_SECONDS_HEADERS) {
+            Optional<Duration> reset = header(headers, name).flatMap(value -> parseResetSeconds(value, now));
+            if (reset.isPresent()) {
+                return reset;
+            }
+        }
+        return header(headers, RESET_MILLIS_HEADER).flatMap(RetryDelays::parseMillis);
+    }
+
+    static Optional<Duration> parseRetryAfter(String value, Instant now) {
+        try {
+            return Optional.of(nonNegative(Duration.ofSeconds(Long.parseLong(value))));
+        } catch (NumberFormatException e) {
+            try {
+                Instant date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return Optional.of(nonNegative(Duration.between(now, date)));
+            } catch (DateTimeParseException ignored) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    private static Optional<Duration> parseResetSeconds(String value, Instant now) {
+        try {
+            long seconds = Long.parseLong(value);
+            if (seconds >= EPOCH_SECONDS_THRESHOLD) {
+                return Optional.of(nonNegative(Duration.between(now, Instant.ofEpochSecond(seconds))));
+            }
+            return Optional.of(nonNegative(Duration.ofSeconds(seconds)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Duration> parseMillis(String value) {
+        try {
+            return Optional.of(nonNegative(Duration.ofMillis(Long.parseLong(value))));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Duration nonNegative(Duration duration) {
+        return duration.isNegative() ? Duration.ZERO : duration;
+    }
+
+    private static Optional<String> header(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey()) && entry.getValue() != null && !entry.getValue().isEmpty()
+                && entry.getValue().get(0) != null) {
+                return Optional.of(entry.getValue().get(0).trim());
+            }
+        }
+        return Optional.empty();
+    }
+}
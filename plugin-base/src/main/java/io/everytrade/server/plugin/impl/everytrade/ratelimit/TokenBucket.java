@@ -0,0 +1,89 @@
+package io.everytrade.server.plugin.impl.everytrade.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled continuously at a fixed rate up to its burst size. A permit may be taken from an empty bucket,
+ * the caller then waits until the debt is refilled, so concurrent callers queue up in the order of their reservations.
+ */
+public final class TokenBucket {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastUsedNanos;
+
+    public TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException(
+                String.format("Invalid token bucket rate %s/s or burst %s.", permitsPerSecond, burst)
+            );
+        }
+        this.permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        this.burst = burst;
+        this.nanoClock = nanoClock;
+        this.tokens = burst;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.lastUsedNanos = lastRefillNanos;
+    }
+
+    /**
+     * Takes one permit.
+     *
+     * @return nanos to wait before the permit may be used
+     */
+    public long reserve() {
+        return reserve(1);
+    }
+
+    /**
+     * Takes the given number of permits at once, e.g. the request weight of a call.
+     *
+     * @return nanos to wait before the permits may be used
+     */
+    public synchronized long reserve(int permits) {
+        refill();
+        lastUsedNanos = lastRefillNanos;
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+
+    /**
+     * Empties the bucket so that the next permit is available after the given delay at the earliest, e.g. when the
+     * API asked to retry later. Already reserved permits are not moved.
+     */
+    public synchronized void pause(long delayNanos) {
+        refill();
+        tokens = Math.min(tokens, 1 - delayNanos * permitsPerNano);
+    }
+
+    /**
+     * Marks the bucket as used without taking a permit, e.g. when a caller got hold of it.
+     */
+    public synchronized void touch() {
+        lastUsedNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * @return true when the bucket is full and it wasn't used for the given time, a new bucket would behave the same
+     */
+    public synchronized boolean isIdle(long idleNanos) {
+        refill();
+        return tokens >= burst && lastRefillNanos - lastUsedNanos >= idleNanos;
+    }
+
+    public synchronized double getAvailablePermits() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+    }
+}
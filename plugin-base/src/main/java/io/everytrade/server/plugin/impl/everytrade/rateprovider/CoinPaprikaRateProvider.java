@@ -23,6 +23,7 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
@@ -36,9 +37,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public final class CoinPaprikaRateProvider implements IRateProvider {
     private final CoinPaprikaV1API api;
+    private final PersistentRateStore rateStore;
 
     private static final Map<Currency, String> COIN_IDS_BY_CURRENCY = new EnumMap<>(Currency.class);
     private static final Map<Currency, Instant> LISTING_START_BY_CURRENCY = new EnumMap<>(Currency.class);
@@ -46,9 +49,22 @@ public final class CoinPaprikaRateProvider implements IRateProvider {
     private static final Duration CALL_DELAY = Duration.of(250, ChronoUnit.MILLIS);
     private static final Logger LOG = LoggerFactory.getLogger(CoinPaprikaRateProvider.class);
     private static Instant LAST_CALL = Instant.now();
+    // one range request covers the whole window, 672 quarter hours are well below the API's limit
+    private static final long PREFETCH_WINDOW_SECONDS = Duration.ofDays(7).getSeconds();
+    private static final int PREFETCH_LIMIT = 5000;
+    private static final String PREFETCH_INTERVAL = "15m";
+    private static final String RATE_STORE_FILE = "coinpaprika-rates.csv";
+    private static final String DEFAULT_RATE_STORE_DIR = "everytrade-rate-store";
 
     public static final RateValidity MIN_RATE_VALIDITY = RateValidity.QUARTER_HOUR;
     public static final String ID = WhaleBooksPlugin.ID + IPlugin.PLUGIN_PATH_SEPARATOR + "coinPaprika";
+    /**
+     * System property with the directory of the persistent rate store, overriding the default directory in
+     * {@code java.io.tmpdir}.
+     */
+    public static final String RATE_STORE_DIR_PROPERTY = "everytrade.rateStoreDir";
+    // one store per process, every provider instance works with the same rates and the same file
+    private static PersistentRateStore sharedRateStore;
 
     static {
         // coin ids can be viewed at https://api.coinpaprika.com/v1/coins
@@ -290,14 +306,21 @@ public final class CoinPaprikaRateProvider implements IRateProvider {
     );
 
     public CoinPaprikaRateProvider() {
-        final ClientConfig config
-            = new ClientConfig().addDefaultParam(HeaderParam.class, "User-Agent", "");
-
-        Objects.requireNonNull(
-            api = RestProxyFactory.createProxy(CoinPaprikaV1API.class, "https://api.coinpaprika.com/", config)
+        this(
+            RestProxyFactory.createProxy(
+                CoinPaprikaV1API.class,
+                "https://api.coinpaprika.com/",
+                new ClientConfig().addDefaultParam(HeaderParam.class, "User-Agent", "")
+            ),
+            sharedRateStore()
         );
     }
 
+    CoinPaprikaRateProvider(CoinPaprikaV1API api, PersistentRateStore rateStore) {
+        Objects.requireNonNull(this.api = api);
+        Objects.requireNonNull(this.rateStore = rateStore);
+    }
+
     @Override
     public Rate getRate(Currency base, Currency quote, Instant instant) {
         final CurrencyPair pair = new CurrencyPair(base, quote);
@@ -329,8 +352,12 @@ public final class CoinPaprikaRateProvider implements IRateProvider {
             );
         }
 
-        final String timeStamp =
-            ZonedDateTime.ofInstant(instant, ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        final Rate storedRate = findStoredRate(base, quote, instant);
+        if (storedRate != null) {
+            return storedRate;
+        }
+
+        final String timeStamp = format(instant);
 
         final String quoteStr = quote.code().toLowerCase();
         final String coinId = getCoinId(base);
@@ -381,10 +408,68 @@ public final class CoinPaprikaRateProvider implements IRateProvider {
             LOG.error("Historical rate data is empty (pair: '{}', instant: '{}').", pair, instant);
             return null;
         }
-        final CoinPaprikaHistoricalTickerResponse first = historical.get(0);
-        final Instant timestamp = Instant.parse(first.timestamp);
+        final Rate rate = toRate(historical.get(0), base, quote);
+        rateStore.put(rate);
+        return rate;
+    }
+
+    private Rate findStoredRate(Currency base, Currency quote, Instant instant) {
+        final Rate storedRate = rateStore.get(base, quote, instant);
+        if (storedRate != null || !prefetchWindow(base, quote, instant)) {
+            return storedRate;
+        }
+        return rateStore.get(base, quote, instant);
+    }
+
+    /*
+     * Fetches all the quarter hour rates of the window containing the instant by a single request. Windows which
+     * are complete (not reaching to the present) are fetched only once, gaps in the data are then left to the single
+     * rate requests. The window reaching to the present is fetched again only once a new quarter hour rate may
+     * exist; concurrent misses in the same window wait for one fetch.
+     */
+    private boolean prefetchWindow(Currency base, Currency quote, Instant instant) {
+        final long windowIndex = Math.floorDiv(instant.getEpochSecond(), PREFETCH_WINDOW_SECONDS);
+        final Instant windowStart = Instant.ofEpochSecond(windowIndex * PREFETCH_WINDOW_SECONDS);
+        return rateStore.fetchWindowOnce(
+            base, quote, windowStart, MIN_RATE_VALIDITY.getDuration(), () -> fetchWindow(base, quote, windowStart)
+        );
+    }
+
+    private boolean fetchWindow(Currency base, Currency quote, Instant windowStart) {
+        final Instant now = Instant.now();
+        final Instant windowEnd = windowStart.plusSeconds(PREFETCH_WINDOW_SECONDS);
+        final List<CoinPaprikaHistoricalTickerResponse> historical;
+        try {
+            waitForPossibleCall();
+            historical = api.getHistorical(
+                getCoinId(base),
+                format(windowStart),
+                format(windowEnd.isBefore(now) ? windowEnd : now),
+                PREFETCH_LIMIT,
+                quote.code().toLowerCase(),
+                PREFETCH_INTERVAL
+            );
+        } catch (IOException e) {
+            LOG.warn(
+                "Failed to prefetch rates (pair: '{}/{}', window start: '{}'): {}",
+                base,
+                quote,
+                windowStart,
+                e.getMessage()
+            );
+            return false;
+        }
+        rateStore.putAll(historical.stream().map(ticker -> toRate(ticker, base, quote)).collect(Collectors.toList()));
+        if (!windowEnd.isAfter(now)) {
+            rateStore.markWindowFetched(base, quote, windowStart);
+        }
+        return true;
+    }
+
+    private static Rate toRate(CoinPaprikaHistoricalTickerResponse ticker, Currency base, Currency quote) {
+        final Instant timestamp = Instant.parse(ticker.timestamp);
         return new Rate(
-            first.price,
+            ticker.price,
             base,
             quote,
             timestamp,
@@ -394,6 +479,28 @@ public final class CoinPaprikaRateProvider implements IRateProvider {
         );
     }
 
+    private static String format(Instant instant) {
+        return ZonedDateTime.ofInstant(instant, ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
+    private static synchronized PersistentRateStore sharedRateStore() {
+        if (sharedRateStore == null) {
+            final String dir = System.getProperty(RATE_STORE_DIR_PROPERTY);
+            final Path file = dir == null || dir.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), DEFAULT_RATE_STORE_DIR, RATE_STORE_FILE)
+                : Path.of(dir, RATE_STORE_FILE);
+            final PersistentRateStore store = PersistentRateStore.open(file, MIN_RATE_VALIDITY);
+            Runtime.getRuntime().addShutdownHook(new Thread(store::close, "coinpaprika-rate-store-close"));
+            if (store.isPersistent()) {
+                LOG.info("CoinPaprika rates are stored in '{}'.", file.toAbsolutePath());
+            } else {
+                LOG.info("CoinPaprika rates are kept in memory only, '{}' is not writable.", file.toAbsolutePath());
+            }
+            sharedRateStore = store;
+        }
+        return sharedRateStore;
+    }
+
     public boolean isTooManyRequests(IOException e) {
         return e instanceof HttpStatusIOException
             && ((HttpStatusIOException) e).getHttpStatusCode() == Response.Status.TOO_MANY_REQUESTS.getStatusCode();
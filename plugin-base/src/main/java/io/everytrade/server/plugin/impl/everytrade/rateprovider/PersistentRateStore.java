@@ -0,0 +1,314 @@
+package io.everytrade.server.plugin.impl.everytrade.rateprovider;
+
+import io.everytrade.server.model.Currency;
+import io.everytrade.server.plugin.api.rateprovider.CachingStrategy;
+import io.everytrade.server.plugin.api.rateprovider.Rate;
+import io.everytrade.server.plugin.api.rateprovider.RateSourceType;
+import io.everytrade.server.plugin.api.rateprovider.RateValidity;
+import io.everytrade.server.plugin.utils.TimeUtils;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Long term cacheable rates keyed by (base, quote, validity bucket), kept in memory and appended to a file so they
+ * survive restarts. Besides rates the store remembers the time windows which were completely fetched from the rate
+ * source, buckets missing in such a window don't need another range request.
+ * <p>
+ * File format, one record per line: {@code R;base;quote;bucketStartEpochSecond;value} for a rate and
+ * {@code W;base;quote;windowStartEpochSecond} for a fetched window. Unreadable and repeated lines are skipped and
+ * dropped from the file when it is opened. The file is meant to be opened by one store per process only.
+ */
+public final class PersistentRateStore implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentRateStore.class);
+    private static final String SEPARATOR = ";";
+    private static final String RATE_RECORD = "R";
+    private static final String WINDOW_RECORD = "W";
+
+    private final RateValidity validity;
+    private final Path file;
+    private final Map<Key, BigDecimal> rates = new ConcurrentHashMap<>();
+    private final Set<Key> fetchedWindows = ConcurrentHashMap.newKeySet();
+    // in memory only: when the window reaching to the present was fetched last, and the fetches running right now
+    private final Map<Key, Instant> openWindowFetches = new ConcurrentHashMap<>();
+    private final Map<Key, CompletableFuture<Boolean>> runningWindowFetches = new ConcurrentHashMap<>();
+    private BufferedWriter writer;
+
+    private PersistentRateStore(RateValidity validity, Path file) {
+        this.validity = Objects.requireNonNull(validity);
+        this.file = file;
+    }
+
+    /**
+     * Opens the store backed by the given file, the file and its directory are created when missing. If the file
+     * can't be used, the store keeps the rates in memory only.
+     */
+    public static PersistentRateStore open(Path file, RateValidity validity) {
+        var store = new PersistentRateStore(validity, file);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            if (Files.exists(file) && store.load()) {
+                store.compact();
+            }
+            store.writer = Files.newBufferedWriter(
+                file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+            );
+        } catch (IOException e) {
+            LOG.warn("Rate store file '{}' not available, rates are cached in memory only: {}", file, e.getMessage());
+        }
+        return store;
+    }
+
+    public static PersistentRateStore inMemory(RateValidity validity) {
+        return new PersistentRateStore(validity, null);
+    }
+
+    /**
+     * @return rate valid for the bucket containing the instant, null when not stored
+     */
+    public Rate get(Currency base, Currency quote, Instant instant) {
+        Instant bucketStart = bucketStart(instant);
+        BigDecimal value = rates.get(new Key(base, quote, bucketStart.getEpochSecond()));
+        if (value == null) {
+            return null;
+        }
+        return toRate(value, base, quote, bucketStart);
+    }
+
+    /**
+     * Stores the rate for its validity start bucket; rates which are not long term cacheable are ignored.
+     */
+    public void put(Rate rate) {
+        putAll(List.of(rate));
+    }
+
+    public void putAll(Collection<Rate> newRates) {
+        StringBuilder records = new StringBuilder();
+        for (Rate rate : newRates) {
+            if (rate.getCachingStrategy() != CachingStrategy.LONG_TERM) {
+                continue;
+            }
+            long bucketStart = bucketStart(rate.getValidityStartIncl()).getEpochSecond();
+            var key = new Key(rate.getBase(), rate.getQuote(), bucketStart);
+            if (rates.putIfAbsent(key, rate.getValue()) == null) {
+                records.append(rateRecord(key, rate.getValue())).append('\n');
+            }
+        }
+        append(records);
+    }
+
+    public boolean isWindowFetched(Currency base, Currency quote, Instant windowStart) {
+        return fetchedWindows.contains(new Key(base, quote, windowStart.getEpochSecond()));
+    }
+
+    public void markWindowFetched(Currency base, Currency quote, Instant windowStart) {
+        var key = new Key(base, quote, windowStart.getEpochSecond());
+        openWindowFetches.remove(key);
+        if (fetchedWindows.add(key)) {
+            append(new StringBuilder(windowRecord(key)).append('\n'));
+        }
+    }
+
+    /**
+     * Runs the fetch of the window unless the window was fetched completely, it is still open and was fetched less
+     * than {@code openWindowRefresh} ago, or the same window is being fetched by another thread, which is awaited
+     * instead.
+     *
+     * @param fetch fetches the window, returns false when it failed
+     * @return true when the window was fetched by this or by the awaited call
+     */
+    public boolean fetchWindowOnce(
+        Currency base,
+        Currency quote,
+        Instant windowStart,
+        Duration openWindowRefresh,
+        BooleanSupplier fetch
+    ) {
+        var key = new Key(base, quote, windowStart.getEpochSecond());
+        if (fetchedWindows.contains(key)) {
+            return false;
+        }
+        Instant lastOpenFetch = openWindowFetches.get(key);
+        Instant now = Instant.now();
+        if (lastOpenFetch != null && lastOpenFetch.plus(openWindowRefresh).isAfter(now)) {
+            return false;
+        }
+        var ownFetch = new CompletableFuture<Boolean>();
+        CompletableFuture<Boolean> runningFetch = runningWindowFetches.putIfAbsent(key, ownFetch);
+        if (runningFetch != null) {
+            return runningFetch.join();
+        }
+        boolean fetched = false;
+        try {
+            fetched = fetch.getAsBoolean();
+            if (fetched && !fetchedWindows.contains(key)) {
+                openWindowFetches.put(key, now);
+            }
+            return fetched;
+        } finally {
+            runningWindowFetches.remove(key, ownFetch);
+            ownFetch.complete(fetched);
+        }
+    }
+
+    public int size() {
+        return rates.size();
+    }
+
+    /**
+     * @return true when the rates are appended to the file, false when they are kept in memory only
+     */
+    public synchronized boolean isPersistent() {
+        return writer != null;
+    }
+
+    public Instant bucketStart(Instant instant) {
+        return TimeUtils.truncate(instant, validity.getField(), validity.getCount());
+    }
+
+    private Rate toRate(BigDecimal value, Currency base, Currency quote, Instant bucketStart) {
+        return new Rate(
+            value,
+            base,
+            quote,
+            bucketStart,
+            bucketStart.plus(validity.getDuration()),
+            RateSourceType.MARKET,
+            CachingStrategy.LONG_TERM
+        );
+    }
+
+    private synchronized void append(StringBuilder records) {
+        if (writer == null || records.length() == 0) {
+            return;
+        }
+        try {
+            writer.append(records);
+            writer.flush();
+        } catch (IOException e) {
+            LOG.warn(
+                "Failed to write to rate store file '{}', rates are cached in memory only: {}", file, e.getMessage()
+            );
+            closeQuietly();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            closeQuietly();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+            // nothing to do, the writer isn't used anymore
+        }
+        writer = null;
+    }
+
+    /**
+     * @return true when the file holds unreadable or repeated records worth dropping
+     */
+    private boolean load() throws IOException {
+        int lines = 0;
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                if (!loadRecord(line)) {
+                    skipped++;
+                }
+            }
+        }
+        if (skipped > 0) {
+            LOG.warn("Skipped {} unreadable record(s) of rate store file '{}'.", skipped, file);
+        }
+        LOG.info("Loaded {} rate(s) from rate store file '{}'.", rates.size(), file);
+        return lines > rates.size() + fetchedWindows.size();
+    }
+
+    // rewrites the file with the loaded records only, replacing the old file at once
+    private void compact() throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Key, BigDecimal> rate : rates.entrySet()) {
+                out.append(rateRecord(rate.getKey(), rate.getValue())).append('\n');
+            }
+            for (Key window : fetchedWindows) {
+                out.append(windowRecord(window)).append('\n');
+            }
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String rateRecord(Key key, BigDecimal value) {
+        return String.join(
+            SEPARATOR,
+            RATE_RECORD,
+            key.getBase().code(),
+            key.getQuote().code(),
+            Long.toString(key.getEpochSecond()),
+            value.toPlainString()
+        );
+    }
+
+    private static String windowRecord(Key key) {
+        return String.join(
+            SEPARATOR, WINDOW_RECORD, key.getBase().code(), key.getQuote().code(), Long.toString(key.getEpochSecond())
+        );
+    }
+
+    private boolean loadRecord(String line) {
+        String[] values = line.split(SEPARATOR);
+        try {
+            if (RATE_RECORD.equals(values[0]) && values.length == 5) {
+                rates.put(
+                    new Key(Currency.fromCode(values[1]), Currency.fromCode(values[2]), Long.parseLong(values[3])),
+                    new BigDecimal(values[4])
+                );
+                return true;
+            }
+            if (WINDOW_RECORD.equals(values[0]) && values.length == 4) {
+                fetchedWindows.add(
+                    new Key(Currency.fromCode(values[1]), Currency.fromCode(values[2]), Long.parseLong(values[3]))
+                );
+                return true;
+            }
+        } catch (RuntimeException e) {
+            // unknown currency or damaged line (e.g. the process was killed while writing)
+        }
+        return false;
+    }
+
+    @Value
+    private static class Key {
+        Currency base;
+        Currency quote;
+        long epochSecond;
+    }
+}
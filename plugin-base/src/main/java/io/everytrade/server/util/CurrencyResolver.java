@@ -0,0 +1,141 @@
+package io.everytrade.server.util;
+
+import io.everytrade.server.model.Currency;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves currency codes used by exchanges to {@link Currency}. A code is normalized, looked up in the alias table
+ * of the exchange, then among the standard currency codes and finally the fallback code of the exchange is tried.
+ * <p>
+ * The result is cached by the raw code, including unknown codes, so a code seen before costs one hash lookup and
+ * resolving never throws an exception; {@link #resolve(String)} throws only for codes which are really unknown.
+ */
+public final class CurrencyResolver {
+    // codes come from user files too, don't let the cache grow without limit
+    private static final int MAX_CACHED_CODES = 10_000;
+    private static final Map<String, Currency> STANDARD_CODES = Arrays.stream(Currency.values())
+        .collect(Collectors.toUnmodifiableMap(c -> normalize(c.code()), Function.identity()));
+
+    public static final CurrencyResolver STANDARD = new CurrencyResolver(Map.of(), UnaryOperator.identity(), null);
+
+    public static final CurrencyResolver COMMON = new CurrencyResolver(
+        Map.of(
+            "XDG", Currency.DOGE,
+            "RNDR", Currency.RENDER,
+            "BEAMX", Currency.BEAM
+        ),
+        UnaryOperator.identity(),
+        null
+    );
+
+    public static final CurrencyResolver KRAKEN = new CurrencyResolver(
+        krakenAliases(),
+        // staking and earn suffixes
+        code -> code.replace(".M", "").replace(".S", "").replace(".P", "").replace("ETHW", "ETH"),
+        CurrencyResolver::removeTrailingDigits
+    );
+
+    public static final CurrencyResolver COINBASE_PRO = new CurrencyResolver(
+        Map.of("CGLD", Currency.CELO),
+        UnaryOperator.identity(),
+        null
+    );
+
+    public static final CurrencyResolver XCHANGE = new CurrencyResolver(
+        Map.of(),
+        UnaryOperator.identity(),
+        code -> org.knowm.xchange.currency.Currency.getInstance(code).getCommonlyUsedCurrency().getCurrencyCode()
+    );
+
+    private final Map<String, Currency> aliases;
+    private final UnaryOperator<String> exchangeNormalization;
+    private final UnaryOperator<String> fallbackCode;
+    private final Map<String, Optional<Currency>> cache = new ConcurrentHashMap<>();
+
+    private CurrencyResolver(
+        Map<String, Currency> aliases,
+        UnaryOperator<String> exchangeNormalization,
+        UnaryOperator<String> fallbackCode
+    ) {
+        this.aliases = aliases.entrySet().stream()
+            .collect(Collectors.toUnmodifiableMap(e -> normalize(e.getKey()), Map.Entry::getValue));
+        this.exchangeNormalization = exchangeNormalization;
+        this.fallbackCode = fallbackCode;
+    }
+
+    /**
+     * @return currency of the code, null when the code is unknown
+     */
+    public Currency find(String code) {
+        Objects.requireNonNull(code, "code is null");
+        Optional<Currency> currency = cache.get(code);
+        if (currency == null) {
+            currency = Optional.ofNullable(lookUp(code));
+            if (cache.size() < MAX_CACHED_CODES) {
+                cache.putIfAbsent(code, currency);
+            }
+        }
+        return currency.orElse(null);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the code is unknown
+     */
+    public Currency resolve(String code) {
+        Currency currency = find(code);
+        if (currency == null) {
+            throw new IllegalArgumentException("Unknown currency code: " + code);
+        }
+        return currency;
+    }
+
+    /**
+     * @return currency of the code from the alias table only, null when the code is not an alias
+     */
+    public Currency findAlias(String code) {
+        return aliases.get(exchangeNormalization.apply(normalize(code)));
+    }
+
+    private Currency lookUp(String code) {
+        String normalized = exchangeNormalization.apply(normalize(code));
+        Currency currency = aliases.get(normalized);
+        if (currency == null) {
+            currency = STANDARD_CODES.get(normalized);
+        }
+        if (currency == null && fallbackCode != null) {
+            String fallback = fallbackCode.apply(normalized);
+            currency = fallback == null ? null : STANDARD_CODES.get(normalize(fallback));
+        }
+        return currency;
+    }
+
+    private static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String removeTrailingDigits(String code) {
+        int end = code.length();
+        while (end > 0 && Character.isDigit(code.charAt(end - 1))) {
+            end--;
+        }
+        return code.substring(0, end);
+    }
+
+    private static Map<String, Currency> krakenAliases() {
+        // long codes take precedence over the short ones
+        Map<String, Currency> aliases = new HashMap<>(KrakenCurrencyUtil.CURRENCY_EXCEPTION_CODES);
+        aliases.putAll(KrakenCurrencyUtil.CURRENCY_SHORT_CODES);
+        aliases.putAll(KrakenCurrencyUtil.CURRENCY_LONG_CODES);
+        return aliases;
+    }
+}
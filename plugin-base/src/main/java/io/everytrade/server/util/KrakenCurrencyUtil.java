@@ -60,48 +60,11 @@ public class KrakenCurrencyUtil {
     }
 
     public static Currency findCurrencyByCode(String code) {
-        // Staking
-        code = code.replace(".M", "")
-            .replace(".S", "")
-            .replace(".P", "")
-            .replace("ETHW", "ETH");
-
-        final Currency currencyLong = CURRENCY_LONG_CODES.get(code);
-        if (currencyLong != null) {
-            return currencyLong;
-        }
-        final Currency currencyShort = CURRENCY_SHORT_CODES.get(code);
-        if (currencyShort != null) {
-            return currencyShort;
-        }
-        final Currency exceptionCurrency = CURRENCY_EXCEPTION_CODES.get(code);
-        if (exceptionCurrency != null) {
-            return exceptionCurrency;
-        }
-        try {
-            return Currency.fromCode(code);
-        } catch (IllegalArgumentException e) {
-            try {
-                code = removeDigitsFromEndOfString(code);
-                return Currency.fromCode(code);
-
-            } catch (IllegalArgumentException ignore) {
-            }
+        final Currency currency = CurrencyResolver.KRAKEN.find(code);
+        if (currency == null) {
+            throw new IllegalStateException(String.format("Currency not found for code %s.", code));
         }
-        throw new IllegalStateException(String.format("Currency not found for code %s.", code));
-    }
-
-    private static String removeDigitsFromEndOfString(String value) {
-        int i;
-        for (i = value.length(); i > 0; --i) {
-            char[] chars = value.substring(0, i).toCharArray();
-            if (Character.isDigit(chars[i-1])) {
-                value = value.substring(0, i - 1);
-            } else {
-                break;
-            }
-        }
-        return value;
+        return currency;
     }
 
     public static CurrencyPair findStandardPair(String pair) {
@@ -109,13 +72,10 @@ public class KrakenCurrencyUtil {
             String baseCode = pair.substring(0, i);
             String quoteCode = pair.substring(i);
 
-            try {
-                Currency base = Currency.fromCode(baseCode);
-                Currency quote = Currency.fromCode(quoteCode);
-
+            Currency base = CurrencyResolver.STANDARD.find(baseCode);
+            Currency quote = CurrencyResolver.STANDARD.find(quoteCode);
+            if (base != null && quote != null) {
                 return new CurrencyPair(base, quote);
-            } catch (IllegalArgumentException e) {
-                // Ignore exception and continue to next iteration
             }
         }
         throw new DataValidationException(String.format("Can not parse pair %s.", pair));
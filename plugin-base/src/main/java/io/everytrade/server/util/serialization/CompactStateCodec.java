@@ -0,0 +1,262 @@
+package io.everytrade.server.util.serialization;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary form of the connector download states. The content is written as variable length numbers,
+ * timestamps as the difference to the previous timestamp and repeated strings as a reference to their first
+ * occurrence; the bytes are deflated and encoded to URL safe base64 without padding, so the result contains none of
+ * the separators used by the text states ({@code = | : ; , &}).
+ * <p>
+ * The encoded state starts with {@link #PREFIX} followed by the format version, text states never do. Small states
+ * stay in their text format, see {@link #isWorthEncoding(String)}, which keeps them readable and readable by older
+ * plugin versions as well.
+ */
+public final class CompactStateCodec {
+    public static final String PREFIX = "~";
+    private static final Logger LOG = LoggerFactory.getLogger(CompactStateCodec.class);
+    private static final char VERSION_1 = '1';
+    // below this length the text state is short enough and the encoding saves hardly anything
+    private static final int MIN_ENCODED_TEXT_LENGTH = 1024;
+    private static final int BUFFER_SIZE = 4096;
+
+    private CompactStateCodec() {
+    }
+
+    public static boolean isEncoded(String state) {
+        return state != null && state.startsWith(PREFIX);
+    }
+
+    public static boolean isWorthEncoding(String textState) {
+        return textState != null && textState.length() >= MIN_ENCODED_TEXT_LENGTH;
+    }
+
+    /**
+     * @param stateName  name of the state in the {@link StateSizeMetrics}
+     * @param textLength length of the same state in its text format, for the metrics; 0 when it has none
+     */
+    public static String encode(String stateName, int textLength, Consumer<StateWriter> content) {
+        var writer = new StateWriter();
+        content.accept(writer);
+        byte[] binary = writer.toByteArray();
+
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(binary);
+        deflater.finish();
+        var compressed = new ByteArrayOutputStream(binary.length / 2 + 16);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        String encoded = PREFIX + VERSION_1
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(compressed.toByteArray());
+        var metrics = StateSizeMetrics.forState(stateName);
+        metrics.onEncoded(textLength, binary.length, encoded.length());
+        LOG.debug(
+            "{} state encoded from {} chars of text to {} bytes, {} chars compressed.",
+            stateName, textLength, binary.length, encoded.length()
+        );
+        return encoded;
+    }
+
+    /**
+     * @return number of bytes the content takes before it is deflated, e.g. to choose the smaller of two forms
+     */
+    public static int binaryLength(Consumer<StateWriter> content) {
+        var writer = new StateWriter();
+        content.accept(writer);
+        return writer.bytes.size();
+    }
+
+    /**
+     * @throws IllegalArgumentException when the state is not a valid encoded state
+     */
+    public static <T> T decode(String stateName, String state, Function<StateReader, T> content) {
+        if (!isEncoded(state) || state.length() < PREFIX.length() + 1) {
+            throw new IllegalArgumentException("Not an encoded state.");
+        }
+        char version = state.charAt(PREFIX.length());
+        if (version != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported encoded state version " + version + ".");
+        }
+        byte[] binary;
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(Base64.getUrlDecoder().decode(state.substring(PREFIX.length() + 1)));
+            var inflated = new ByteArrayOutputStream(BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated encoded state.");
+                }
+                inflated.write(buffer, 0, length);
+            }
+            binary = inflated.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Damaged encoded state.", e);
+        } finally {
+            inflater.end();
+        }
+        T result = content.apply(new StateReader(binary));
+        StateSizeMetrics.forState(stateName).onDecoded();
+        return result;
+    }
+
+    public static final class StateWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private long previousTimestamp;
+
+        private StateWriter() {
+        }
+
+        public StateWriter writeLong(long value) {
+            // zig-zag, small negative numbers take few bytes too
+            long unsigned = (value << 1) ^ (value >> 63);
+            while ((unsigned & ~0x7FL) != 0) {
+                bytes.write((int) ((unsigned & 0x7F) | 0x80));
+                unsigned >>>= 7;
+            }
+            bytes.write((int) unsigned);
+            return this;
+        }
+
+        public StateWriter writeInt(int value) {
+            return writeLong(value);
+        }
+
+        /**
+         * Timestamps are written as the difference to the previously written timestamp, write them sorted.
+         */
+        public StateWriter writeTimestamp(long timestamp) {
+            writeLong(timestamp - previousTimestamp);
+            previousTimestamp = timestamp;
+            return this;
+        }
+
+        /**
+         * A string written before is written as a reference to it; null is allowed.
+         */
+        public StateWriter writeString(String value) {
+            if (value == null) {
+                return writeLong(0);
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                return writeLong(index);
+            }
+            // 1 is a new string, references start at 2
+            dictionary.put(value, dictionary.size() + 2);
+            writeLong(1);
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeLong(utf8.length);
+            bytes.write(utf8, 0, utf8.length);
+            return this;
+        }
+
+        /**
+         * Raw bytes prefixed with their length, e.g. bit sets that would not get any shorter as numbers.
+         */
+        public StateWriter writeBytes(byte[] value) {
+            writeLong(value.length);
+            bytes.write(value, 0, value.length);
+            return this;
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    public static final class StateReader {
+        private final byte[] bytes;
+        private final List<String> dictionary = new ArrayList<>();
+        private int position;
+        private long previousTimestamp;
+
+        private StateReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        public long readLong() {
+            long unsigned = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = nextByte();
+                unsigned |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (unsigned >>> 1) ^ -(unsigned & 1);
+                }
+            }
+            throw new IllegalArgumentException("Damaged encoded state, number too long.");
+        }
+
+        public int readInt() {
+            return Math.toIntExact(readLong());
+        }
+
+        public long readTimestamp() {
+            previousTimestamp += readLong();
+            return previousTimestamp;
+        }
+
+        public String readString() {
+            long reference = readLong();
+            if (reference == 0) {
+                return null;
+            }
+            if (reference > 1) {
+                if (reference - 2 >= dictionary.size()) {
+                    throw new IllegalArgumentException("Damaged encoded state, unknown string reference.");
+                }
+                return dictionary.get((int) reference - 2);
+            }
+            int length = readInt();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Damaged encoded state, string out of bounds.");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            dictionary.add(value);
+            return value;
+        }
+
+        public byte[] readBytes() {
+            int length = readInt();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Damaged encoded state, bytes out of bounds.");
+            }
+            byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return value;
+        }
+
+        public boolean hasMore() {
+            return position < bytes.length;
+        }
+
+        private int nextByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Damaged encoded state, unexpected end.");
+            }
+            return bytes[position++] & 0xFF;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.everytrade.server.util.serialization;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TreeMap;
 
 import static io.everytrade.server.util.serialization.SequenceIdentifierType.STATUS;
@@ -15,6 +16,7 @@ public class ConnectorSerialization {
     public static final String DIVIDER_TWO = ":";
     public static final String DIVIDER_THREE = ";";
     public static final String EMPTY_SERIALIZER = "";
+    private static final String STATE_NAME = "Uids";
 
     String BUY_UID_ID = "1";
     String SELL_UID_ID = "2";
@@ -31,7 +33,8 @@ public class ConnectorSerialization {
     }
 
     /**
-     * Serializes the given Uids object into a formatted string.
+     * Serializes the given Uids object into a formatted string, large states are written by the
+     * {@link CompactStateCodec}.
      *
      * @param serializationByTransactionType the Uids object to be serialized
      * @return the serialized string representation of the Uids object
@@ -45,7 +48,8 @@ public class ConnectorSerialization {
             Iterator<Map.Entry<SequenceIdentifierType, String>> iter = entry.getValue().getUid().entrySet().iterator();
             while (iter.hasNext()) {
                 Map.Entry<SequenceIdentifierType, String> ent = iter.next();
-                builder.append(ent.getKey().getCode()).append(EQUALS).append(ent.getValue());
+                builder.append(ent.getKey().getCode()).append(EQUALS)
+                    .append(Objects.requireNonNullElse(ent.getValue(), EMPTY_SERIALIZER));
                 if(iter.hasNext()) {
                     builder.append(DIVIDER_THREE);
                 }
@@ -54,12 +58,19 @@ public class ConnectorSerialization {
                 builder.append(DIVIDER_ONE);
             }
         }
-        String string1 = builder.toString();
-        String string = string1.replace("null","");
-        return string;
+        String text = builder.toString();
+        if (!CompactStateCodec.isWorthEncoding(text)) {
+            return text;
+        }
+        return CompactStateCodec.encode(
+            STATE_NAME, text.length(), writer -> write(writer, serializationByTransactionType)
+        );
     }
 
     public static Uids deserialize(String serializedString) {
+        if (CompactStateCodec.isEncoded(serializedString)) {
+            return CompactStateCodec.decode(STATE_NAME, serializedString, ConnectorSerialization::read);
+        }
         Map<String, Uid> uids = new TreeMap<>();
         if(serializedString != null && !serializedString.equals(EMPTY_SERIALIZER)) {
             String[] parts = serializedString.split("\\" + DIVIDER_ONE);
@@ -85,6 +96,36 @@ public class ConnectorSerialization {
         return new Uids(uids);
     }
 
+    private static void write(CompactStateCodec.StateWriter writer, Uids uids) {
+        writer.writeInt(uids.getUidS().size());
+        for (Map.Entry<String, Uid> entry : uids.getUidS().entrySet()) {
+            // null values are not read back from the text form either
+            var values = new TreeMap<SequenceIdentifierType, String>();
+            entry.getValue().getUid().forEach((type, value) -> {
+                if (value != null) {
+                    values.put(type, value);
+                }
+            });
+            writer.writeString(entry.getKey()).writeInt(values.size());
+            values.forEach((type, value) -> writer.writeString(type.getCode()).writeString(value));
+        }
+    }
+
+    private static Uids read(CompactStateCodec.StateReader reader) {
+        Map<String, Uid> uids = new TreeMap<>();
+        int count = reader.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = reader.readString();
+            Map<SequenceIdentifierType, String> uid = new TreeMap<>();
+            int valueCount = reader.readInt();
+            for (int j = 0; j < valueCount; j++) {
+                uid.put(SequenceIdentifierType.fromCode(reader.readString()), reader.readString());
+            }
+            uids.put(key, new Uid(uid));
+        }
+        return new Uids(uids);
+    }
+
     public static Uids createDefaultUidMap() {
         Map<String, Uid> uidS = new TreeMap<>();
         return new Uids(uidS);
@@ -0,0 +1,98 @@
+package io.everytrade.server.util.serialization;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sizes of the download states written through {@link CompactStateCodec}, one instance per state name.
+ */
+public final class StateSizeMetrics {
+    private static final Map<String, StateSizeMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final String stateName;
+    private final LongAdder encodedStates = new LongAdder();
+    private final LongAdder textChars = new LongAdder();
+    private final LongAdder binaryBytes = new LongAdder();
+    private final LongAdder encodedChars = new LongAdder();
+    private final LongAdder decodedStates = new LongAdder();
+
+    private StateSizeMetrics(String stateName) {
+        this.stateName = stateName;
+    }
+
+    public static StateSizeMetrics forState(String stateName) {
+        return METRICS.computeIfAbsent(stateName, StateSizeMetrics::new);
+    }
+
+    /**
+     * @return metrics of all states encoded or decoded so far, sorted by the state name
+     */
+    public static Map<String, StateSizeMetrics> all() {
+        return new TreeMap<>(METRICS);
+    }
+
+    void onEncoded(int textLength, int binaryLength, int encodedLength) {
+        encodedStates.increment();
+        textChars.add(textLength);
+        binaryBytes.add(binaryLength);
+        encodedChars.add(encodedLength);
+    }
+
+    void onDecoded() {
+        decodedStates.increment();
+    }
+
+    public String getStateName() {
+        return stateName;
+    }
+
+    public long getEncodedStates() {
+        return encodedStates.sum();
+    }
+
+    public long getDecodedStates() {
+        return decodedStates.sum();
+    }
+
+    /**
+     * @return total length the encoded states would have in their text format
+     */
+    public long getTextChars() {
+        return textChars.sum();
+    }
+
+    /**
+     * @return total length of the encoded states before compression
+     */
+    public long getBinaryBytes() {
+        return binaryBytes.sum();
+    }
+
+    public long getEncodedChars() {
+        return encodedChars.sum();
+    }
+
+    /**
+     * @return encoded length relative to the text length, 1 when nothing was encoded yet
+     */
+    public double getCompressionRatio() {
+        long text = getTextChars();
+        return text == 0 ? 1 : (double) getEncodedChars() / text;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: encoded=%d, decoded=%d, text=%d chars, binary=%d bytes, compact=%d chars, ratio=%.3f",
+            stateName,
+            getEncodedStates(),
+            getDecodedStates(),
+            getTextChars(),
+            getBinaryBytes(),
+            getEncodedChars(),
+            getCompressionRatio()
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package io.everytrade.server.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CurrencyPairIndexTest {
+
+    @Test
+    void testMatchesHashSetOfSamePairs() {
+        BiPredicate<Currency, Currency> included = (base, quote) -> (base.ordinal() + 3 * quote.ordinal()) % 7 == 0;
+        Set<CurrencyPair> expected = new HashSet<>();
+        for (Currency base : Currency.values()) {
+            for (Currency quote : Currency.values()) {
+                if (included.test(base, quote)) {
+                    expected.add(new CurrencyPair(base, quote));
+                }
+            }
+        }
+
+        var index = new CurrencyPairIndex(included);
+
+        assertEquals(expected.size(), index.size());
+        assertEquals(expected, new HashSet<>(index));
+        assertEquals(expected, index);
+        for (Currency base : Currency.values()) {
+            for (Currency quote : Currency.values()) {
+                assertEquals(included.test(base, quote), index.contains(base, quote));
+            }
+        }
+        assertFalse(index.contains("BTC/EUR"));
+    }
+
+    @Test
+    void testTradeablePairs() {
+        int currencies = Currency.values().length;
+        assertEquals(currencies * currencies, CurrencyPair.getTradeablePairs().size());
+        assertTrue(CurrencyPair.getTradeablePairs().contains(new CurrencyPair(Currency.BTC, Currency.EUR)));
+        assertTrue(CurrencyPair.isTradeable(Currency.EUR, Currency.BTC));
+        assertThrows(
+            UnsupportedOperationException.class,
+            () -> CurrencyPair.getTradeablePairs().add(new CurrencyPair(Currency.BTC, Currency.EUR))
+        );
+    }
+
+    @Test
+    void testEmptyIndex() {
+        var index = new CurrencyPairIndex((base, quote) -> false);
+
+        assertEquals(0, index.size());
+        assertFalse(index.iterator().hasNext());
+        assertFalse(index.contains(Currency.BTC, Currency.EUR));
+    }
+}
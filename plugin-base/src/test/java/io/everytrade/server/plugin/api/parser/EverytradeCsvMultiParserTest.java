@@ -8,8 +8,11 @@ import io.everytrade.server.plugin.impl.everytrade.parser.ParserUtils;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean.ParserTestUtils;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Files;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
@@ -368,6 +371,96 @@ class EverytradeCsvMultiParserTest {
         ParserTestUtils.checkEqual(expected, actual);
     }
 
+    @Test
+    void testParsingWithPrefixRowsLeavesFileUntouched() throws IOException {
+        String header = "ID;Datum;Účet;Typ;Částka;Částka měny;Cena;Cena měny;Poplatek;Poplatek měny;Celkem;Celkem měny;Popisek;Status";
+        String content = "Account statement\nGenerated 2019-08-01\n" + header + "\n" +
+            "TTT;2019-07-29 17:04:41.51;M;WITHDRAWAL;-5.51382448;LTC; ; ;0.0004;LTC;-5.51422448;LTC;address;COMPLETED\n";
+        File file = File.createTempFile("parsertest", "csv");
+        try {
+            Files.writeString(file.toPath(), content);
+
+            ParseResult result = new EverytradeCsvMultiParser().parse(file, header);
+
+            assertEquals(1, result.getTransactionClusters().size());
+            assertTrue(result.getParsingProblems().isEmpty());
+            assertEquals(content, Files.readString(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void testStreamingParseMatchesCollectingParse() throws IOException {
+        String header = "ID;Datum;Účet;Typ;Částka;Částka měny;Cena;Cena měny;Poplatek;Poplatek měny;Celkem;Celkem měny;Popisek;Status";
+        String content = header + "\n" +
+            "TTT;2019-07-29 17:04:41.51;M;WITHDRAWAL;-5.51382448;LTC; ; ;0.0004;LTC;-5.51422448;LTC;address;COMPLETED\n" +
+            "TTU;2019-07-29 17:05:41.51;M;UNKNOWN;-5.51382448;LTC; ; ;0.0004;LTC;-5.51422448;LTC;address;COMPLETED\n" +
+            "TTV;2019-07-29 17:06:41.51;M;DEPOSIT;5.5;LTC; ; ;0;LTC;5.5;LTC;address;COMPLETED\n";
+        File file = File.createTempFile("parsertest", "csv");
+        try {
+            Files.writeString(file.toPath(), content);
+
+            var parser = new EverytradeCsvMultiParser();
+            ParseResult expected = parser.parse(file, header);
+            var collector = new ParseResultCollector();
+            parser.parse(file, header, null, collector);
+            ParseResult actual = collector.toParseResult();
+
+            assertEquals(2, actual.getTransactionClusters().size());
+            assertEquals(expected.getTransactionClusters().size(), actual.getTransactionClusters().size());
+            for (int i = 0; i < expected.getTransactionClusters().size(); i++) {
+                ParserTestUtils.checkEqual(
+                    expected.getTransactionClusters().get(i), actual.getTransactionClusters().get(i)
+                );
+            }
+            assertEquals(expected.getParsingProblems().size(), actual.getParsingProblems().size());
+            assertEquals(1, actual.getParsingProblems().size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void testParallelConversionMatchesSequentialConversion() throws IOException {
+        String header = "ID;Date;Type;Amount;Amount Currency;Price;Price Currency;Fee;Fee Currency;Total;Total Currency;" +
+            "Description;Status";
+        StringBuilder content = new StringBuilder(header).append("\n");
+        for (int i = 0; i < 1000; i++) {
+            String priceCurrency = i % 10 == 3 ? "LTC" : "EUR";
+            String status = i % 10 == 7 ? "PENDING" : "OK";
+            content.append(String.format(
+                "%d;2019-07-29 17:04:41;BUY;0.5;LTC;%d;%s;0.1;EUR;10;EUR;;%s\n", i, 20 + i, priceCurrency, status
+            ));
+        }
+        File file = File.createTempFile("parsertest", "csv");
+        try (var sequentialParser = new EverytradeCsvMultiParser();
+             var parallelParser = new EverytradeCsvMultiParser(4)) {
+            Files.writeString(file.toPath(), content);
+
+            ParseResult expected = sequentialParser.parse(file, header);
+            ParseResult actual = parallelParser.parse(file, header);
+
+            assertEquals(800, actual.getTransactionClusters().size());
+            assertEquals(expected.getTransactionClusters().size(), actual.getTransactionClusters().size());
+            for (int i = 0; i < expected.getTransactionClusters().size(); i++) {
+                ParserTestUtils.checkEqual(
+                    expected.getTransactionClusters().get(i), actual.getTransactionClusters().get(i)
+                );
+            }
+            assertEquals(expected.getParsingProblems().size(), actual.getParsingProblems().size());
+            for (int i = 0; i < expected.getParsingProblems().size(); i++) {
+                var expectedProblem = expected.getParsingProblems().get(i);
+                var actualProblem = actual.getParsingProblems().get(i);
+                assertEquals(expectedProblem.getRow(), actualProblem.getRow());
+                assertEquals(expectedProblem.getMessage(), actualProblem.getMessage());
+                assertEquals(expectedProblem.getParsingProblemType(), actualProblem.getParsingProblemType());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
     private void doTest(Collection<String> headers, SupportedExchange expected) {
         headers.forEach(h -> {
             assertTrue(EverytradeCsvMultiParser.DESCRIPTOR.isHeaderSupported(h));
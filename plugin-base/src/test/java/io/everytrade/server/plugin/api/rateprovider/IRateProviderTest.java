@@ -0,0 +1,70 @@
+package io.everytrade.server.plugin.api.rateprovider;
+
+import io.everytrade.server.model.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class IRateProviderTest {
+
+    @Test
+    void testBatchLookupResolvesEachValidityWindowOnce() {
+        var provider = new CountingRateProvider();
+        var q1 = new RateQuery(Currency.BTC, Currency.USD, Instant.parse("2021-01-01T10:01:00Z"));
+        var q2 = new RateQuery(Currency.BTC, Currency.USD, Instant.parse("2021-01-01T10:14:59Z"));
+        var q3 = new RateQuery(Currency.BTC, Currency.USD, Instant.parse("2021-01-01T10:15:00Z"));
+        var q4 = new RateQuery(Currency.ETH, Currency.USD, Instant.parse("2021-01-01T10:01:00Z"));
+
+        Map<RateQuery, Rate> rates = provider.getRates(List.of(q3, q4, q1, q2, q1));
+
+        assertEquals(List.of(q3, q4, q1, q2), new ArrayList<>(rates.keySet()));
+        assertEquals(3, provider.calls.size());
+        assertEquals(List.of(q1, q3, q4), provider.calls);
+        assertEquals(rates.get(q1), rates.get(q2));
+        assertEquals(new BigDecimal("3"), rates.get(q4).getValue());
+    }
+
+    @Test
+    void testQueriesWithoutRateAreOmitted() {
+        var provider = new CountingRateProvider();
+        var query = new RateQuery(Currency.LTC, Currency.USD, Instant.parse("2021-01-01T10:01:00Z"));
+
+        Map<RateQuery, Rate> rates = provider.getRates(List.of(query));
+
+        assertFalse(rates.containsKey(query));
+        assertEquals(1, provider.calls.size());
+    }
+
+    private static class CountingRateProvider implements IRateProvider {
+        private final List<RateQuery> calls = new ArrayList<>();
+
+        @Override
+        public RateValidity getMinRateValidity() {
+            return RateValidity.QUARTER_HOUR;
+        }
+
+        @Override
+        public Rate getRate(Currency base, Currency quote, Instant instant) {
+            calls.add(new RateQuery(base, quote, instant));
+            if (base == Currency.LTC) {
+                return null;
+            }
+            return new Rate(
+                BigDecimal.valueOf(calls.size()),
+                base,
+                quote,
+                instant,
+                instant.plus(getMinRateValidity().getDuration()),
+                RateSourceType.MARKET,
+                CachingStrategy.LONG_TERM
+            );
+        }
+    }
+}
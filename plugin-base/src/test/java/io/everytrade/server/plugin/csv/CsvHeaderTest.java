@@ -0,0 +1,72 @@
+package io.everytrade.server.plugin.csv;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvHeaderTest {
+
+    @Test
+    void testOrderedMatching() {
+        var header = CsvHeader.of(List.of("Date", "Pair", "Fee"), ",");
+
+        assertTrue(header.matching("Date,Pair,Fee"));
+        assertTrue(header.matching("Date,Pair,Amount,Fee,Note"));
+        assertTrue(header.matching("date,PAIR,fee,,"));
+        assertFalse(header.matching("Pair,Date,Fee"));
+        assertFalse(header.matching("Date,Pair"));
+        assertFalse(header.matching("Date;Pair;Fee"));
+        assertFalse(header.matching(",,,"));
+        assertFalse(header.matching(null));
+    }
+
+    @Test
+    void testUnorderedMatching() {
+        var header = new CsvHeader(List.of("Date", "Pair", "Fee"), ";", false);
+
+        assertTrue(header.matching("Fee;Date"));
+        assertTrue(header.matching("Pair;Fee;Date;"));
+        assertFalse(header.matching("Fee;Date;Amount"));
+    }
+
+    @Test
+    void testQuotesAndMagicMark() {
+        var header = CsvHeader.of(List.of("Date", "Pair"), ",");
+
+        assertTrue(header.matching("\"Date\",\"Pair\""));
+        assertTrue(header.matching("\uFEFFDate,Pair"));
+        assertTrue(header.matching("\uFEFF\"Date\",Pair"));
+        assertFalse(header.matching("\"Date,Pair"));
+        assertFalse(header.matching("\"\"Date\"\",Pair"));
+    }
+
+    @Test
+    void testRegexTemplates() {
+        var header = CsvHeader.of(List.of("Email", "^Date \\(.*\\)$", "Side"), ",");
+
+        assertTrue(header.matching("Email,Date (UTC),Side"));
+        assertTrue(header.matching("Email,\"Date (UTC+1)\",Side"));
+        assertFalse(header.matching("Email,Date,Side"));
+        assertFalse(header.matching("Email"));
+    }
+
+    @Test
+    void testEmptyLine() {
+        assertTrue(CsvHeader.of(List.of("^.*$"), ",").matching(""));
+        assertFalse(CsvHeader.of(List.of("^.+$"), ",").matching(""));
+        assertFalse(CsvHeader.of(List.of("Date"), ",").matching(""));
+    }
+
+    @Test
+    void testSeparatorIsNotRegex() {
+        var header = CsvHeader.of(List.of("Date", "Pair"), "|");
+
+        assertTrue(header.matching("Date|Pair"));
+        assertFalse(header.matching("Date,Pair"));
+        assertThrows(IllegalArgumentException.class, () -> CsvHeader.of(List.of("Date"), ""));
+    }
+}
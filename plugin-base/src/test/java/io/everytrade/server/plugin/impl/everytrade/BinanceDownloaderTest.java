@@ -0,0 +1,209 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import io.everytrade.server.model.CurrencyPair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.Exchange;
+import org.knowm.xchange.binance.dto.account.BinanceFundingHistoryParams;
+import org.knowm.xchange.binance.dto.meta.exchangeinfo.BinanceExchangeInfo;
+import org.knowm.xchange.binance.dto.meta.exchangeinfo.Symbol;
+import org.knowm.xchange.binance.dto.trade.BinanceTradeHistoryParams;
+import org.knowm.xchange.binance.service.BinanceAccountService;
+import org.knowm.xchange.binance.service.BinanceTradeService;
+import org.knowm.xchange.currency.Currency;
+import org.knowm.xchange.dto.account.AccountInfo;
+import org.knowm.xchange.dto.account.Balance;
+import org.knowm.xchange.dto.account.Wallet;
+import org.knowm.xchange.dto.marketdata.Trades;
+import org.knowm.xchange.dto.trade.UserTrade;
+import org.knowm.xchange.dto.trade.UserTrades;
+
+import java.util.Arrays;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static io.everytrade.server.model.Currency.BTC;
+import static io.everytrade.server.model.Currency.ETH;
+import static io.everytrade.server.model.Currency.LTC;
+import static io.everytrade.server.model.Currency.USD;
+import static io.everytrade.server.model.Currency.USDT;
+import static io.everytrade.server.model.TransactionType.DEPOSIT;
+import static io.everytrade.server.model.TransactionType.BUY;
+import static io.everytrade.server.test.TestUtils.fundingRecord;
+import static io.everytrade.server.test.TestUtils.userTrade;
+import static java.math.BigDecimal.ONE;
+import static java.math.BigDecimal.TEN;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BinanceDownloaderTest {
+
+    private static final CurrencyPair BTC_USD = new CurrencyPair(BTC, USD);
+    private static final CurrencyPair ETH_USD = new CurrencyPair(ETH, USD);
+    private static final CurrencyPair LTC_USD = new CurrencyPair(LTC, USD);
+
+    private final Map<String, String> requestedStartIds = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        BinanceDownloader.invalidateTradingSymbols();
+    }
+
+    @Test
+    void testSymbolsDownloadedConcurrentlyKeepTheirLastIds() throws Exception {
+        var tradeService = mock(BinanceTradeService.class);
+        when(tradeService.getTradeHistory(any())).thenAnswer(invocation -> {
+            BinanceTradeHistoryParams params = invocation.getArgument(0);
+            String symbol = params.getInstrument().toString();
+            requestedStartIds.put(symbol, params.getStartId());
+            if (symbol.equals("BTC/USD")) {
+                return userTrades(trade("11", BTC_USD), trade("12", BTC_USD));
+            } else if (symbol.equals("LTC/USD")) {
+                return userTrades(trade("31", LTC_USD));
+            }
+            return userTrades();
+        });
+        var downloader = new BinanceDownloader(exchange(tradeService), "BTC/USD=10:ETH/USD=20|0|0");
+
+        List<UserTrade> trades = downloader.downloadTrades("BTC/USD,ETH/USD,LTC/USD", true, false);
+
+        assertEquals(List.of("11", "12", "31"), trades.stream().map(UserTrade::getId).collect(Collectors.toList()));
+        assertEquals(Map.of("BTC/USD", "11", "ETH/USD", "21", "LTC/USD", "0"), requestedStartIds);
+        assertEquals(Map.of("BTC/USD", "12", "ETH/USD", "20", "LTC/USD", "31"), lastIds(downloader));
+    }
+
+    @Test
+    void testFailedSymbolFailsDownload() throws Exception {
+        var tradeService = mock(BinanceTradeService.class);
+        when(tradeService.getTradeHistory(any())).thenAnswer(invocation -> {
+            BinanceTradeHistoryParams params = invocation.getArgument(0);
+            if (params.getInstrument().toString().equals("ETH/USD")) {
+                throw new IllegalArgumentException("Invalid symbol.");
+            }
+            return userTrades(trade("11", BTC_USD));
+        });
+        var downloader = new BinanceDownloader(exchange(tradeService), null);
+
+        assertThrows(IllegalArgumentException.class, () -> downloader.downloadTrades("BTC/USD,ETH/USD", true, false));
+    }
+
+    @Test
+    void testFirstPaidSyncScansAllSymbols() throws Exception {
+        var accountService = accountService("BTC/USDT", "ETH/USDT", "ETH/BTC");
+        var downloader = new BinanceDownloader(exchange(emptyTradeService(), accountService), null);
+
+        downloader.downloadTrades(null, false, true);
+
+        assertEquals(Set.of("BTC/USDT", "ETH/USDT", "ETH/BTC"), requestedStartIds.keySet());
+        assertEquals(4, downloader.serializeState().split("\\|").length);
+    }
+
+    @Test
+    void testPaidSyncPrunesSymbolsByAccountAssets() throws Exception {
+        var accountService = accountService("BTC/USDT", "ETH/BTC", "LTC/USDT", "LTC/BNB", "XRP/BNB");
+        when(accountService.getAccountInfo()).thenReturn(new AccountInfo(Wallet.Builder.from(List.of(
+            new Balance(Currency.ETH, BigDecimal.ONE),
+            new Balance(Currency.LTC, BigDecimal.ZERO)
+        )).build()));
+        when(accountService.getFundingHistory(any())).thenReturn(List.of(fundingRecord(DEPOSIT, TEN, USDT, ONE, "a")));
+        long dayAgo = Instant.now().minus(1, ChronoUnit.DAYS).toEpochMilli();
+        String state = "BTC/USDT=10|" + dayAgo + "|" + dayAgo + "|" + dayAgo;
+        var downloader = new BinanceDownloader(exchange(emptyTradeService(), accountService), state);
+
+        downloader.downloadDepositsAndWithdrawals(10_000);
+        downloader.downloadTrades(null, false, true);
+        downloader.downloadTrades(null, false, true);
+
+        // traded before or the base asset seen in balances and deposits; LTC (zero balance) isn't held
+        assertEquals(Set.of("BTC/USDT", "ETH/BTC"), requestedStartIds.keySet());
+        verify(accountService, times(1)).getExchangeInfo();
+        assertTrue(downloader.serializeState().endsWith("|" + dayAgo));
+    }
+
+    @Test
+    void testQuoteAssetDoesNotSelectItsSymbols() throws Exception {
+        var accountService = accountService(
+            "BTC/USDT", "ETH/USDT", "BNB/USDT", "SOL/USDT", "XRP/USDT", "DOGE/USDT", "ADA/USDT",
+            "ETH/BTC", "SOL/BTC", "ADA/BTC", "ADA/BNB", "SOL/BNB", "USDT/TRY"
+        );
+        when(accountService.getAccountInfo()).thenReturn(new AccountInfo(Wallet.Builder.from(List.of(
+            new Balance(Currency.USDT, BigDecimal.TEN),
+            new Balance(Currency.getInstance("ADA"), BigDecimal.ONE)
+        )).build()));
+        long dayAgo = Instant.now().minus(1, ChronoUnit.DAYS).toEpochMilli();
+        String state = "|" + dayAgo + "|" + dayAgo + "|" + dayAgo;
+        var downloader = new BinanceDownloader(exchange(emptyTradeService(), accountService), state);
+
+        downloader.downloadTrades(null, false, true);
+
+        assertEquals(Set.of("ADA/USDT", "ADA/BTC", "ADA/BNB"), requestedStartIds.keySet());
+    }
+
+    private static Map<String, String> lastIds(BinanceDownloader downloader) {
+        String pairs = downloader.serializeState().split("\\|")[0];
+        return Arrays.stream(pairs.split(":"))
+            .filter(pair -> !pair.isEmpty())
+            .map(pair -> pair.split("="))
+            .collect(Collectors.toMap(pair -> pair[0], pair -> pair[1]));
+    }
+
+    private static Exchange exchange(BinanceTradeService tradeService) {
+        var exchange = mock(Exchange.class);
+        when(exchange.getTradeService()).thenReturn(tradeService);
+        return exchange;
+    }
+
+    private static Exchange exchange(BinanceTradeService tradeService, BinanceAccountService accountService) {
+        var exchange = exchange(tradeService);
+        when(exchange.getAccountService()).thenReturn(accountService);
+        return exchange;
+    }
+
+    private BinanceTradeService emptyTradeService() throws IOException {
+        var tradeService = mock(BinanceTradeService.class);
+        when(tradeService.getTradeHistory(any())).thenAnswer(invocation -> {
+            BinanceTradeHistoryParams params = invocation.getArgument(0);
+            requestedStartIds.put(params.getInstrument().toString(), params.getStartId());
+            return userTrades();
+        });
+        return tradeService;
+    }
+
+    private static BinanceAccountService accountService(String... tradingSymbols) throws IOException {
+        var symbols = Arrays.stream(tradingSymbols).map(pair -> {
+            var symbol = mock(Symbol.class);
+            when(symbol.getStatus()).thenReturn("TRADING");
+            when(symbol.getBaseAsset()).thenReturn(pair.split("/")[0]);
+            when(symbol.getQuoteAsset()).thenReturn(pair.split("/")[1]);
+            return symbol;
+        }).toArray(Symbol[]::new);
+        var exchangeInfo = mock(BinanceExchangeInfo.class);
+        when(exchangeInfo.getSymbols()).thenReturn(symbols);
+        var accountService = mock(BinanceAccountService.class);
+        when(accountService.getExchangeInfo()).thenReturn(exchangeInfo);
+        when(accountService.createFundingHistoryParams()).thenReturn(new BinanceFundingHistoryParams());
+        return accountService;
+    }
+
+    private static UserTrade trade(String id, CurrencyPair pair) {
+        return userTrade(id, BUY, ONE, pair, ONE, ONE, USD);
+    }
+
+    private static UserTrades userTrades(UserTrade... trades) {
+        return new UserTrades(trades.length == 0 ? emptyList() : List.of(trades), Trades.TradeSortType.SortById);
+    }
+}
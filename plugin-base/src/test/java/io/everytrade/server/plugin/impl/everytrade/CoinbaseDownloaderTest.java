@@ -0,0 +1,201 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import io.everytrade.server.util.serialization.CompactStateCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.Exchange;
+import org.knowm.xchange.coinbase.v2.dto.account.CoinbaseExpandTransactionsResponse;
+import org.knowm.xchange.coinbase.v2.dto.account.transactions.CoinbaseShowTransactionV2;
+import org.knowm.xchange.coinbase.v2.service.CoinbaseAccountService;
+import org.knowm.xchange.coinbase.v2.service.CoinbaseTradeHistoryParams;
+import org.knowm.xchange.coinbase.v2.service.CoinbaseTradeService;
+import org.knowm.xchange.coinbase.v3.dto.transactions.CoinbaseAdvancedTradeOrderFillsResponse;
+import org.knowm.xchange.currency.Currency;
+import org.knowm.xchange.dto.account.AccountInfo;
+import org.knowm.xchange.dto.account.Balance;
+import org.knowm.xchange.dto.account.Wallet;
+import org.mockito.Answers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CoinbaseDownloaderTest {
+
+    private static final String WALLET_A = "aaaaaaaa-0000-0000-0000-000000000000";
+    private static final String WALLET_B = "bbbbbbbb-0000-0000-0000-000000000000";
+    private static final String WALLET_C = "cccccccc-0000-0000-0000-000000000000";
+
+    private Exchange exchange;
+    private CoinbaseAccountService accountService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        exchange = mock(Exchange.class);
+        accountService = mock(CoinbaseAccountService.class);
+        var tradeService = mock(CoinbaseTradeService.class);
+        when(exchange.getAccountService()).thenReturn(accountService);
+        when(exchange.getTradeService()).thenReturn(tradeService);
+        when(tradeService.createTradeHistoryParams()).thenAnswer(invocation -> new CoinbaseTradeHistoryParams());
+
+        var fills = mock(CoinbaseAdvancedTradeOrderFillsResponse.class);
+        when(fills.getFills()).thenReturn(new ArrayList<>());
+        when(tradeService.getAdvancedTradeOrderFillsRow(any())).thenReturn(fills);
+
+        for (String walletId : List.of(WALLET_A, WALLET_B, WALLET_C)) {
+            var response = mock(CoinbaseExpandTransactionsResponse.class, Answers.RETURNS_DEEP_STUBS);
+            when(response.getPagination().getNextUri()).thenReturn(null);
+            when(response.getData()).thenReturn(List.of(buy("tx-" + walletId.charAt(0))));
+            when(accountService.getExpandTransactions(eq(walletId), any(), anyString())).thenReturn(response);
+        }
+    }
+
+    @Test
+    void testAllWalletsDownloadedOnFirstSync() throws IOException {
+        mockWallets(false);
+
+        var result = new CoinbaseDownloader(exchange).download(null);
+
+        Map<String, String[]> states = walletStates(result.getDownloadStateData());
+        assertEquals(3, states.size());
+        assertEquals("tx-a", states.get(WALLET_A)[1]);
+        assertEquals("tx-b", states.get(WALLET_B)[1]);
+        assertEquals("tx-c", states.get(WALLET_C)[1]);
+        // trades checked, funding not downloaded
+        assertNotEquals("-", states.get(WALLET_A)[7]);
+        assertEquals("-", states.get(WALLET_A)[8]);
+    }
+
+    @Test
+    void testDormantWalletPolledRarely() throws IOException {
+        mockWallets(true);
+        long now = Instant.now().toEpochMilli();
+        long dayAgo = now - Duration.ofDays(1).toMillis();
+        long longAgo = now - Duration.ofDays(100).toMillis();
+        long weekAgo = now - Duration.ofDays(8).toMillis();
+        String state = String.join("|",
+            // dormant, checked recently
+            WALLET_A + ":old-a:-:-:-:" + longAgo + ":-:" + dayAgo + ":-",
+            // dormant but has balance
+            WALLET_B + ":old-b:-:-:-:" + longAgo + ":-:" + dayAgo + ":-",
+            // dormant, not checked for a week
+            WALLET_C + ":old-c:-:-:-:" + longAgo + ":-:" + weekAgo + ":-"
+        ) + "&0:0:0:null";
+
+        var result = new CoinbaseDownloader(exchange).download(state);
+
+        verify(accountService, never()).getExpandTransactions(eq(WALLET_A), any(), anyString());
+        verify(accountService).getExpandTransactions(eq(WALLET_B), any(), anyString());
+        verify(accountService).getExpandTransactions(eq(WALLET_C), any(), anyString());
+        Map<String, String[]> states = walletStates(result.getDownloadStateData());
+        assertEquals("old-a", states.get(WALLET_A)[1]);
+        assertEquals(String.valueOf(dayAgo), states.get(WALLET_A)[7]);
+        assertEquals("tx-b", states.get(WALLET_B)[1]);
+        assertEquals("tx-c", states.get(WALLET_C)[1]);
+    }
+
+    @Test
+    void testFailedWalletKeepsItsState() throws IOException {
+        mockWallets(false);
+        when(accountService.getExpandTransactions(eq(WALLET_B), any(), anyString()))
+            .thenThrow(new IOException("boom"));
+        String state = WALLET_B + ":old-b:-:-:-:-:-:-:-&0:0:0:null";
+
+        var result = new CoinbaseDownloader(exchange).download(state);
+
+        Map<String, String[]> states = walletStates(result.getDownloadStateData());
+        assertEquals("tx-a", states.get(WALLET_A)[1]);
+        assertEquals("old-b", states.get(WALLET_B)[1]);
+        assertEquals("-", states.get(WALLET_B)[7]);
+        assertEquals("tx-c", states.get(WALLET_C)[1]);
+        var problems = result.getParseResult().getParsingProblems();
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).getRow().contains(WALLET_B), problems.get(0).getRow());
+        assertEquals("boom", problems.get(0).getMessage());
+    }
+
+    @Test
+    void testManyWalletsStateWrittenCompact() throws IOException {
+        List<Wallet> wallets = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            wallets.add(wallet(String.format("%08d-0000-0000-0000-000000000000", i), BigDecimal.ZERO));
+        }
+        when(accountService.getAccountInfo()).thenReturn(new AccountInfo(wallets));
+        var response = mock(CoinbaseExpandTransactionsResponse.class, Answers.RETURNS_DEEP_STUBS);
+        when(response.getPagination().getNextUri()).thenReturn(null);
+        when(response.getData()).thenReturn(List.of(buy("tx-1")));
+        when(accountService.getExpandTransactions(anyString(), any(), anyString())).thenReturn(response);
+
+        String state = new CoinbaseDownloader(exchange).download(null).getDownloadStateData();
+
+        assertTrue(CompactStateCodec.isEncoded(state), state);
+        assertTrue(state.contains("&"));
+
+        var emptyResponse = mock(CoinbaseExpandTransactionsResponse.class, Answers.RETURNS_DEEP_STUBS);
+        when(emptyResponse.getPagination().getNextUri()).thenReturn(null);
+        when(emptyResponse.getData()).thenReturn(List.of());
+        List<String> startIds = Collections.synchronizedList(new ArrayList<>());
+        when(accountService.getExpandTransactions(anyString(), any(), anyString())).thenAnswer(invocation -> {
+            startIds.add(invocation.<CoinbaseTradeHistoryParams>getArgument(1).getStartId());
+            return emptyResponse;
+        });
+
+        new CoinbaseDownloader(exchange).download(state);
+
+        assertEquals(30, startIds.size());
+        assertTrue(startIds.stream().allMatch("tx-1"::equals), startIds.toString());
+    }
+
+    private void mockWallets(boolean walletBHasBalance) throws IOException {
+        when(accountService.getAccountInfo()).thenReturn(new AccountInfo(
+            wallet(WALLET_A, BigDecimal.ZERO),
+            wallet(WALLET_B, walletBHasBalance ? BigDecimal.ONE : BigDecimal.ZERO),
+            wallet(WALLET_C, BigDecimal.ZERO)
+        ));
+    }
+
+    private static Wallet wallet(String id, BigDecimal balance) {
+        return Wallet.Builder.from(List.of(new Balance(Currency.BTC, balance))).id(id).build();
+    }
+
+    private static CoinbaseShowTransactionV2 buy(String id) {
+        CoinbaseShowTransactionV2 buyTx = mock(CoinbaseShowTransactionV2.class, Answers.RETURNS_DEEP_STUBS);
+        when(buyTx.getType()).thenReturn("buy");
+        when(buyTx.getId()).thenReturn(id);
+        when(buyTx.getAmount().getAmount()).thenReturn(BigDecimal.TEN);
+        when(buyTx.getAmount().getCurrency()).thenReturn("BTC");
+        when(buyTx.getCreatedAt()).thenReturn("2023-01-01T00:00:00.000Z");
+        when(buyTx.getStatus()).thenReturn("completed");
+        when(buyTx.getBuy().getTotal().getAmount()).thenReturn(new BigDecimal("100001"));
+        when(buyTx.getBuy().getTotal().getCurrency()).thenReturn("USD");
+        when(buyTx.getBuy().getSubtotal().getAmount()).thenReturn(new BigDecimal("100000"));
+        when(buyTx.getBuy().getFee().getAmount()).thenReturn(BigDecimal.ONE);
+        when(buyTx.getBuy().getFee().getCurrency()).thenReturn("USD");
+        return buyTx;
+    }
+
+    private static Map<String, String[]> walletStates(String downloadState) {
+        String walletsState = downloadState.split("&")[0];
+        return Arrays.stream(walletsState.split("\\|"))
+            .map(wallet -> wallet.split(":"))
+            .collect(Collectors.toMap(wallet -> wallet[0], wallet -> wallet));
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.everytrade.server.model.CurrencyPair;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import io.everytrade.server.plugin.impl.everytrade.dedup.TimeBucketedIdFilter;
 import io.everytrade.server.util.CoinMateDataUtil;
 
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import org.knowm.xchange.coinmate.dto.trade.CoinmateTransactionHistoryEntry;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,6 +24,7 @@ import static io.everytrade.server.model.TransactionType.DEPOSIT;
 import static io.everytrade.server.model.TransactionType.SELL;
 import static io.everytrade.server.model.TransactionType.WITHDRAWAL;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -111,11 +114,26 @@ class CoinmateConnectorTest {
         return (long) f.get(state);
     }
 
-    @SuppressWarnings("unchecked")
-    private static Map<String, Long> importedIds(Object state) throws Exception {
+    private static TimeBucketedIdFilter importedIdFilter(Object state) throws Exception {
         Field f = state.getClass().getDeclaredField("importedIds");
         f.setAccessible(true);
-        return (Map<String, Long>) f.get(state);
+        return (TimeBucketedIdFilter) f.get(state);
+    }
+
+    private static Map<String, Long> importedIds(Object state) throws Exception {
+        return importedIdFilter(state).exactIds();
+    }
+
+    private static int probableImports(Object state) throws Exception {
+        Field f = state.getClass().getDeclaredField("probableImports");
+        f.setAccessible(true);
+        return (int) f.get(state);
+    }
+
+    private static boolean wasImported(Object state, String txId, long ts, long previousNextFrom) throws Exception {
+        Method m = state.getClass().getDeclaredMethod("wasImported", String.class, long.class, long.class);
+        m.setAccessible(true);
+        return (boolean) m.invoke(state, txId, ts, previousNextFrom);
     }
 
     @Test
@@ -199,6 +217,117 @@ class CoinmateConnectorTest {
             "previous parser must resume at nextFrom after a rollback");
     }
 
+    @Test
+    void testLargeStateIsWrittenCompact() throws Exception {
+        StringBuilder v3 = new StringBuilder("v3=1700000000000=1700000300000=");
+        for (int i = 0; i < 2_000; i++) {
+            v3.append(i == 0 ? "" : ",").append(90_000_000 + i * 7).append(':').append(1_700_000_000_000L + i * 100L);
+        }
+        Object state = deserializeState(v3.toString());
+        String serialized = serializeState(state);
+
+        // the ids written exactly take less than the bloom filter of their day, so they stay exact
+        assertTrue(serialized.startsWith("v5=1700000000000=1700000300000=~"), serialized);
+        assertTrue(serialized.length() < v3.length() / 10, "compact length " + serialized.length());
+        Object reparsed = deserializeState(serialized);
+        assertEquals(1700000300000L, field(reparsed, "nextFrom"));
+        assertEquals(1700000000000L, field(reparsed, "rescanFloor"));
+        assertTrue(importedIdFilter(reparsed).isExact());
+        assertEquals(importedIds(state), importedIds(reparsed));
+
+        // the parser before v3 resumes at nextFrom, v3 reads v5 as a legacy state
+        String[] parts = serialized.split("=");
+        assertEquals(1700000300000L, Long.parseLong(parts[2]));
+        assertEquals(4, parts.length);
+    }
+
+    @Test
+    void testCompactStateWithNonNumericIds() throws Exception {
+        StringBuilder v3 = new StringBuilder("v3=0=1700000300000=");
+        for (int i = 0; i < 500; i++) {
+            v3.append(i == 0 ? "" : ",").append("tx-").append(i).append(':').append(1_700_000_000_000L + i);
+        }
+        Object state = deserializeState(v3.toString());
+
+        Object reparsed = deserializeState(serializeState(state));
+
+        assertEquals(500, importedIds(reparsed).size());
+        assertEquals(importedIds(state), importedIds(reparsed));
+    }
+
+    @Test
+    void testV4StateIsStillReadable() throws Exception {
+        // v4 state with ids 90000000 and 90000007, written before the ids were bucketed by day
+        Object state = deserializeState("v4=1700000000000=1700000300000=~1eNpjYWpY9Sq0YcHqfz-T-E4wAgA4gAdr");
+
+        assertEquals(1700000300000L, field(state, "nextFrom"));
+        assertEquals(1700000000000L, field(state, "rescanFloor"));
+        assertEquals(
+            Map.of("90000000", 1_700_000_000_000L, "90000007", 1_700_000_000_100L), importedIds(state)
+        );
+    }
+
+    @Test
+    void testDamagedCompactStateResumesAtWatermark() throws Exception {
+        for (String damaged : List.of(
+            "v4=1700000000000=1700000300000=~1broken",
+            "v5=1700000000000=1700000300000=~1x"
+        )) {
+            Object state = deserializeState(damaged);
+
+            assertEquals(1700000300000L, field(state, "nextFrom"));
+            assertEquals(1700000300000L, field(state, "rescanFloor"));
+            assertTrue(importedIdFilter(state).isEmpty());
+        }
+    }
+
+    @Test
+    void testBusyDayKeepsStateSize() throws Exception {
+        long nextFrom = 1_700_000_300_000L;
+        Object state = deserializeState("v3=0=" + nextFrom + "=");
+        Map<String, Long> busyDay = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            busyDay.put(String.valueOf(90_000_000 + i * 3), nextFrom - 100_000 + i);
+        }
+        Method m = state.getClass().getDeclaredMethod("rememberImported", Map.class);
+        m.setAccessible(true);
+        m.invoke(state, busyDay);
+
+        String serialized = serializeState(state);
+
+        // the day is written as its fixed size filter (about 7 kB) however many ids it holds
+        assertTrue(serialized.length() < 10_000, "compact length " + serialized.length());
+        assertTrue(wasImported(deserializeState(serialized), "90000042", nextFrom - 99_986, nextFrom));
+    }
+
+    @Test
+    void testBusyDayFilterHitIsCheckedAgainstWatermark() throws Exception {
+        long nextFrom = 1_700_000_300_000L;
+        Object state = deserializeState("v3=0=" + nextFrom + "=");
+        Map<String, Long> busyDay = new HashMap<>();
+        // one id more than a day holds exactly
+        for (int i = 0; i <= 2_000; i++) {
+            busyDay.put("tx-" + i, nextFrom - 1000 - i);
+        }
+        Method m = state.getClass().getDeclaredMethod("rememberImported", Map.class);
+        m.setAccessible(true);
+        m.invoke(state, busyDay);
+
+        assertFalse(importedIdFilter(state).isExact());
+        assertTrue(wasImported(state, "tx-42", nextFrom - 1042, nextFrom));
+        assertEquals(1, probableImports(state));
+        // a filter hit for a row newer than the previous watermark cannot be an imported row
+        assertFalse(wasImported(state, "tx-42", nextFrom + 1, nextFrom));
+        assertEquals(1, probableImports(state));
+        long falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (wasImported(state, "new-" + i, nextFrom - 2000, nextFrom)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives <= 2, "false positives " + falsePositives);
+    }
+
     @Test
     void testDownloadStateRememberImportedDropsOldIds() throws Exception {
         long nextFrom = 1_700_000_000_000L;
@@ -0,0 +1,39 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CredentialLocksTest {
+
+    @Test
+    void testSameCredentialSameLock() {
+        var locks = new CredentialLocks(4);
+
+        assertSame(locks.forCredential("key"), locks.forCredential(new String("key")));
+        assertSame(locks.forCredential(null), locks.forCredential(null));
+    }
+
+    @Test
+    void testCredentialsSpreadOverStripes() {
+        var locks = new CredentialLocks(8);
+        Set<Object> used = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (int i = 0; i < 1000; i++) {
+            used.add(locks.forCredential("apiKey" + i));
+        }
+
+        assertEquals(8, used.size());
+    }
+
+    @Test
+    void testInvalidStripeCount() {
+        assertThrows(IllegalArgumentException.class, () -> new CredentialLocks(0));
+    }
+}
@@ -0,0 +1,86 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KrakenCallRateLimiterTest {
+
+    private long nanos;
+
+    @Test
+    void testCallsWithinCounterDoNotWait() {
+        var limiter = new KrakenCallRateLimiter(15, 0.5, () -> nanos);
+
+        for (int i = 0; i < 7; i++) {
+            assertEquals(0, limiter.reserve(2));
+        }
+        assertEquals(14, limiter.getCounter(), 1e-9);
+        // one unit over the maximum, decayed in 2 s
+        assertEquals(TimeUnit.SECONDS.toNanos(2), limiter.reserve(2));
+    }
+
+    @Test
+    void testCounterDecays() {
+        var limiter = new KrakenCallRateLimiter(15, 0.5, () -> nanos);
+        for (int i = 0; i < 7; i++) {
+            limiter.reserve(2);
+        }
+
+        nanos += TimeUnit.SECONDS.toNanos(4);
+
+        assertEquals(12, limiter.getCounter(), 1e-9);
+        assertEquals(0, limiter.reserve(2));
+        nanos += TimeUnit.SECONDS.toNanos(100);
+        assertEquals(0, limiter.getCounter(), 1e-9);
+    }
+
+    @Test
+    void testRateLimitExceededFillsCounter() {
+        var limiter = new KrakenCallRateLimiter(15, 0.5, () -> nanos);
+
+        limiter.onRateLimitExceeded();
+
+        assertEquals(15, limiter.getCounter(), 1e-9);
+        assertEquals(TimeUnit.SECONDS.toNanos(4), limiter.reserve(2));
+        // the reserved call is counted in, the next one has to wait for both
+        assertEquals(TimeUnit.SECONDS.toNanos(8), limiter.reserve(2));
+    }
+
+    @Test
+    void testIdleOnceCounterDecayed() {
+        var limiter = new KrakenCallRateLimiter(15, 0.5, () -> nanos);
+        limiter.reserve(2);
+
+        nanos += TimeUnit.SECONDS.toNanos(3);
+        assertFalse(limiter.isIdle(TimeUnit.SECONDS.toNanos(3)));
+        nanos += TimeUnit.SECONDS.toNanos(2);
+        assertTrue(limiter.isIdle(TimeUnit.SECONDS.toNanos(3)));
+        limiter.touch();
+        assertFalse(limiter.isIdle(TimeUnit.SECONDS.toNanos(3)));
+    }
+
+    @Test
+    void testIdleLimiterEvicted() {
+        var idle = KrakenCallRateLimiter.forApiKey("idle-key");
+        var busy = KrakenCallRateLimiter.forApiKey("busy-key");
+        busy.reserve(2);
+
+        KrakenCallRateLimiter.evictIdleLimiters(0);
+
+        assertNotSame(idle, KrakenCallRateLimiter.forApiKey("idle-key"));
+        assertSame(busy, KrakenCallRateLimiter.forApiKey("busy-key"));
+    }
+
+    @Test
+    void testLimiterIsSharedByApiKey() {
+        assertSame(KrakenCallRateLimiter.forApiKey("key"), KrakenCallRateLimiter.forApiKey("key"));
+        assertSame(KrakenCallRateLimiter.forApiKey(null), KrakenCallRateLimiter.forApiKey(null));
+    }
+}
@@ -0,0 +1,95 @@
+package io.everytrade.server.plugin.impl.everytrade;
+
+import io.everytrade.server.util.serialization.ConnectorSerialization;
+import io.everytrade.server.util.serialization.Uids;
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.kraken.dto.account.KrakenLedger;
+import org.knowm.xchange.kraken.dto.account.LedgerType;
+
+import java.util.List;
+
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_DEPOSIT_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_LEDGER_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_SALE_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_STAKING_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_TRADES_ID;
+import static io.everytrade.server.plugin.impl.everytrade.KrakenConnector.UID_WITHDRAWAL_ID;
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.END;
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.OFFSET;
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.START;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KrakenConnectorStateTest {
+
+    private static final String COMPLETED_LEDGER_TYPES = "1:s=1700000300;o=0;st=A;e=|2:s=1700000100;o=0;st=A;e="
+        + "|3:s=1700000200;o=0;st=A;e=|4:s=1700000300;o=0;st=A;e=|5:s=1700000400;o=0;st=A;e=";
+
+    @Test
+    void testCompletedLedgerTypesMigrateToOldestStart() {
+        Uids state = ConnectorSerialization.deserialize(COMPLETED_LEDGER_TYPES);
+
+        assertFalse(KrakenConnector.isLedgerTypeDownloadInProgress(state));
+        KrakenConnector.migrateToLedgerScan(state);
+
+        var cursor = state.getUidS().get(UID_LEDGER_ID).getUid();
+        assertEquals("1700000100", cursor.get(START));
+        assertEquals("0", cursor.get(OFFSET));
+        assertNotNull(cursor.get(END));
+        // per type starts are kept until the first scan completes
+        assertEquals("1700000400", state.getUidS().get(UID_STAKING_ID).getUid().get(START));
+    }
+
+    @Test
+    void testRunningLedgerTypeDownloadIsNotMigrated() {
+        Uids state = ConnectorSerialization.deserialize(
+            COMPLETED_LEDGER_TYPES.replace("3:s=1700000200;o=0;st=A;e=", "3:s=1700000200;o=50;st=P;e=1700000900")
+        );
+
+        assertTrue(KrakenConnector.isLedgerTypeDownloadInProgress(state));
+    }
+
+    @Test
+    void testMigratedStateSurvivesSerialization() {
+        Uids state = ConnectorSerialization.deserialize(COMPLETED_LEDGER_TYPES);
+        KrakenConnector.migrateToLedgerScan(state);
+
+        Uids restored = ConnectorSerialization.deserialize(ConnectorSerialization.serialize(state));
+
+        assertFalse(KrakenConnector.isLedgerTypeDownloadInProgress(restored));
+        assertEquals("1700000100", restored.getUidS().get(UID_LEDGER_ID).getUid().get(START));
+    }
+
+    @Test
+    void testRouteLedgersSkipsEntriesDownloadedPerType() {
+        Uids state = ConnectorSerialization.deserialize(COMPLETED_LEDGER_TYPES);
+        KrakenConnector.migrateToLedgerScan(state);
+
+        var routed = KrakenConnector.routeLedgers(state, List.of(
+            ledger(LedgerType.TRADE, 1700000200.5),
+            ledger(LedgerType.TRADE, 1700000300.5),
+            ledger(LedgerType.SPEND, 1700000150),
+            ledger(LedgerType.DEPOSIT, 1700000200),
+            ledger(LedgerType.WITHDRAWAL, 1700000500),
+            ledger(LedgerType.STAKING, 1700000500),
+            ledger(null, 1700000500)
+        ));
+
+        assertEquals(1, routed.get(UID_TRADES_ID).size());
+        assertEquals(1, routed.get(UID_SALE_ID).size());
+        assertEquals(0, routed.get(UID_DEPOSIT_ID).size());
+        assertEquals(1, routed.get(UID_WITHDRAWAL_ID).size());
+        assertEquals(1, routed.get(UID_STAKING_ID).size());
+    }
+
+    private static KrakenLedger ledger(LedgerType type, double unixTime) {
+        var ledger = mock(KrakenLedger.class);
+        when(ledger.getLedgerType()).thenReturn(type);
+        when(ledger.getUnixTime()).thenReturn(unixTime);
+        return ledger;
+    }
+}
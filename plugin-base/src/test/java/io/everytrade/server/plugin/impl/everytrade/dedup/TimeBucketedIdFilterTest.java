@@ -0,0 +1,159 @@
+package io.everytrade.server.plugin.impl.everytrade.dedup;
+
+import io.everytrade.server.util.serialization.CompactStateCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static io.everytrade.server.plugin.impl.everytrade.dedup.TimeBucketedIdFilter.Match.EXACT;
+import static io.everytrade.server.plugin.impl.everytrade.dedup.TimeBucketedIdFilter.Match.NONE;
+import static io.everytrade.server.plugin.impl.everytrade.dedup.TimeBucketedIdFilter.Match.PROBABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeBucketedIdFilterTest {
+
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long MIDNIGHT = 19_675 * DAY;
+
+    @Test
+    void testSmallBucketsAreExact() {
+        var filter = TimeBucketedIdFilter.daily(1e-6, 10);
+        filter.add("a", MIDNIGHT + 1000);
+        filter.add("b", MIDNIGHT + DAY + 1000);
+
+        assertEquals(EXACT, filter.match("a", MIDNIGHT + 1000));
+        assertEquals(NONE, filter.match("b", MIDNIGHT + 1000));
+        assertEquals(NONE, filter.match("c", MIDNIGHT + DAY + 1000));
+        assertTrue(filter.isExact());
+        assertEquals(Map.of("a", MIDNIGHT + 1000, "b", MIDNIGHT + DAY + 1000), filter.exactIds());
+    }
+
+    @Test
+    void testTimestampJitterAcrossBucketBoundary() {
+        var filter = TimeBucketedIdFilter.daily(1e-6, 10);
+        filter.add("a", MIDNIGHT - 10);
+
+        assertEquals(EXACT, filter.match("a", MIDNIGHT + 10));
+        assertEquals(NONE, filter.match("a", MIDNIGHT + Duration.ofHours(2).toMillis()));
+    }
+
+    @Test
+    void testBusyBucketTurnsIntoFilter() {
+        var filter = TimeBucketedIdFilter.daily(1e-5, 10_000);
+        for (int i = 0; i <= 10_000; i++) {
+            filter.add("tx-" + i, MIDNIGHT + i);
+        }
+        filter.add("quiet", MIDNIGHT + DAY);
+
+        assertFalse(filter.isExact());
+        assertEquals(Map.of("quiet", MIDNIGHT + DAY), filter.exactIds());
+        for (int i = 0; i <= 10_000; i++) {
+            assertEquals(PROBABLE, filter.match("tx-" + i, MIDNIGHT + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.match("other-" + i, MIDNIGHT) != NONE) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives <= 20, "false positives " + falsePositives);
+    }
+
+    @Test
+    void testFilterKeepsItsSize() {
+        var filter = TimeBucketedIdFilter.daily(1e-6, 100);
+        for (int i = 0; i <= 100; i++) {
+            filter.add("tx-" + i, MIDNIGHT + i);
+        }
+        int filterLength = CompactStateCodec.binaryLength(filter::write);
+        for (int i = 101; i < 100_000; i++) {
+            filter.add("tx-" + i, MIDNIGHT + i);
+        }
+
+        // only the count of the ids grows, by a byte
+        int length = CompactStateCodec.binaryLength(filter::write);
+        assertTrue(length <= filterLength + 1, filterLength + " grew to " + length);
+        assertEquals(PROBABLE, filter.match("tx-99999", MIDNIGHT + 99_999));
+    }
+
+    @Test
+    void testSmallerFormIsWritten() {
+        var numeric = TimeBucketedIdFilter.daily(1e-6, 1_000);
+        var textIds = TimeBucketedIdFilter.daily(1e-6, 1_000);
+        for (int i = 0; i < 1_000; i++) {
+            numeric.add(String.valueOf(80_000_000 + i), MIDNIGHT + i * 10L);
+            textIds.add("transaction-" + (80_000_000 + i), MIDNIGHT + i * 10L);
+        }
+
+        // numbers growing with time take a few bytes each, long text ids more than the filter
+        assertTrue(read(numeric, 1_000).isExact());
+        assertEquals(numeric.exactIds(), read(numeric, 1_000).exactIds());
+        assertFalse(read(textIds, 1_000).isExact());
+        assertFalse(textIds.isExact());
+        assertEquals(PROBABLE, read(textIds, 1_000).match("transaction-80000999", MIDNIGHT + 9_990));
+    }
+
+    @Test
+    void testEvictOlderThan() {
+        var filter = TimeBucketedIdFilter.daily(1e-6, 2);
+        for (int i = 0; i < 5; i++) {
+            filter.add("busy-" + i, MIDNIGHT + i);
+        }
+        filter.add("old", MIDNIGHT + DAY + 10);
+        filter.add("recent", MIDNIGHT + DAY + 20);
+
+        filter.evictOlderThan(MIDNIGHT + DAY + 15);
+
+        assertEquals(NONE, filter.match("busy-1", MIDNIGHT + 1));
+        assertEquals(Map.of("recent", MIDNIGHT + DAY + 20), filter.exactIds());
+        assertTrue(filter.isExact());
+
+        filter.evictOlderThan(MIDNIGHT + 2 * DAY);
+        assertTrue(filter.isEmpty());
+    }
+
+    @Test
+    void testWriteAndRead() {
+        var filter = TimeBucketedIdFilter.daily(1e-6, 100);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add(String.valueOf(80_000_000 + i), MIDNIGHT + i * 10L);
+        }
+        filter.add("tx-a", MIDNIGHT + DAY);
+        filter.add("123", MIDNIGHT + 2 * DAY);
+
+        var read = read(filter, 100);
+
+        assertEquals(filter.size(), read.size());
+        assertEquals(filter.exactIds(), read.exactIds());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(PROBABLE, read.match(String.valueOf(80_000_000 + i), MIDNIGHT + i * 10L));
+        }
+        assertEquals(EXACT, read.match("tx-a", MIDNIGHT + DAY));
+    }
+
+    @Test
+    void testDamagedState() {
+        String encoded = CompactStateCodec.encode("test", 0, writer -> writer.writeInt(1).writeLong(0).writeInt(7));
+        var filter = TimeBucketedIdFilter.daily(1e-6, 100);
+
+        assertThrows(IllegalArgumentException.class, () -> CompactStateCodec.decode("test", encoded, reader -> {
+            filter.read(reader);
+            return null;
+        }));
+        assertThrows(IllegalArgumentException.class, () -> TimeBucketedIdFilter.daily(0, 100));
+    }
+
+    private static TimeBucketedIdFilter read(TimeBucketedIdFilter filter, int filterCapacity) {
+        String encoded = CompactStateCodec.encode("test", 0, filter::write);
+        var read = TimeBucketedIdFilter.daily(1e-6, filterCapacity);
+        CompactStateCodec.decode("test", encoded, reader -> {
+            read.read(reader);
+            return null;
+        });
+        return read;
+    }
+}
@@ -0,0 +1,64 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CsvHeaderIndex} with the linear scan over all parse details. Run by {@code gradle :plugin-base:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvHeaderIndexBenchmark {
+
+    @Param({
+        "Date(UTC),Pair,Side,Price,Executed,Amount,Fee",
+        "\"txid\",\"refid\",\"time\",\"type\",\"subtype\",\"aclass\",\"asset\",\"amount\",\"fee\",\"balance\"",
+        "UID,Account Type,Currency,Side,Amount,Fee,Time(UTC+02:00),Remark,Type",
+        "Unknown;Header;Of;Some;Exchange"
+    })
+    public String header;
+
+    private List<ExchangeParseDetail> details;
+    private CsvHeaderIndex index;
+
+    @Setup
+    public void setUp() {
+        details = EverytradeCsvMultiParser.getExchangeParseDetails();
+        index = CsvHeaderIndex.of(details);
+    }
+
+    @Benchmark
+    public ExchangeParseDetail linearScan() {
+        return details.stream()
+            .flatMap(detail -> detail.getHeaders().stream()
+                .filter(h -> h.matching(header))
+                .map(h -> Map.entry(detail, h))
+            )
+            .max(Comparator.comparingInt(e -> e.getValue().getHeaderValues().size()))
+            .map(Map.Entry::getKey)
+            .orElse(null);
+    }
+
+    @Benchmark
+    public ExchangeParseDetail index() {
+        return index.find(header);
+    }
+}
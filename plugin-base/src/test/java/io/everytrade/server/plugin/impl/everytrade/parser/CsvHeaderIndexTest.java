@@ -0,0 +1,104 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.model.SupportedExchange;
+import io.everytrade.server.plugin.csv.CsvHeader;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static io.everytrade.server.model.SupportedExchange.BINANCE;
+import static io.everytrade.server.model.SupportedExchange.KRAKEN;
+import static io.everytrade.server.model.SupportedExchange.KUCOIN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CsvHeaderIndexTest {
+
+    @Test
+    void testSameResultAsLinearScanForAllKnownHeaders() {
+        var details = EverytradeCsvMultiParser.getExchangeParseDetails();
+        var index = CsvHeaderIndex.of(details);
+
+        for (String line : headerLines(details)) {
+            assertSame(findByScan(details, line), index.find(line), line);
+        }
+    }
+
+    @Test
+    void testLongestHeaderWins() {
+        var shortHeader = detail(CsvHeader.of(List.of("Date", "Pair"), ","), BINANCE);
+        var longHeader = detail(CsvHeader.of(List.of("Date", "Pair", "Fee"), ","), KRAKEN);
+        var index = CsvHeaderIndex.of(List.of(shortHeader, longHeader));
+
+        assertSame(longHeader, index.find("Date,Pair,Fee"));
+        assertSame(shortHeader, index.find("Date,Pair,Amount"));
+    }
+
+    @Test
+    void testFirstRegisteredWinsOnTie() {
+        var first = detail(CsvHeader.of(List.of("Date", "Pair"), ","), BINANCE);
+        var second = detail(CsvHeader.of(List.of("Date", "Pair"), ","), KRAKEN);
+
+        assertSame(first, CsvHeaderIndex.of(List.of(first, second)).find("Date,Pair"));
+    }
+
+    @Test
+    void testRegexFirstColumn() {
+        var regexHeader = detail(CsvHeader.of(List.of("^Time\\(UTC\\+\\d{2}:\\d{2}\\)$", "Coin"), ","), KUCOIN);
+        var index = CsvHeaderIndex.of(List.of(regexHeader));
+
+        assertSame(regexHeader, index.find("Time(UTC+02:00),Coin"));
+        assertNull(index.find("Time,Coin"));
+    }
+
+    @Test
+    void testMagicMarkQuotesAndCase() {
+        var header = detail(CsvHeader.of(List.of("Date", "Pair"), ","), BINANCE);
+        var index = CsvHeaderIndex.of(List.of(header));
+
+        assertSame(header, index.find("\uFEFF\"DATE\",\"pair\""));
+        assertSame(header, index.find("\"Date\",Pair,Other"));
+        assertNull(index.find("Date;Pair"));
+        assertNull(index.find(null));
+    }
+
+    private static List<String> headerLines(List<ExchangeParseDetail> details) {
+        List<String> lines = new ArrayList<>();
+        for (ExchangeParseDetail detail : details) {
+            for (CsvHeader header : detail.getHeaders()) {
+                String line = String.join(header.getSeparator(), header.getHeaderValues());
+                lines.add(line);
+                lines.add("\uFEFF" + line);
+                lines.add(line.toUpperCase());
+                lines.add(line + header.getSeparator() + "Extra column");
+                lines.add("\"" + String.join("\"" + header.getSeparator() + "\"", header.getHeaderValues()) + "\"");
+            }
+        }
+        lines.add("");
+        lines.add("Unknown,Header");
+        return lines;
+    }
+
+    private static ExchangeParseDetail findByScan(List<ExchangeParseDetail> details, String line) {
+        return details.stream()
+            .flatMap(detail -> detail.getHeaders().stream()
+                .filter(h -> h.matching(line))
+                .map(h -> Map.entry(detail, h))
+            )
+            .max(Comparator.comparingInt(e -> e.getValue().getHeaderValues().size()))
+            .map(Map.Entry::getKey)
+            .orElse(null);
+    }
+
+    private static ExchangeParseDetail detail(CsvHeader header, SupportedExchange exchange) {
+        return ExchangeParseDetail.builder()
+            .headers(List.of(header))
+            .parserFactory(() -> null)
+            .supportedExchange(exchange)
+            .build();
+    }
+}
@@ -0,0 +1,52 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numeric cells parsed the original way (string replacing, regex) and by {@link DecimalScanner}. Run by
+ * {@code gradle :plugin-base:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecimalScannerBenchmark {
+
+    @Param({"0.00012345", "2,100.00", "2100,00", "1,234,567.89"})
+    public String value;
+
+    @Benchmark
+    public BigDecimal parserNumberReplacing() {
+        return DecimalScannerTest.parseNumberByReplacing(value);
+    }
+
+    @Benchmark
+    public BigDecimal parserNumberScanner() {
+        return DecimalScanner.parseNumber(value);
+    }
+
+    @Benchmark
+    public BigDecimal ignoredCharsRegex() {
+        return new BigDecimal(value.replaceAll(ExchangeBean.IGNORED_CHARS_IN_NUMBER, ""));
+    }
+
+    @Benchmark
+    public BigDecimal ignoredCharsScanner() {
+        return DecimalScanner.parseIgnoringSymbols(value);
+    }
+}
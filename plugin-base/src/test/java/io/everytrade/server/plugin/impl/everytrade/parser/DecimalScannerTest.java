@@ -0,0 +1,97 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DecimalScannerTest {
+
+    private static final List<String> VALUES = List.of(
+        "0", "-0", "+0", "0.00", "2,100.00", "2100,00", "1,234,567.891", "1,234,567", "0.00012345", ",5", "5,", "5.",
+        ".5", "-,5", ",-5", "-15.5", "+15.5", "1.2.3", "1,2.3", "1.2,3", "", ",", ".", "-", "1e5", "1,5E-3",
+        "999999999999999999", "9999999999999999999", "-123456789012345678.9", " 1", "1 ", "$1,000.50", "€ 12",
+        "$-5", "-$5", "1\t000", "٣", "x"
+    );
+    private static final String ALPHABET = "0123456789.,-+ $€eE\t";
+
+    @Test
+    void testParseNumberMatchesReplacing() {
+        for (String value : VALUES) {
+            assertEquals(
+                resultOf(() -> parseNumberByReplacing(value)),
+                resultOf(() -> DecimalScanner.parseNumber(value)),
+                value
+            );
+        }
+        assertNull(DecimalScanner.parseNumber(null));
+    }
+
+    @Test
+    void testParseIgnoringSymbolsMatchesRegexReplace() {
+        for (String value : VALUES) {
+            assertEquals(
+                resultOf(() -> new BigDecimal(value.replaceAll(ExchangeBean.IGNORED_CHARS_IN_NUMBER, ""))),
+                resultOf(() -> DecimalScanner.parseIgnoringSymbols(value)),
+                value
+            );
+        }
+    }
+
+    @Test
+    void testRandomValuesMatchOriginalParsing() {
+        var random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            var builder = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                builder.append(
+                    random.nextInt(10) < 7
+                        ? (char) ('0' + random.nextInt(10))
+                        : ALPHABET.charAt(random.nextInt(ALPHABET.length()))
+                );
+            }
+            String value = builder.toString();
+            assertEquals(
+                resultOf(() -> parseNumberByReplacing(value)),
+                resultOf(() -> DecimalScanner.parseNumber(value)),
+                value
+            );
+            assertEquals(
+                resultOf(() -> new BigDecimal(value.replaceAll(ExchangeBean.IGNORED_CHARS_IN_NUMBER, ""))),
+                resultOf(() -> DecimalScanner.parseIgnoringSymbols(value)),
+                value
+            );
+        }
+    }
+
+    // original EverytradeCSVParserValidator.parserNumber
+    static BigDecimal parseNumberByReplacing(String value) {
+        if (value.contains(",") && value.contains(".")) {
+            value = value.replace(",", "");
+        }
+        if (value.contains(",")) {
+            value = value.replace(",", ".");
+        }
+        if ("0".equals(value)) {
+            return BigDecimal.ZERO;
+        }
+        return new BigDecimal(value);
+    }
+
+    private static String resultOf(Supplier<BigDecimal> parse) {
+        try {
+            BigDecimal result = parse.get();
+            // unscaled value and scale, BigDecimal.toString would hide e.g. 0.00 vs 0
+            return result.unscaledValue() + "E-" + result.scale();
+        } catch (NumberFormatException e) {
+            return "failed";
+        }
+    }
+}
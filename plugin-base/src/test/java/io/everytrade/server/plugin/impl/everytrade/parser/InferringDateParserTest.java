@@ -0,0 +1,41 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InferringDateParserTest {
+
+    private static final List<String> PATTERNS = List.of("d.M.yyyy H:m:s", "d.M.yyyy H:m", "d.M.yyyy", "yyyy-M-d");
+
+    @Test
+    void testAllPatternsAreParsed() {
+        var parser = new InferringDateParser(PATTERNS);
+
+        assertEquals(Instant.parse("2021-03-12T10:11:12Z"), parser.parse("12.3.2021 10:11:12"));
+        assertEquals(Instant.parse("2021-03-12T10:11:00Z"), parser.parse("12.3.2021 10:11"));
+        assertEquals(Instant.parse("2021-03-12T00:00:00Z"), parser.parse("12.3.2021"));
+        assertEquals(Instant.parse("2021-03-12T00:00:00Z"), parser.parse("2021-3-12"));
+        assertEquals(Instant.parse("2021-03-12T10:11:12Z"), parser.parse("12.3.2021 10:11:12"));
+    }
+
+    @Test
+    void testInvalidValues() {
+        var parser = new InferringDateParser(PATTERNS);
+
+        assertNull(parser.parse("32.3.2021"));
+        assertNull(parser.parse("12.3.2021 25:11"));
+        assertNull(parser.parse("12/3/2021"));
+        assertNull(parser.parse("12.3.2021 10:11:12Z"));
+        assertNull(parser.parse(""));
+        assertNull(parser.parse(null));
+        assertEquals(Instant.parse("2021-03-12T00:00:00Z"), parser.parse("2021-3-12"));
+        assertNull(parser.parse("2021-13-1"));
+        // smart resolving like DateTimeFormatter.parse
+        assertEquals(Instant.parse("2021-02-28T00:00:00Z"), parser.parse("30.2.2021"));
+    }
+}
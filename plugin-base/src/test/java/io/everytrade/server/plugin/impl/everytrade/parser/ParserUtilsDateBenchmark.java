@@ -0,0 +1,105 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.everytrade.EveryTradeBeanV3_2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date conversions of the beans moved to {@link ParserUtils}, each against the way the bean parsed the date before:
+ * ISO instants of AnycoinBeanV1 / KvaPayBeanV1, CoinbaseBeanV1 / BitstampBeanV2 and CoinbankBeanV1 against
+ * {@link Instant#parse}, the "yyyy-MM-dd HH:mm:ss" dates of BinanceBeanV3 and the settlement dates of OpenNodeV1
+ * against a formatter created for every row, and EveryTradeBeanV3_2's "DATE". Run by {@code gradle :plugin-base:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserUtilsDateBenchmark {
+    private static final String ISO_MILLIS = "2021-04-10T18:16:50.367Z";
+    private static final String ISO_SECONDS = "2020-09-27T18:36:58Z";
+    private static final String COINBANK_DATE = "2023-06-15T11:00:40.8";
+    private static final String BINANCE_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final String BINANCE_DATE = "2022-03-01 11:31:27";
+    private static final String OPEN_NODE_PATTERN = "MM/dd/yyyy hh:mm a";
+    private static final String OPEN_NODE_DATE = "06/15/2022 07:56 PM";
+    private static final DateTimeFormatter OPEN_NODE_FORMATTER =
+        DateTimeFormatter.ofPattern(OPEN_NODE_PATTERN, Locale.US);
+    private static final String EVERYTRADE_DATE = "12.5.2021 14:29:59";
+
+    private final EveryTradeBeanV3_2.DateConversion everyTradeDateConversion =
+        new EveryTradeBeanV3_2.DateConversion();
+
+    @Benchmark
+    public Instant isoMillisInstantParse() {
+        return Instant.parse(ISO_MILLIS);
+    }
+
+    @Benchmark
+    public Instant isoMillisParserUtils() {
+        return ParserUtils.parseInstant(ISO_MILLIS);
+    }
+
+    @Benchmark
+    public Instant isoSecondsInstantParse() {
+        return Instant.parse(ISO_SECONDS);
+    }
+
+    @Benchmark
+    public Instant isoSecondsParserUtils() {
+        return ParserUtils.parseInstant(ISO_SECONDS);
+    }
+
+    @Benchmark
+    public Instant coinbankInstantParse() {
+        return Instant.parse(COINBANK_DATE + "Z");
+    }
+
+    @Benchmark
+    public Instant coinbankParserUtils() {
+        return ParserUtils.parseInstant(COINBANK_DATE + "Z");
+    }
+
+    @Benchmark
+    public Instant binanceFormatterPerRow() {
+        return DateTimeFormatter.ofPattern(BINANCE_PATTERN, Locale.US)
+            .withZone(ZoneOffset.UTC)
+            .parse(BINANCE_DATE, Instant::from);
+    }
+
+    @Benchmark
+    public Instant binanceParserUtils() {
+        return ParserUtils.parse(BINANCE_PATTERN, BINANCE_DATE);
+    }
+
+    @Benchmark
+    public Instant openNodeFormatterPerRow() {
+        return LocalDateTime.parse(OPEN_NODE_DATE, DateTimeFormatter.ofPattern(OPEN_NODE_PATTERN, Locale.US))
+            .toInstant(ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public Instant openNodeStaticFormatter() {
+        return LocalDateTime.parse(OPEN_NODE_DATE, OPEN_NODE_FORMATTER).toInstant(ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public Instant everyTradeDateConversion() {
+        return everyTradeDateConversion.execute(EVERYTRADE_DATE);
+    }
+}
@@ -0,0 +1,81 @@
+package io.everytrade.server.plugin.impl.everytrade.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParserUtilsTest {
+
+    private static final List<String> LOCAL_DATE_TIMES = List.of(
+        "2021-05-12 14:29:59",
+        "2020-02-29 00:00:00",
+        "2021-02-29 10:00:00",
+        "2021-04-31 10:00:00",
+        "2021-12-31 24:00:00",
+        "0000-01-01 00:00:00",
+        "1969-12-31 23:59:59",
+        "2021-13-01 10:00:00",
+        "2021-05-12 14:29:60",
+        "2021-05-12 14:29",
+        "2021-05-12 14:29:59.123",
+        "2021-5-12 14:29:59",
+        "2021-05-12T14:29:59",
+        "+2021-05-12 14:29:5"
+    );
+
+    @Test
+    void testParseMatchesFormatter() {
+        for (String pattern : List.of("yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd'T'HH:mm:ss")) {
+            var formatter = DateTimeFormatter.ofPattern(pattern, Locale.US).withZone(ZoneOffset.UTC);
+            for (String value : LOCAL_DATE_TIMES) {
+                String expected = resultOf(() -> formatter.parse(value, Instant::from));
+                assertEquals(expected, resultOf(() -> ParserUtils.parse(pattern, value)), pattern + " " + value);
+                String tValue = value.replace(' ', 'T');
+                String expectedT = resultOf(() -> formatter.parse(tValue, Instant::from));
+                assertEquals(expectedT, resultOf(() -> ParserUtils.parse(pattern, tValue)), pattern + " " + tValue);
+            }
+        }
+    }
+
+    @Test
+    void testParseInstantMatchesInstantParse() {
+        for (String value : List.of(
+            "2021-05-12T14:29:59Z",
+            "2021-05-12T14:29:59.1Z",
+            "2021-05-12T14:29:59.123456789Z",
+            "2021-05-12T14:29:59.1234567891Z",
+            "2021-05-12T14:29:59.Z",
+            "2021-05-12T14:29:59+01:00",
+            "2021-02-29T14:29:59Z",
+            "2021-05-12 14:29:59Z",
+            "2021-05-12T14:29:59"
+        )) {
+            assertEquals(resultOf(() -> Instant.parse(value)), resultOf(() -> ParserUtils.parseInstant(value)), value);
+        }
+    }
+
+    @Test
+    void testOtherPatternsUseCachedFormatter() {
+        assertEquals(Instant.parse("2021-05-12T14:29:00Z"), ParserUtils.parse("d.M.yyyy H:mm", "12.5.2021 14:29"));
+        assertSame(ParserUtils.formatter("d.M.yyyy H:mm"), ParserUtils.formatter("d.M.yyyy H:mm"));
+        assertThrows(DateTimeParseException.class, () -> ParserUtils.parse("d.M.yyyy H:mm", "2021-05-12 14:29"));
+    }
+
+    private static String resultOf(Supplier<Instant> parse) {
+        try {
+            return parse.get().toString();
+        } catch (DateTimeParseException e) {
+            return "failed";
+        }
+    }
+}
@@ -2097,4 +2097,20 @@ class BinanceBeanV4Test {
         );
         ParserTestUtils.checkEqual(expected0, actual.get(0));
     }
+
+    @Test
+    void testStreamingMatchesBatch() {
+        final String rows = HEADER_CORRECT
+            + "155380140,2021-06-25 14:11:52,Spot,Fee,SHIB,-4324.22000000,\"\"\n"
+            + "155380140,2021-06-25 14:11:52,Spot,Transaction Buy,SHIB,4324216.00000000,\"\"\n"
+            + "155380140,2021-06-25 14:11:53,Spot,Transaction Spend,USDT,-32.17216704,\"\"\n"
+            + "86879943,2021-06-25 14:11:53,Earn,Simple Earn Flexible Subscription,USDT,-236.79617000,\"\"\n"
+            + "155380140,2021-07-12 19:28:23,Spot,Transaction Revenue,BUSD,85.18238417,\"\"\n"
+            + "155380140,2021-07-12 19:28:23,Spot,Transaction Sold,BTC,-0.00257900,\"\"\n"
+            + "155380140,2021-07-12 19:28:23,Spot,Fee,BUSD,-0.08518238,\"\"\n";
+
+        final List<TransactionCluster> actual = ParserTestUtils.getStreamedTransactionClustersMatchingBatch(rows);
+
+        assertEquals(3, actual.size());
+    }
 }
@@ -0,0 +1,37 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean;
+
+import io.everytrade.server.plugin.api.parser.TransactionCluster;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BitflyerBeanV2Test {
+    private static final String HEADER_USD = "Trade Date;Product;Trade Type;Traded Price;Currency 1;"
+        + "Amount (Currency 1);Fee;USD Rate (Currency 1);Currency 2;Amount (Currency 2);Order ID;Details\n";
+
+    @Test
+    void testStreamingMatchesBatch() {
+        // more rows than the grouping window, so groups are closed while the file is read
+        final StringBuilder rows = new StringBuilder(HEADER_USD);
+        rows.append("2020/09/29 17:50:00;;Deposit;0;USD;1000;0;1;;0;BF-00;\n");
+        for (int i = 1; i <= 600; i++) {
+            final String trade = "2020/09/29 17:55:30;LTC/USD;Buy;46.43;LTC;0.9;0;46.43;USD;-41.79;BF-" + i + ";\n";
+            final String fee = "2020/09/29 17:55:30;LTC/USD;Trade Fee;0;LTC;-0.001;0;46.43;;0;BF-" + i + "F;\n";
+            rows.append(i % 2 == 0 ? trade + fee : fee + trade);
+        }
+
+        final List<TransactionCluster> actual =
+            ParserTestUtils.getStreamedTransactionClustersMatchingBatch(rows.toString());
+
+        assertEquals(601, actual.size());
+        final TransactionCluster trade = actual.stream()
+            .filter(cluster -> cluster.getMain().getUid().equals("BF-1"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(1, trade.getRelated().size());
+        assertEquals(0, new BigDecimal("0.001").compareTo(trade.getRelated().get(0).getVolume()));
+    }
+}
@@ -7,6 +7,7 @@ import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.impl.everytrade.parser.exception.ParsingProcessException;
 import io.everytrade.server.plugin.impl.everytrade.parser.exchange.ExchangeBean;
+import io.everytrade.server.plugin.impl.everytrade.parser.exchange.everytrade.EveryTradeBeanV3_2;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
@@ -33,6 +34,7 @@ import static io.everytrade.server.model.TransactionType.STAKING_REWARD;
 import static io.everytrade.server.model.TransactionType.UNSTAKE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -917,4 +919,15 @@ class EveryTradeBeanV3_2Test {
         ParserTestUtils.checkEqual(expected, actual);
     }
 
+    @Test
+    void testDateConversionsInferPatternsIndependently() {
+        var dotted = new EveryTradeBeanV3_2.DateConversion();
+        var dashed = new EveryTradeBeanV3_2.DateConversion();
+
+        assertEquals(Instant.parse("2023-12-31T10:11:12Z"), dotted.execute("31.12.2023 10:11:12"));
+        assertEquals(Instant.parse("2023-12-31T00:00:00Z"), dashed.execute("2023-12-31"));
+        assertEquals(Instant.parse("2024-01-01T10:11:12Z"), dotted.execute("1.1.2024 10:11:12"));
+        assertEquals(Instant.parse("2024-01-01T00:00:00Z"), dashed.execute("2024-1-1"));
+        assertThrows(IllegalArgumentException.class, () -> dotted.execute("2024-13-1"));
+    }
 }
\ No newline at end of file
@@ -31,6 +31,7 @@ import static io.everytrade.server.model.TransactionType.SELL;
 import static io.everytrade.server.model.TransactionType.STAKE;
 import static io.everytrade.server.model.TransactionType.STAKING_REWARD;
 import static io.everytrade.server.model.TransactionType.UNSTAKE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class KrakenBeanV2Test {
     private static final String HEADER_CORRECT
@@ -679,4 +680,24 @@ class KrakenBeanV2Test {
         );
         ParserTestUtils.checkEqual(expected0, actual.get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLateConfirmedDepositStreamingMatchesBatch() {
+        final String rows = HEADER_CORRECT
+            + "\"\",\"QGBCYPR-U7MRNC-WNHGYG\",\"2022-09-13 18:46:39\",\"deposit\",\"\",\"currency\",\"ZEUR\",720.0000,0,\"\"\n"
+            + "\"L364WP-6OTPI-SKMRKU\",\"TGQSTQ-YQ4Q3-UBO5K6\",\"2022-09-14 09:39:46\",\"trade\",\"\",\"currency\","
+            + "\"ZEUR\",-399.5260,0.8789,320.4740\n"
+            + "\"LZZKYL-RLHTD-AEOKX4\",\"TGQSTQ-YQ4Q3-UBO5K6\",\"2022-09-14 09:39:46\",\"trade\",\"\",\"currency\","
+            + "\"XXBT\",0.0200000000,0.0000000000,0.0200000000\n"
+            + "\"LXLIUI-Z4HLC-U3U2LA\",\"TDN34E-SXU7O-7TENF4\",\"2022-09-15 12:05:14\",\"trade\",\"\",\"currency\","
+            + "\"XXBT\",-0.0100000000,0.0000000000,0.0100000000\n"
+            + "\"LKDVIM-R3BTF-IG4EOS\",\"TDN34E-SXU7O-7TENF4\",\"2022-09-15 12:05:14\",\"trade\",\"\",\"currency\","
+            + "\"ZEUR\",201.1234,0.4425,521.1549\n"
+            + "\"LTHPBH-5JHBL-GXSWL2\",\"QGBCYPR-U7MRNC-WNHGYG\",\"2022-09-15 18:48:22\",\"deposit\",\"\",\"currency\","
+            + "\"ZEUR\",720.0000,0,1241.1549\n";
+        final List<TransactionCluster> streamed = ParserTestUtils.getStreamedTransactionClustersMatchingBatch(rows);
+
+        assertEquals(List.of("LTHPBH-5JHBL-GXSWL2 DEPOSIT 720.0000 []"),
+            ParserTestUtils.describe(streamed).stream().filter(tx -> tx.contains(" DEPOSIT ")).toList());
+    }
+}
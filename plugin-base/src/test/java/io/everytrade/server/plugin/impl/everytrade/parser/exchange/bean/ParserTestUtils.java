@@ -3,6 +3,7 @@ package io.everytrade.server.plugin.impl.everytrade.parser.exchange.bean;
 import io.everytrade.server.plugin.api.parser.FeeRebateImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.ImportedTransactionBean;
 import io.everytrade.server.plugin.api.parser.ParseResult;
+import io.everytrade.server.plugin.api.parser.ParseResultCollector;
 import io.everytrade.server.plugin.api.parser.ParsingProblem;
 import io.everytrade.server.plugin.api.parser.TransactionCluster;
 import io.everytrade.server.plugin.impl.everytrade.parser.EverytradeCsvMultiParser;
@@ -13,6 +14,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static io.everytrade.server.test.TestUtils.bigDecimalEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -144,6 +146,34 @@ public class ParserTestUtils {
         return getTransactionClusters(rows, null);
     }
 
+    /**
+     * Parses the rows once as a whole and once streamed to a collector and checks both give the same transactions.
+     *
+     * @return the streamed transaction clusters
+     */
+    public static List<TransactionCluster> getStreamedTransactionClustersMatchingBatch(String rows) {
+        final File file = createTestFile(rows);
+        final List<TransactionCluster> batch = CSV_PARSER.parse(file, getHeader(rows)).getTransactionClusters();
+        final ParseResultCollector collector = new ParseResultCollector();
+        CSV_PARSER.parse(file, getHeader(rows), null, collector);
+        final List<TransactionCluster> streamed = collector.toParseResult().getTransactionClusters();
+        assertEquals(describe(batch), describe(streamed));
+        return streamed;
+    }
+
+    /**
+     * @return "uid action volume [fee volumes]" of the main transaction of each cluster, sorted
+     */
+    public static List<String> describe(List<TransactionCluster> clusters) {
+        return clusters.stream()
+            .map(cluster -> cluster.getMain().getUid() + " " + cluster.getMain().getAction() + " "
+                + cluster.getMain().getVolume().toPlainString() + " " + cluster.getRelated().stream()
+                .map(related -> related.getVolume().toPlainString())
+                .collect(Collectors.joining(", ", "[", "]")))
+            .sorted()
+            .toList();
+    }
+
     public static void testParsing(String rows) {
         CSV_PARSER.parse(ParserTestUtils.createTestFile(rows), getHeader(rows));
     }
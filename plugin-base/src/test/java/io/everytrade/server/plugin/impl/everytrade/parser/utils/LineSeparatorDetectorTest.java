@@ -0,0 +1,36 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LineSeparatorDetectorTest {
+
+    @Test
+    void testDetectSeparators() throws IOException {
+        assertEquals("\n", detect("Date,Pair\n2020-01-01,BTC/EUR\r\n"));
+        assertEquals("\r\n", detect("Date,Pair\r\n2020-01-01,BTC/EUR\r\n"));
+        assertEquals("\r", detect("Date,Pair\r2020-01-01,BTC/EUR\r"));
+        assertEquals("\r\n", detect("\uFEFFDate,Pair\r\n"));
+    }
+
+    @Test
+    void testIgnoreLineBreaksInQuotes() throws IOException {
+        assertEquals("\r\n", detect("\"Date\nUTC\",Pair\r\n"));
+    }
+
+    @Test
+    void testNoLineBreakInSample() throws IOException {
+        assertNull(detect("Date,Pair"));
+        assertNull(detect("x".repeat(LineSeparatorDetector.SAMPLE_SIZE) + "\n"));
+        assertEquals("\r\n", detect("x".repeat(LineSeparatorDetector.SAMPLE_SIZE - 1) + "\r\n"));
+    }
+
+    private static String detect(String content) throws IOException {
+        return LineSeparatorDetector.detect(new StringReader(content));
+    }
+}
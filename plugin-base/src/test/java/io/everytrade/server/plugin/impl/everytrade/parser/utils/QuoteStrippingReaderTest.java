@@ -0,0 +1,49 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuoteStrippingReaderTest {
+
+    @Test
+    void testQuotesAreStripped() throws IOException {
+        assertEquals(
+            "2023-01-04 05:43:39;IOTX;IOTX;0.00006298\nUser_ID;UTC_Time\n",
+            readAll(new QuoteStrippingReader(
+                new StringReader("\"\"2023-01-04 05:43:39;IOTX;IOTX;0.00006298\"\"\n\"User_ID\";\"UTC_Time\"\n")
+            ), 7)
+        );
+    }
+
+    @Test
+    void testChunksOfQuotesOnly() throws IOException {
+        String content = "\"".repeat(100) + "a" + "\"".repeat(100);
+
+        assertEquals("a", readAll(new QuoteStrippingReader(new StringReader(content)), 3));
+        assertEquals("", readAll(new QuoteStrippingReader(new StringReader("\"\"\"")), 2));
+    }
+
+    @Test
+    void testSingleCharRead() throws IOException {
+        var reader = new QuoteStrippingReader(new StringReader("\"a\"\"b"));
+
+        assertEquals('a', reader.read());
+        assertEquals('b', reader.read());
+        assertEquals(-1, reader.read());
+    }
+
+    private static String readAll(Reader reader, int bufferSize) throws IOException {
+        var result = new StringBuilder();
+        char[] buffer = new char[bufferSize + 2];
+        int read;
+        while ((read = reader.read(buffer, 1, bufferSize)) != -1) {
+            result.append(buffer, 1, read);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package io.everytrade.server.plugin.impl.everytrade.parser.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamingRowGrouperTest {
+
+    private final List<Map<String, List<Row>>> batches = new ArrayList<>();
+
+    @Test
+    void testSlidingWindowClosesDistantGroups() {
+        var grouper = StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 10, 100, batches::add);
+
+        grouper.add(new Row("a", 0));
+        grouper.add(new Row("b", 5));
+        grouper.add(new Row("a", 8));
+        grouper.add(new Row("c", 16));
+        assertEquals(List.of(Map.of("b", List.of(new Row("b", 5)))), batches);
+
+        grouper.add(new Row("c", 30));
+        assertEquals(Map.of("a", List.of(new Row("a", 0), new Row("a", 8))), batches.get(1));
+        assertEquals(2, grouper.getOpenRowCount());
+
+        grouper.finish();
+        assertEquals(Map.of("c", List.of(new Row("c", 16), new Row("c", 30))), batches.get(2));
+        assertEquals(0, grouper.getOpenRowCount());
+    }
+
+    @Test
+    void testDescendingOrder() {
+        var grouper = StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 10, 100, batches::add);
+
+        grouper.add(new Row("a", 100));
+        grouper.add(new Row("a", 95));
+        grouper.add(new Row("b", 80));
+
+        assertEquals(List.of(Map.of("a", List.of(new Row("a", 100), new Row("a", 95)))), batches);
+    }
+
+    @Test
+    void testRowLimitClosesOldestGroups() {
+        var grouper = StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 1000, 2, batches::add);
+
+        grouper.add(new Row("a", 0));
+        grouper.add(new Row("b", 1));
+        grouper.add(new Row("c", 2));
+
+        assertEquals(List.of(Map.of("a", List.of(new Row("a", 0)))), batches);
+        assertEquals(2, grouper.getOpenRowCount());
+    }
+
+    @Test
+    void testIncompleteGroupHeldUntilItsLateRow() {
+        var grouper = StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 10, 100, batches::add)
+            .holdingIncomplete(rows -> rows.size() == 1 && rows.get(0).key().startsWith("pair"), 1000);
+
+        grouper.add(new Row("pair-a", 0));
+        grouper.add(new Row("pair-b", 1));
+        grouper.add(new Row("c", 50));
+        assertEquals(List.of(), batches);
+        assertEquals(1, grouper.getOpenRowCount());
+
+        grouper.add(new Row("pair-a", 100));
+        assertEquals(List.of(Map.of("pair-a", List.of(new Row("pair-a", 0), new Row("pair-a", 100)))), batches);
+
+        grouper.finish();
+        assertEquals(Map.of("c", List.of(new Row("c", 50))), batches.get(1));
+        assertEquals(Map.of("pair-b", List.of(new Row("pair-b", 1))), batches.get(2));
+        assertEquals(0, grouper.getStragglerCount());
+    }
+
+    @Test
+    void testHeldGroupPassedOnOutsideHoldWindow() {
+        var grouper = StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 10, 100, batches::add)
+            .holdingIncomplete(rows -> rows.size() == 1 && rows.get(0).key().startsWith("pair"), 100);
+
+        grouper.add(new Row("pair-a", 0));
+        grouper.add(new Row("c", 50));
+        assertEquals(List.of(), batches);
+
+        grouper.add(new Row("d", 120));
+        assertEquals(List.of(Map.of("c", List.of(new Row("c", 50))), Map.of("pair-a", List.of(new Row("pair-a", 0)))),
+            batches);
+
+        grouper.add(new Row("pair-a", 130));
+        grouper.finish();
+        assertEquals(Map.of("d", List.of(new Row("d", 120))), batches.get(2));
+        assertEquals(Map.of("pair-a", List.of(new Row("pair-a", 130))), batches.get(3));
+        assertEquals(1, grouper.getStragglerCount());
+    }
+
+    @Test
+    void testHeldRowsLimited() {
+        var grouper = StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 10, 2, batches::add)
+            .holdingIncomplete(rows -> rows.size() == 1, 1000);
+
+        grouper.add(new Row("a", 0));
+        grouper.add(new Row("b", 20));
+        grouper.add(new Row("c", 40));
+        assertEquals(List.of(), batches);
+
+        grouper.add(new Row("d", 60));
+        assertEquals(List.of(Map.of("a", List.of(new Row("a", 0)))), batches);
+
+        grouper.finish();
+        assertEquals(Map.of("d", List.of(new Row("d", 60))), batches.get(1));
+        assertEquals(Map.of("b", List.of(new Row("b", 20)), "c", List.of(new Row("c", 40))), batches.get(2));
+    }
+
+    @Test
+    void testStragglersConvertedSeparately() {
+        var grouper = StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 10, 100, batches::add);
+
+        grouper.add(new Row("a", 0));
+        grouper.add(new Row("b", 20));
+        grouper.add(new Row("a", 21));
+        grouper.add(new Row("a", 22));
+        grouper.finish();
+
+        assertEquals(1, batches.get(0).size());
+        assertEquals(Map.of("b", List.of(new Row("b", 20))), batches.get(1));
+        assertEquals(Map.of("a", List.of(new Row("a", 21), new Row("a", 22))), batches.get(2));
+        assertEquals(2, grouper.getStragglerCount());
+    }
+
+    @Test
+    void testSplitOnGapClosesAllGroupsTogether() {
+        var grouper = StreamingRowGrouper.<Row, String>splitOnGap(Row::key, Row::time, 10, 100, batches::add);
+
+        grouper.add(new Row("a", 0));
+        grouper.add(new Row("b", 9));
+        grouper.add(new Row("c", 18));
+        grouper.add(new Row("a", 25));
+        assertEquals(List.of(), batches);
+
+        grouper.add(new Row("d", 40));
+        assertEquals(1, batches.size());
+        assertEquals(Set.of("a", "b", "c"), batches.get(0).keySet());
+        assertEquals(List.of(new Row("a", 0), new Row("a", 25)), batches.get(0).get("a"));
+
+        grouper.finish();
+        assertEquals(Map.of("d", List.of(new Row("d", 40))), batches.get(1));
+    }
+
+    @Test
+    void testInvalidWindow() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 10, 0, batches::add)
+        );
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> StreamingRowGrouper.<Row, String>slidingWindow(Row::key, Row::time, 10, 1, batches::add)
+                .holdingIncomplete(rows -> true, 5)
+        );
+    }
+
+    private record Row(String key, long time) {
+    }
+}
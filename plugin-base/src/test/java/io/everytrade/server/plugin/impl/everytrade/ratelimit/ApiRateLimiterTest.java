@@ -0,0 +1,154 @@
+package io.everytrade.server.plugin.impl.everytrade.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.knowm.xchange.exceptions.ExchangeException;
+import org.knowm.xchange.exceptions.RateLimitExceededException;
+import si.mazi.rescu.HttpStatusIOException;
+import si.mazi.rescu.InvocationResult;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiRateLimiterTest {
+
+    private long nanos;
+
+    @Test
+    void testRetriesRateLimitedCallAfterRequestedDelay() throws IOException {
+        var limiter = limiter("retry-after");
+        var attempts = new AtomicInteger();
+
+        String result = limiter.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw httpError(429, Map.of("Retry-After", List.of("7")));
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, attempts.get());
+        assertEquals(TimeUnit.SECONDS.toNanos(7), nanos);
+        var metrics = limiter.getMetrics();
+        assertEquals(2, metrics.getCalls());
+        assertEquals(1, metrics.getRetries());
+        assertEquals(1, metrics.getRateLimitedResponses());
+        assertEquals(0, metrics.getFailedCalls());
+        assertEquals(Duration.ofSeconds(7), metrics.getThrottledTime());
+    }
+
+    @Test
+    void testRetriesServerErrorWithBackoff() throws IOException {
+        var limiter = limiter("server-error");
+        var attempts = new AtomicInteger();
+
+        limiter.call(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ExchangeException("failed", httpError(503, Map.of()));
+            }
+            return null;
+        });
+
+        assertEquals(3, attempts.get());
+        assertEquals(2, limiter.getMetrics().getServerErrorResponses());
+        // jittered backoff of 1 s and 2 s
+        assertTrue(nanos >= TimeUnit.MILLISECONDS.toNanos(2250), "waited " + nanos);
+        assertTrue(nanos <= TimeUnit.MILLISECONDS.toNanos(3750), "waited " + nanos);
+    }
+
+    @Test
+    void testDoesNotRetryClientError() {
+        var limiter = limiter("client-error");
+        var attempts = new AtomicInteger();
+        var error = httpError(400, Map.of());
+
+        var thrown = assertThrows(HttpStatusIOException.class, () -> limiter.call(() -> {
+            attempts.incrementAndGet();
+            throw error;
+        }));
+
+        assertSame(error, thrown);
+        assertEquals(1, attempts.get());
+        assertEquals(1, limiter.getMetrics().getFailedCalls());
+        assertEquals(0, nanos);
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        var limiter = limiter("give-up");
+        var attempts = new AtomicInteger();
+
+        assertThrows(RateLimitExceededException.class, () -> limiter.call(() -> {
+            attempts.incrementAndGet();
+            throw new RateLimitExceededException("slow down");
+        }));
+
+        assertEquals(ApiRateLimiter.MAX_ATTEMPTS, attempts.get());
+        assertEquals(ApiRateLimiter.MAX_ATTEMPTS - 1, limiter.getMetrics().getRetries());
+        assertEquals(1, limiter.getMetrics().getFailedCalls());
+    }
+
+    @Test
+    void testRequestedDelayIsCapped() throws IOException {
+        var limiter = limiter("capped");
+        var attempts = new AtomicInteger();
+
+        limiter.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw httpError(429, Map.of("Retry-After", List.of("3600")));
+            }
+            return null;
+        });
+
+        assertEquals(ApiRateLimiter.MAX_RETRY_DELAY.toNanos(), nanos);
+    }
+
+    @Test
+    void testHttpStatusOf() {
+        assertEquals(502, ApiRateLimiter.httpStatusOf(new IOException(httpError(502, Map.of()))));
+        assertEquals(429, ApiRateLimiter.httpStatusOf(new RateLimitExceededException("limit")));
+        assertEquals(-1, ApiRateLimiter.httpStatusOf(new IOException("connection reset")));
+    }
+
+    @Test
+    void testLimiterSharedPerCredential() {
+        var limiter = ApiRateLimiter.forCredential("test", "key-1", 1, 1);
+
+        assertSame(limiter, ApiRateLimiter.forCredential("test", "key-1", 1, 1));
+        assertTrue(limiter != ApiRateLimiter.forCredential("test", "key-2", 1, 1));
+    }
+
+    @Test
+    void testIdleLimiterEvicted() throws IOException {
+        var idle = ApiRateLimiter.forCredential("test", "idle-key", 1, 1);
+        var busy = ApiRateLimiter.forCredential("test", "busy-key", 1, 1);
+        busy.acquire();
+
+        ApiRateLimiter.evictIdleLimiters(0);
+
+        assertTrue(idle != ApiRateLimiter.forCredential("test", "idle-key", 1, 1));
+        assertSame(busy, ApiRateLimiter.forCredential("test", "busy-key", 1, 1));
+    }
+
+    private ApiRateLimiter limiter(String exchange) {
+        return new ApiRateLimiter(
+            ApiCallMetrics.forExchange(getClass().getSimpleName() + "-" + exchange),
+            new TokenBucket(1, 1, () -> nanos),
+            delay -> nanos += delay
+        );
+    }
+
+    private static HttpStatusIOException httpError(int status, Map<String, List<String>> headers) {
+        var error = new HttpStatusIOException("HTTP " + status, new InvocationResult("", status));
+        error.setResponseHeaders(headers);
+        return error;
+    }
+}
@@ -0,0 +1,83 @@
+package io.everytrade.server.plugin.impl.everytrade.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private long nanos;
+
+    @Test
+    void testBurstThenWaits() {
+        var bucket = new TokenBucket(2, 3, () -> nanos);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.reserve());
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.reserve());
+        // permits taken from an empty bucket queue up
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), bucket.reserve());
+    }
+
+    @Test
+    void testRefillUpToBurst() {
+        var bucket = new TokenBucket(2, 3, () -> nanos);
+        for (int i = 0; i < 3; i++) {
+            bucket.reserve();
+        }
+
+        nanos += TimeUnit.SECONDS.toNanos(1);
+        assertEquals(2, bucket.getAvailablePermits(), 1e-9);
+
+        nanos += TimeUnit.SECONDS.toNanos(60);
+        assertEquals(3, bucket.getAvailablePermits(), 1e-9);
+    }
+
+    @Test
+    void testPauseDelaysNextPermit() {
+        var bucket = new TokenBucket(2, 3, () -> nanos);
+
+        bucket.pause(TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals(TimeUnit.SECONDS.toNanos(5), bucket.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5500), bucket.reserve());
+    }
+
+    @Test
+    void testWeightedReservation() {
+        var bucket = new TokenBucket(10, 20, () -> nanos);
+
+        assertEquals(0, bucket.reserve(20));
+        assertEquals(TimeUnit.SECONDS.toNanos(2), bucket.reserve(20));
+    }
+
+    @Test
+    void testIdleOnceFullAndUnused() {
+        var bucket = new TokenBucket(2, 3, () -> nanos);
+        long minute = TimeUnit.MINUTES.toNanos(1);
+        bucket.reserve();
+
+        nanos += minute - 1;
+        assertFalse(bucket.isIdle(minute));
+        nanos += 1;
+        assertTrue(bucket.isIdle(minute));
+
+        bucket.pause(TimeUnit.SECONDS.toNanos(5));
+        nanos += minute;
+        assertTrue(bucket.isIdle(minute));
+        bucket.touch();
+        assertFalse(bucket.isIdle(minute));
+    }
+
+    @Test
+    void testInvalidRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, () -> nanos));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, () -> nanos));
+    }
+}
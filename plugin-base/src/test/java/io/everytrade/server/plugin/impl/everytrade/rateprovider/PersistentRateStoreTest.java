@@ -0,0 +1,169 @@
+package io.everytrade.server.plugin.impl.everytrade.rateprovider;
+
+import io.everytrade.server.model.Currency;
+import io.everytrade.server.plugin.api.rateprovider.CachingStrategy;
+import io.everytrade.server.plugin.api.rateprovider.Rate;
+import io.everytrade.server.plugin.api.rateprovider.RateSourceType;
+import io.everytrade.server.plugin.api.rateprovider.RateValidity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentRateStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRatesAreFoundByBucket() {
+        var store = PersistentRateStore.inMemory(RateValidity.QUARTER_HOUR);
+        store.put(rate("9000.5", "2020-01-01T10:15:00Z", CachingStrategy.LONG_TERM));
+
+        Rate rate = store.get(Currency.BTC, Currency.USD, Instant.parse("2020-01-01T10:29:59Z"));
+
+        assertEquals(new BigDecimal("9000.5"), rate.getValue());
+        assertEquals(Instant.parse("2020-01-01T10:15:00Z"), rate.getValidityStartIncl());
+        assertEquals(Instant.parse("2020-01-01T10:30:00Z"), rate.getValidityEndExcl());
+        assertEquals(CachingStrategy.LONG_TERM, rate.getCachingStrategy());
+        assertNull(store.get(Currency.BTC, Currency.USD, Instant.parse("2020-01-01T10:30:00Z")));
+        assertNull(store.get(Currency.ETH, Currency.USD, Instant.parse("2020-01-01T10:20:00Z")));
+    }
+
+    @Test
+    void testOnlyLongTermRatesAreStored() {
+        var store = PersistentRateStore.inMemory(RateValidity.QUARTER_HOUR);
+        store.putAll(List.of(
+            rate("1", "2020-01-01T10:15:00Z", CachingStrategy.DO_NOT_CACHE),
+            rate("2", "2020-01-01T10:30:00Z", CachingStrategy.SHORT_TERM)
+        ));
+
+        assertEquals(0, store.size());
+        assertFalse(store.isPersistent());
+    }
+
+    @Test
+    void testStoreSurvivesReopening() throws IOException {
+        Path file = dir.resolve("rates").resolve("rates.csv");
+        var store = PersistentRateStore.open(file, RateValidity.QUARTER_HOUR);
+        assertTrue(store.isPersistent());
+        store.put(rate("9000.5", "2020-01-01T10:15:00Z", CachingStrategy.LONG_TERM));
+        store.markWindowFetched(Currency.BTC, Currency.USD, Instant.parse("2019-12-26T00:00:00Z"));
+        store.close();
+        Files.writeString(file, "R;BTC;USD;15778\nR;XXXNOTCURRENCY;USD;1577873700;1\n", StandardOpenOption.APPEND);
+
+        var reopened = PersistentRateStore.open(file, RateValidity.QUARTER_HOUR);
+
+        assertEquals(1, reopened.size());
+        assertEquals(
+            new BigDecimal("9000.5"),
+            reopened.get(Currency.BTC, Currency.USD, Instant.parse("2020-01-01T10:20:00Z")).getValue()
+        );
+        assertTrue(reopened.isWindowFetched(Currency.BTC, Currency.USD, Instant.parse("2019-12-26T00:00:00Z")));
+        assertFalse(reopened.isWindowFetched(Currency.BTC, Currency.BTC, Instant.parse("2019-12-26T00:00:00Z")));
+        // unreadable records are dropped from the file
+        assertEquals(2, Files.readAllLines(file).size());
+        reopened.close();
+    }
+
+    @Test
+    void testOpenWindowIsNotFetchedAgainTooSoon() {
+        var store = PersistentRateStore.inMemory(RateValidity.QUARTER_HOUR);
+        Instant windowStart = Instant.parse("2020-01-01T00:00:00Z");
+        AtomicInteger fetches = new AtomicInteger();
+
+        assertTrue(store.fetchWindowOnce(Currency.BTC, Currency.USD, windowStart, Duration.ofMinutes(15), () -> {
+            fetches.incrementAndGet();
+            return true;
+        }));
+        assertFalse(store.fetchWindowOnce(Currency.BTC, Currency.USD, windowStart, Duration.ofMinutes(15), () -> {
+            fetches.incrementAndGet();
+            return true;
+        }));
+        assertTrue(store.fetchWindowOnce(Currency.BTC, Currency.USD, windowStart, Duration.ZERO, () -> {
+            fetches.incrementAndGet();
+            return true;
+        }));
+        store.markWindowFetched(Currency.BTC, Currency.USD, windowStart);
+        assertFalse(store.fetchWindowOnce(Currency.BTC, Currency.USD, windowStart, Duration.ZERO, () -> {
+            fetches.incrementAndGet();
+            return true;
+        }));
+
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void testConcurrentFetchesOfWindowAreJoined() throws Exception {
+        var store = PersistentRateStore.inMemory(RateValidity.QUARTER_HOUR);
+        Instant windowStart = Instant.parse("2020-01-01T00:00:00Z");
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = executor.submit(() -> store.fetchWindowOnce(
+                Currency.BTC, Currency.USD, windowStart, Duration.ofMinutes(15), () -> {
+                    fetches.incrementAndGet();
+                    started.countDown();
+                    awaitQuietly(release);
+                    return true;
+                }
+            ));
+            started.await();
+            Future<Boolean> second = executor.submit(() -> store.fetchWindowOnce(
+                Currency.BTC, Currency.USD, windowStart, Duration.ofMinutes(15), () -> {
+                    fetches.incrementAndGet();
+                    return true;
+                }
+            ));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            second.get(5, TimeUnit.SECONDS);
+            assertEquals(1, fetches.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Rate rate(String value, String start, CachingStrategy cachingStrategy) {
+        Instant startInstant = Instant.parse(start);
+        return new Rate(
+            new BigDecimal(value),
+            Currency.BTC,
+            Currency.USD,
+            startInstant,
+            startInstant.plus(RateValidity.QUARTER_HOUR.getDuration()),
+            RateSourceType.MARKET,
+            cachingStrategy
+        );
+    }
+}
@@ -0,0 +1,59 @@
+package io.everytrade.server.util;
+
+import io.everytrade.server.model.Currency;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CurrencyResolverTest {
+
+    @Test
+    void testStandardCodesAndAliases() {
+        assertEquals(Currency.BTC, CurrencyResolver.COMMON.find("BTC"));
+        assertEquals(Currency.BTC, CurrencyResolver.COMMON.find(" btc "));
+        assertEquals(Currency.DOGE, CurrencyResolver.COMMON.find("XDG"));
+        assertEquals(Currency.RENDER, CurrencyResolver.COMMON.find("RNDR"));
+        assertNull(CurrencyResolver.STANDARD.find("XDG"));
+        assertEquals(Currency.CELO, CurrencyResolver.COINBASE_PRO.find("cgld"));
+    }
+
+    @Test
+    void testKrakenCodes() {
+        assertEquals(Currency.BTC, CurrencyResolver.KRAKEN.find("XXBT"));
+        assertEquals(Currency.BTC, CurrencyResolver.KRAKEN.find("XBT.M"));
+        assertEquals(Currency.DOT, CurrencyResolver.KRAKEN.find("DOT.S"));
+        assertEquals(Currency.ETH, CurrencyResolver.KRAKEN.find("ETHW"));
+        assertEquals(Currency.ATOM, CurrencyResolver.KRAKEN.find("ATOM21"));
+        assertEquals(Currency.EUR, CurrencyResolver.KRAKEN.find("EUR.HOLD"));
+        assertEquals(Currency.SOL, CurrencyResolver.KRAKEN.find("SOL03"));
+        assertEquals(Currency.USD, CurrencyResolver.KRAKEN.find("ZUSD"));
+    }
+
+    @Test
+    void testUnknownCodeIsCached() {
+        assertNull(CurrencyResolver.COMMON.find("NOT-A-COIN"));
+        assertNull(CurrencyResolver.COMMON.find("NOT-A-COIN"));
+        var e = assertThrows(IllegalArgumentException.class, () -> CurrencyResolver.COMMON.resolve("NOT-A-COIN"));
+        assertEquals("Unknown currency code: NOT-A-COIN", e.getMessage());
+    }
+
+    @Test
+    void testRepeatedCodeResolvesToSameCurrency() {
+        Currency first = CurrencyResolver.KRAKEN.find("XETH");
+        assertSame(first, CurrencyResolver.KRAKEN.find("XETH"));
+        assertEquals(Currency.ETH, first);
+    }
+
+    @Test
+    void testLegacyUtilsKeepTheirErrors() {
+        assertEquals(Currency.BEAM, CurrencyUtil.fromString("BEAMX"));
+        assertEquals("DOGE", CurrencyUtil.fromStringToString("XDG"));
+        assertEquals("FOO", CurrencyUtil.fromStringToString("FOO"));
+        assertThrows(IllegalArgumentException.class, () -> CurrencyUtil.fromString("FOO"));
+        assertThrows(IllegalStateException.class, () -> KrakenCurrencyUtil.findCurrencyByCode("FOO1"));
+        assertEquals(Currency.BTC, KrakenCurrencyUtil.findStandardPair("BTCUSD").getBase());
+    }
+}
@@ -0,0 +1,128 @@
+package io.everytrade.server.util.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.END;
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.START;
+import static io.everytrade.server.util.serialization.SequenceIdentifierType.STATUS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactStateCodecTest {
+
+    @Test
+    void testRoundTrip() {
+        String encoded = CompactStateCodec.encode("test", 100, writer -> writer
+            .writeLong(0)
+            .writeLong(-1)
+            .writeLong(Long.MAX_VALUE)
+            .writeLong(Long.MIN_VALUE)
+            .writeTimestamp(1_700_000_000_000L)
+            .writeTimestamp(1_700_000_000_500L)
+            .writeTimestamp(1_699_999_999_000L)
+            .writeString("wallet")
+            .writeString(null)
+            .writeString("wallet")
+            .writeString("žluťoučký")
+        );
+
+        assertTrue(CompactStateCodec.isEncoded(encoded));
+        List<Object> values = CompactStateCodec.decode("test", encoded, reader -> {
+            List<Object> read = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                read.add(reader.readLong());
+            }
+            for (int i = 0; i < 3; i++) {
+                read.add(reader.readTimestamp());
+            }
+            for (int i = 0; i < 4; i++) {
+                read.add(reader.readString());
+            }
+            assertFalse(reader.hasMore());
+            return read;
+        });
+        assertEquals(List.of(0L, -1L, Long.MAX_VALUE, Long.MIN_VALUE,
+            1_700_000_000_000L, 1_700_000_000_500L, 1_699_999_999_000L), values.subList(0, 7));
+        assertEquals("wallet", values.get(7));
+        assertNull(values.get(8));
+        assertEquals("wallet", values.get(9));
+        assertEquals("žluťoučký", values.get(10));
+    }
+
+    @Test
+    void testEncodedStateHasNoTextSeparators() {
+        String encoded = CompactStateCodec.encode("test", 0, writer -> {
+            for (int i = 0; i < 1000; i++) {
+                writer.writeString("id-" + i).writeTimestamp(1_700_000_000_000L + i * 1000L);
+            }
+        });
+        for (String separator : List.of("=", "|", ":", ";", ",", "&")) {
+            assertFalse(encoded.contains(separator), separator);
+        }
+        assertTrue(encoded.length() < 8_000, "encoded length " + encoded.length());
+    }
+
+    @Test
+    void testDamagedState() {
+        assertThrows(IllegalArgumentException.class, () -> CompactStateCodec.decode("test", "~1!!", r -> null));
+        assertThrows(IllegalArgumentException.class, () -> CompactStateCodec.decode("test", "~1AAAA", r -> null));
+        assertThrows(IllegalArgumentException.class, () -> CompactStateCodec.decode("test", "~9AAAA", r -> null));
+        String encoded = CompactStateCodec.encode("test", 0, writer -> writer.writeLong(1));
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> CompactStateCodec.decode("test", encoded, reader -> reader.readLong() + reader.readLong())
+        );
+    }
+
+    @Test
+    void testMetrics() {
+        var metrics = StateSizeMetrics.forState("metrics test");
+        String encoded = CompactStateCodec.encode("metrics test", 5000, writer -> writer.writeString("x"));
+        CompactStateCodec.decode("metrics test", encoded, CompactStateCodec.StateReader::readString);
+
+        assertEquals(1, metrics.getEncodedStates());
+        assertEquals(1, metrics.getDecodedStates());
+        assertEquals(5000, metrics.getTextChars());
+        assertEquals(encoded.length(), metrics.getEncodedChars());
+        assertTrue(metrics.getCompressionRatio() < 0.01);
+    }
+
+    @Test
+    void testLargeUidsAreEncoded() {
+        Map<String, Uid> uidMap = new TreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            uidMap.put(String.valueOf(i), ConnectorSerialization.createUidType(
+                DownloadedStatus.PARTIAL_DATA_DOWNLOADED, "1700000000", String.valueOf(1700000000 + i)
+            ));
+        }
+        String serialized = ConnectorSerialization.serialize(new Uids(uidMap));
+
+        assertTrue(CompactStateCodec.isEncoded(serialized));
+        Uids restored = ConnectorSerialization.deserialize(serialized);
+        assertEquals(100, restored.getUidS().size());
+        assertEquals("1700000042", restored.getUidS().get("42").getUid().get(END));
+        assertEquals("1700000000", restored.getUidS().get("42").getUid().get(START));
+        assertEquals(
+            DownloadedStatus.PARTIAL_DATA_DOWNLOADED.getCode(), restored.getUidS().get("42").getUid().get(STATUS)
+        );
+    }
+
+    @Test
+    void testSmallUidsStayText() {
+        Map<String, Uid> uidMap = new TreeMap<>();
+        uidMap.put("1", ConnectorSerialization.createUidType(DownloadedStatus.ALL_DATA_DOWNLOADED, "105", null));
+
+        String serialized = ConnectorSerialization.serialize(new Uids(uidMap));
+
+        assertFalse(CompactStateCodec.isEncoded(serialized));
+        assertEquals("105", ConnectorSerialization.deserialize(serialized).getUidS().get("1").getUid().get(START));
+    }
+}